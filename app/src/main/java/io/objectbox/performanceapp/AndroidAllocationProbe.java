@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.os.Build;
+import android.os.Debug;
+
+/**
+ * Counts garbage collections using ART runtime stats (Android 6.0 and newer) and, if enabled, Java allocations of the
+ * test thread using {@link Debug} alloc counters (not for multi-threaded phases).
+ * <p>
+ * Counting allocations makes ART use slower, instrumented allocation code for the whole phase, so it is off by default
+ * (see {@link AndroidPlatform#setCountAllocations(boolean)}); reading runtime stats is cheap.
+ */
+public class AndroidAllocationProbe implements PhaseProbe {
+
+    private static final String STAT_GC_COUNT = "art.gc.gc-count";
+    private static final String STAT_GC_TIME = "art.gc.gc-time";
+
+    private final boolean hasRuntimeStats = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    private final boolean countAllocations;
+    private long gcCountStart;
+    private long gcTimeStart;
+    private boolean countingAllocations;
+
+    public AndroidAllocationProbe(boolean countAllocations) {
+        this.countAllocations = countAllocations;
+    }
+
+    @Override
+    public void start() {
+        start(countAllocations);
+    }
+
+    @Override
+    public void startMultiThreaded() {
+        start(false);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void start(boolean countAllocations) {
+        if (hasRuntimeStats) {
+            gcCountStart = runtimeStat(STAT_GC_COUNT);
+            gcTimeStart = runtimeStat(STAT_GC_TIME);
+        }
+        countingAllocations = countAllocations;
+        if (countAllocations) {
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            Debug.startAllocCounting();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String stop(int numberEntities, Values values) {
+        String log = "";
+        if (countingAllocations) {
+            Debug.stopAllocCounting();
+            long allocBytes = Debug.getThreadAllocSize();
+            long allocCount = Debug.getThreadAllocCount();
+            values.add("alloc-bytes", allocBytes);
+            values.add("alloc-count", allocCount);
+            log += ", alloc: " + PhaseProbe.formatBytes(allocBytes) + " in " + allocCount + " objects";
+            if (numberEntities > 0) {
+                log += " (" + allocBytes / numberEntities + " B/entity)";
+            }
+        }
+        if (hasRuntimeStats) {
+            long gcCount = runtimeStat(STAT_GC_COUNT) - gcCountStart;
+            long gcTime = runtimeStat(STAT_GC_TIME) - gcTimeStart;
+            values.add("gc-count", gcCount);
+            values.add("gc-ms", gcTime);
+            log += ", GCs: " + gcCount + " (" + gcTime + " ms)";
+        }
+        return log;
+    }
+
+    private static long runtimeStat(String name) {
+        String value = Debug.getRuntimeStat(name);
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
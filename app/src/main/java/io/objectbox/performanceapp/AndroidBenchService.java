@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.Process;
+import android.os.RemoteException;
+import android.util.Log;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the tests of a single database in the separate ":bench" process, see {@link AndroidIsolatedPerfTest}.
+ * Log output and results are sent to the client {@link Messenger}. Once the client unbinds, the process is killed,
+ * so the next database starts with a fresh process.
+ */
+public class AndroidBenchService extends Service {
+
+    /** Client to service: run tests, see KEY_* for parameters. */
+    static final int MSG_RUN = 1;
+    /** Service to client: log output (KEY_TEXTS, KEY_ERRORS). */
+    static final int MSG_LOG = 2;
+    /** Service to client: results of a run (KEY_KEYS, KEY_VALUES). */
+    static final int MSG_RESULT = 3;
+    /** Service to client: all runs are done. */
+    static final int MSG_DONE = 4;
+
+    static final String KEY_DATABASE = "database";
+    static final String KEY_TYPE = "type";
+    static final String KEY_RUNS = "runs";
+    static final String KEY_ENTITIES = "entities";
+    static final String KEY_WARM_UP_MAX_RUNS = "warmUpMaxRuns";
+    static final String KEY_WARM_UP_MAX_VARIATION = "warmUpMaxVariation";
+    static final String KEY_WARM_UP_WINDOW = "warmUpWindow";
+    static final String KEY_KEY_DISTRIBUTION = "keyDistribution";
+    static final String KEY_OPERATION_RATE = "operationRate";
+    static final String KEY_TRACE_FILE = "traceFile";
+    static final String KEY_TRACE_SPEED = "traceSpeed";
+    static final String KEY_CHUNK_SIZES = "chunkSizes";
+    static final String KEY_MAX_COMMIT_P99 = "maxCommitP99";
+    static final String KEY_READERS = "readers";
+    static final String KEY_WRITERS = "writers";
+    static final String KEY_DURATION_MILLIS = "durationMillis";
+    static final String KEY_COUNT_ALLOCATIONS = "countAllocations";
+    static final String KEY_TEXTS = "texts";
+    static final String KEY_ERRORS = "errors";
+    static final String KEY_KEYS = "keys";
+    static final String KEY_VALUES = "values";
+
+    private final Messenger messenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+    private PerfTestRunner testRunner;
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return messenger.getBinder();
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        if (testRunner != null) {
+            testRunner.destroy();
+        }
+        // Leave nothing behind for the next database
+        Process.killProcess(Process.myPid());
+        return false;
+    }
+
+    private boolean handleMessage(Message message) {
+        if (message.what != MSG_RUN) {
+            return false;
+        }
+        if (testRunner != null) {
+            Log.w("PERF", "Ignoring run request, already running");
+            return true;
+        }
+        final Messenger client = message.replyTo;
+        Bundle data = message.getData();
+        PerfTest test = new PerfTestRegistry().createTest(data.getString(KEY_DATABASE));
+        TestType type = TestType.forNameShort(data.getString(KEY_TYPE));
+        testRunner = new ServiceRunner(this, () -> send(client, Message.obtain(null, MSG_DONE)), client,
+                data.getInt(KEY_RUNS), data.getInt(KEY_ENTITIES));
+        ((AndroidPlatform) testRunner.getPlatform()).setCountAllocations(data.getBoolean(KEY_COUNT_ALLOCATIONS));
+        testRunner.setWarmUpController(new WarmUpController()
+                .maxRuns(data.getInt(KEY_WARM_UP_MAX_RUNS))
+                .maxVariation(data.getDouble(KEY_WARM_UP_MAX_VARIATION))
+                .window(data.getInt(KEY_WARM_UP_WINDOW)));
+        testRunner.setKeyDistribution(KeyDistribution.forName(data.getString(KEY_KEY_DISTRIBUTION)));
+        testRunner.setOperationRate(data.getInt(KEY_OPERATION_RATE));
+        String traceFile = data.getString(KEY_TRACE_FILE);
+        if (traceFile != null) {
+            testRunner.setTraceFile(new File(traceFile));
+        }
+        testRunner.setTraceSpeed(data.getDouble(KEY_TRACE_SPEED));
+        testRunner.setChunkSizes(data.getIntArray(KEY_CHUNK_SIZES));
+        testRunner.setBatchSizeTuner(new BatchSizeTuner().maxP99Nanos(data.getLong(KEY_MAX_COMMIT_P99)));
+        testRunner.setConcurrentWorkload(new ConcurrentWorkload()
+                .readers(data.getInt(KEY_READERS))
+                .writers(data.getInt(KEY_WRITERS))
+                .durationMillis(data.getLong(KEY_DURATION_MILLIS)));
+        testRunner.run(type, Collections.singletonList(test));
+        return true;
+    }
+
+    private static void send(Messenger client, Message message) {
+        try {
+            client.send(message);
+        } catch (RemoteException e) {
+            Log.w("PERF", "Client is gone", e);
+        }
+    }
+
+    /** Sends log output and results to the client instead of writing files. */
+    private static class ServiceRunner extends PerfTestRunner {
+
+        private final Messenger client;
+
+        ServiceRunner(Service service, Callback callback, Messenger client, int runs, int numberEntities) {
+            super(new AndroidPlatform(service), callback, runs, numberEntities);
+            this.client = client;
+            setWriteLogFile(false);
+        }
+
+        @Override
+        protected void writeLog(List<LogPipeline.Event> events) {
+            String[] texts = new String[events.size()];
+            boolean[] errors = new boolean[events.size()];
+            for (int i = 0; i < texts.length; i++) {
+                LogPipeline.Event event = events.get(i);
+                Log.d("PERF", event.text);
+                texts[i] = event.text;
+                errors[i] = event.error;
+            }
+            Message message = Message.obtain(null, MSG_LOG);
+            message.getData().putStringArray(KEY_TEXTS, texts);
+            message.getData().putBooleanArray(KEY_ERRORS, errors);
+            send(client, message);
+        }
+
+        @Override
+        protected void addResultSinks(Benchmark benchmark, String name) {
+            // Client may run plans or sweeps, which include the throughput
+            benchmark.enableThroughput().addSink(new ResultSink() {
+                @Override
+                public void write(String[] keys, String[] values) {
+                    Message message = Message.obtain(null, MSG_RESULT);
+                    message.getData().putStringArray(KEY_KEYS, keys);
+                    message.getData().putStringArray(KEY_VALUES, values);
+                    send(client, message);
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+
+        @Override
+        protected void printDeviceInfo() {
+            log("Process: " + Process.myPid() + " (isolated)");
+        }
+
+        @Override
+        protected File getResultsDirectory() {
+            return ((AndroidPlatform) getPlatform()).getResultsDirectory();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the tests of a database in the separate ":bench" process using {@link AndroidBenchService}.
+ */
+public class AndroidIsolatedPerfTest extends IsolatedPerfTest {
+
+    private final Context context;
+    private final String database;
+
+    public AndroidIsolatedPerfTest(Context context, PerfTestVariant variant) {
+        super(variant.getName());
+        this.context = context.getApplicationContext();
+        this.database = variant.getId();
+    }
+
+    @Override
+    public void runIsolated(final PerfTestRunner testRunner, TestType type, int runs, int numberEntities,
+                            WarmUpController warmUpController, final Benchmark benchmark) {
+        final Bundle request = new Bundle();
+        request.putString(AndroidBenchService.KEY_DATABASE, database);
+        request.putString(AndroidBenchService.KEY_TYPE, type.nameShort);
+        request.putInt(AndroidBenchService.KEY_RUNS, runs);
+        request.putInt(AndroidBenchService.KEY_ENTITIES, numberEntities);
+        request.putInt(AndroidBenchService.KEY_WARM_UP_MAX_RUNS, warmUpController.getMaxRuns());
+        request.putDouble(AndroidBenchService.KEY_WARM_UP_MAX_VARIATION, warmUpController.getMaxVariation());
+        request.putInt(AndroidBenchService.KEY_WARM_UP_WINDOW, warmUpController.getWindow());
+        request.putString(AndroidBenchService.KEY_KEY_DISTRIBUTION, testRunner.getKeyDistribution().toString());
+        request.putInt(AndroidBenchService.KEY_OPERATION_RATE, testRunner.getOperationRate());
+        if (testRunner.getTraceFile() != null) {
+            request.putString(AndroidBenchService.KEY_TRACE_FILE, testRunner.getTraceFile().getPath());
+        }
+        request.putDouble(AndroidBenchService.KEY_TRACE_SPEED, testRunner.getTraceSpeed());
+        request.putIntArray(AndroidBenchService.KEY_CHUNK_SIZES, testRunner.getChunkSizes());
+        request.putLong(AndroidBenchService.KEY_MAX_COMMIT_P99, testRunner.getBatchSizeTuner().getMaxP99Nanos());
+        ConcurrentWorkload concurrentWorkload = testRunner.getConcurrentWorkload();
+        request.putInt(AndroidBenchService.KEY_READERS, concurrentWorkload.getReaders());
+        request.putInt(AndroidBenchService.KEY_WRITERS, concurrentWorkload.getWriters());
+        request.putLong(AndroidBenchService.KEY_DURATION_MILLIS, concurrentWorkload.getDurationMillis());
+        request.putBoolean(AndroidBenchService.KEY_COUNT_ALLOCATIONS,
+                ((AndroidPlatform) testRunner.getPlatform()).isCountAllocations());
+
+        final CountDownLatch doneLatch = new CountDownLatch(1);
+        final String[] error = new String[1];
+        HandlerThread replyThread = new HandlerThread("PerfBenchReplies");
+        replyThread.start();
+        final Messenger replyTo = new Messenger(new Handler(replyThread.getLooper(), message -> {
+            Bundle data = message.getData();
+            switch (message.what) {
+                case AndroidBenchService.MSG_LOG:
+                    String[] texts = data.getStringArray(AndroidBenchService.KEY_TEXTS);
+                    boolean[] errors = data.getBooleanArray(AndroidBenchService.KEY_ERRORS);
+                    for (int i = 0; i < texts.length; i++) {
+                        if (errors[i]) {
+                            testRunner.logError(texts[i]);
+                        } else {
+                            testRunner.log(texts[i]);
+                        }
+                    }
+                    return true;
+                case AndroidBenchService.MSG_RESULT:
+                    testRunner.commitIsolatedRow(benchmark, name(),
+                            data.getStringArray(AndroidBenchService.KEY_KEYS),
+                            data.getStringArray(AndroidBenchService.KEY_VALUES));
+                    return true;
+                case AndroidBenchService.MSG_DONE:
+                    doneLatch.countDown();
+                    return true;
+                default:
+                    return false;
+            }
+        }));
+
+        ServiceConnection connection = new ServiceConnection() {
+            @Override
+            public void onServiceConnected(ComponentName name, IBinder binder) {
+                Message message = Message.obtain(null, AndroidBenchService.MSG_RUN);
+                message.setData(request);
+                message.replyTo = replyTo;
+                try {
+                    new Messenger(binder).send(message);
+                } catch (RemoteException e) {
+                    error[0] = "Could not send request to bench process";
+                    doneLatch.countDown();
+                }
+            }
+
+            @Override
+            public void onServiceDisconnected(ComponentName name) {
+                if (doneLatch.getCount() > 0) {
+                    error[0] = "Bench process died";
+                    doneLatch.countDown();
+                }
+            }
+        };
+
+        testRunner.log("Running " + name() + " in separate process");
+        if (!context.bindService(new Intent(context, AndroidBenchService.class), connection,
+                Context.BIND_AUTO_CREATE)) {
+            replyThread.quit();
+            throw new RuntimeException("Could not bind to bench service");
+        }
+        try {
+            doneLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error[0] = "Interrupted";
+        } finally {
+            context.unbindService(connection);
+            // Process remaining messages (e.g. results sent right before done) before quitting
+            replyThread.quitSafely();
+        }
+        if (error[0] != null) {
+            throw new RuntimeException(error[0] + " while running " + name());
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.content.Context;
+
+import java.io.File;
+
+/**
+ * Base class for tests of databases that only run on Android, like Realm or Room.
+ */
+public abstract class AndroidPerfTest extends PerfTest {
+
+    protected Context context;
+
+    @Override
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
+        this.context = ((AndroidPlatform) testRunner.getPlatform()).getContext();
+    }
+
+    /** Size of an SQLite database created with the given name, including its journal or WAL files. */
+    protected long sqliteDatabaseSize(String name) {
+        File file = context.getDatabasePath(name);
+        String path = file.getPath();
+        return sizeOfFiles(file, new File(path + "-wal"), new File(path + "-shm"), new File(path + "-journal"));
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.style.ForegroundColorSpan;
+import android.util.Log;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tests on an Android device and prints log output to a {@link TextView}.
+ */
+public class AndroidPerfTestRunner extends PerfTestRunner {
+
+    private final Activity activity;
+    private final TextView textViewResults;
+    private ScrollView scrollViewResults;
+
+    public AndroidPerfTestRunner(Activity activity, Callback callback, TextView textViewResults, int runs,
+                                 int numberEntities) {
+        super(new AndroidPlatform(activity), callback, runs, numberEntities);
+        this.activity = activity;
+        this.textViewResults = textViewResults;
+        if (textViewResults.getParent() instanceof ScrollView) {
+            scrollViewResults = (ScrollView) textViewResults.getParent();
+        }
+    }
+
+    @Override
+    protected void writeLog(List<LogPipeline.Event> events) {
+        final SpannableStringBuilder text = new SpannableStringBuilder();
+        for (LogPipeline.Event event : events) {
+            Log.d("PERF", event.text);
+            int start = text.length();
+            text.append(event.text).append('\n');
+            if (event.error) {
+                text.setSpan(new ForegroundColorSpan(Color.RED), start, text.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+        final CountDownLatch joinLatch = new CountDownLatch(1);
+        activity.runOnUiThread(() -> {
+            textViewResults.append(text);
+            // post so just appended text is visible
+            if (scrollViewResults != null) {
+                textViewResults.post(() -> scrollViewResults.fullScroll(ScrollView.FOCUS_DOWN));
+            }
+            textViewResults.post(joinLatch::countDown);
+        });
+        // Only blocks the log thread: events count as written once the UI has processed them
+        try {
+            if (!joinLatch.await(10, TimeUnit.SECONDS)) {
+                Log.w("PERF", "UI did not process log output in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void printDeviceInfo() {
+        for (String line : ((AndroidPlatform) getPlatform()).deviceInfo()) {
+            log(line);
+        }
+    }
+
+    @Override
+    protected File getResultsDirectory() {
+        return ((AndroidPlatform) getPlatform()).getResultsDirectory();
+    }
+}
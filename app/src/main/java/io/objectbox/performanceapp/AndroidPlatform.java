@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Environment;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AndroidPlatform implements Platform {
+
+    private final Context context;
+    private boolean countAllocations;
+
+    public AndroidPlatform(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * If phases should count Java allocations of the test thread (default: false). This slows down allocations while
+     * phases are timed, see {@link AndroidAllocationProbe}.
+     */
+    public void setCountAllocations(boolean countAllocations) {
+        this.countAllocations = countAllocations;
+    }
+
+    public boolean isCountAllocations() {
+        return countAllocations;
+    }
+
+    @Override
+    public String deviceName() {
+        return Build.MODEL;
+    }
+
+    @Override
+    public long currentThreadTimeMillis() {
+        return SystemClock.currentThreadTimeMillis();
+    }
+
+    @Override
+    public File getDatabaseDirectory() {
+        return context.getFilesDir();
+    }
+
+    @Override
+    public File getDatasetDirectory() {
+        return new File(context.getFilesDir(), "dataset");
+    }
+
+    /** Lines describing the device, e.g. model and memory class. */
+    public List<String> deviceInfo() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Model: " + Build.MANUFACTURER + " " + Build.MODEL
+                + ", Android " + Build.VERSION.RELEASE);
+
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMb = activityManager.getMemoryClass();
+        int largeMemoryClassMb = activityManager.getLargeMemoryClass();
+        lines.add("MemoryClass: " + memoryClassMb + " MB");
+        lines.add("LargeMemoryClass: " + largeMemoryClassMb + " MB");
+        return lines;
+    }
+
+    /** External storage if writable, otherwise the files directory of the app. */
+    public File getResultsDirectory() {
+        File dir = Environment.getExternalStorageDirectory();
+        if (dir == null || !dir.canWrite()) {
+            File appDir = context.getFilesDir();
+            Log.i("PERF", "Using directory " + appDir.getAbsolutePath() + " because " + dir +
+                    " is not writable - please grant the storage permission to the app");
+            dir = appDir;
+        }
+        return dir;
+    }
+
+    @Override
+    public long nativeHeapAllocatedBytes() {
+        return Debug.getNativeHeapAllocatedSize();
+    }
+
+    @Override
+    public List<PhaseProbe> createPhaseProbes() {
+        List<PhaseProbe> probes = new ArrayList<>();
+        probes.add(new AndroidAllocationProbe(countAllocations));
+        return probes;
+    }
+
+    @Override
+    public void logDebug(String tag, String message) {
+        Log.d(tag, message);
+    }
+
+    @Override
+    public void logError(String tag, String message, Throwable throwable) {
+        Log.e(tag, message, throwable);
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Searches the number of entities per transaction (chunk size, see {@link ChunkedWrites}) with the highest write
+ * throughput whose p99 commit latency stays within a limit, e.g. one 16 ms frame, for
+ * {@link TestType#BATCH_SIZE_TUNING}. Doubles the chunk size until the limit is exceeded (or all entities are written
+ * in one transaction), then refines around the best size with a golden-section search on a logarithmic scale.
+ * Each size is measured in several trials and compared by their median, so a single noisy trial does not steer the
+ * search.
+ */
+public class BatchSizeTuner {
+
+    /** Writes all entities in chunks of the given size and measures them. */
+    public interface Trial {
+        Result run(int chunkSize);
+    }
+
+    public static class Result {
+        public final int chunkSize;
+        /** Median of the trials. */
+        public final long entitiesPerSecond;
+        /** Median of the trials. */
+        public final long p99Nanos;
+        /** Lowest throughput of the trials, the spread. */
+        public final long minEntitiesPerSecond;
+        /** Highest throughput of the trials, the spread. */
+        public final long maxEntitiesPerSecond;
+
+        /** The result of a single trial. */
+        public Result(int chunkSize, long entitiesPerSecond, long p99Nanos) {
+            this(chunkSize, entitiesPerSecond, p99Nanos, entitiesPerSecond, entitiesPerSecond);
+        }
+
+        public Result(int chunkSize, long entitiesPerSecond, long p99Nanos, long minEntitiesPerSecond,
+                      long maxEntitiesPerSecond) {
+            this.chunkSize = chunkSize;
+            this.entitiesPerSecond = entitiesPerSecond;
+            this.p99Nanos = p99Nanos;
+            this.minEntitiesPerSecond = minEntitiesPerSecond;
+            this.maxEntitiesPerSecond = maxEntitiesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format(Locale.US, "chunk size %d: %d entities/s", chunkSize, entitiesPerSecond);
+            if (minEntitiesPerSecond != maxEntitiesPerSecond) {
+                text += " (" + minEntitiesPerSecond + " to " + maxEntitiesPerSecond + ")";
+            }
+            return text + String.format(Locale.US, ", p99 %.2f ms", p99Nanos / 1000000.0);
+        }
+    }
+
+    private static final double GOLDEN_RATIO = (1 + Math.sqrt(5)) / 2;
+
+    private int minChunkSize = 1;
+    private int maxChunkSize = 100000;
+    private long maxP99Nanos = 16000000;
+    private int refineSteps = 6;
+    private int trials = 3;
+
+    public BatchSizeTuner minChunkSize(int minChunkSize) {
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("Min chunk size must be at least 1");
+        }
+        this.minChunkSize = minChunkSize;
+        return this;
+    }
+
+    /** Largest chunk size to try (default: 100000); never more than the number of entities. */
+    public BatchSizeTuner maxChunkSize(int maxChunkSize) {
+        if (maxChunkSize < 1) {
+            throw new IllegalArgumentException("Max chunk size must be at least 1");
+        }
+        this.maxChunkSize = maxChunkSize;
+        return this;
+    }
+
+    /** Limit of the p99 latency of writing a chunk (default: 16 ms, one frame at 60 Hz). */
+    public BatchSizeTuner maxP99Nanos(long maxP99Nanos) {
+        if (maxP99Nanos < 1) {
+            throw new IllegalArgumentException("Max p99 must be positive");
+        }
+        this.maxP99Nanos = maxP99Nanos;
+        return this;
+    }
+
+    public long getMaxP99Nanos() {
+        return maxP99Nanos;
+    }
+
+    /** Max number of golden-section steps after doubling (default: 6). */
+    public BatchSizeTuner refineSteps(int refineSteps) {
+        this.refineSteps = refineSteps;
+        return this;
+    }
+
+    /** Number of trials per chunk size (default: 3), their median is compared. */
+    public BatchSizeTuner trials(int trials) {
+        if (trials < 1) {
+            throw new IllegalArgumentException("Trials must be at least 1");
+        }
+        this.trials = trials;
+        return this;
+    }
+
+    /**
+     * Runs trials to find the best chunk size.
+     *
+     * @return the result with the highest throughput within the p99 limit, or null if even the smallest chunk size
+     * exceeds it
+     */
+    public Result tune(int numberEntities, Trial trial) {
+        Map<Integer, Result> results = new HashMap<>();
+        int max = Math.max(1, Math.min(maxChunkSize, numberEntities));
+        int size = Math.min(minChunkSize, max);
+        Result best = null;
+        int exceededSize = -1;
+        while (true) {
+            Result result = runTrial(trial, size, results);
+            if (result.p99Nanos > maxP99Nanos) {
+                exceededSize = size;
+                break;
+            }
+            if (best == null || result.entitiesPerSecond > best.entitiesPerSecond) {
+                best = result;
+            }
+            if (size >= max) {
+                break;
+            }
+            size = (int) Math.min((long) size * 2, max);
+        }
+        if (best == null) {
+            return null;
+        }
+
+        // Throughput is assumed to peak once between half and double of the best size (or the size exceeding the
+        // limit); sizes exceeding the limit count as no throughput
+        double low = Math.log(Math.max(minChunkSize, best.chunkSize / 2));
+        double high = Math.log(exceededSize > 0 ? exceededSize : Math.min(max, (long) best.chunkSize * 2));
+        for (int step = 0; step < refineSteps; step++) {
+            int lowSize = (int) Math.round(Math.exp(low));
+            int highSize = (int) Math.round(Math.exp(high));
+            if (highSize - lowSize <= 2) {
+                break;
+            }
+            double span = (high - low) / GOLDEN_RATIO;
+            long lowScore = score(runTrial(trial, (int) Math.round(Math.exp(high - span)), results));
+            long highScore = score(runTrial(trial, (int) Math.round(Math.exp(low + span)), results));
+            if (lowScore >= highScore) {
+                high = low + span;
+            } else {
+                low = high - span;
+            }
+        }
+
+        for (Result result : results.values()) {
+            if (result.p99Nanos <= maxP99Nanos && result.entitiesPerSecond > best.entitiesPerSecond) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs the trials in a "tuning" phase; each trial inserts and updates all entities in chunks of a size (recording
+     * the latency of each chunk) and deletes them again. Chunks are not paced, so a rate set for other test types
+     * does not affect the result.
+     *
+     * @return see {@link #tune(int, Trial)}
+     */
+    public Result tune(final ChunkedWrites.Operations operations, final PhaseRunner phases,
+                       final int numberEntities) {
+        phases.startPhase("tuning", false);
+        Result best = tune(numberEntities, chunkSize -> {
+            LatencyHistogram latencies = new LatencyHistogram();
+            operations.prepareInsert();
+            long timeNanos = ChunkedWrites.write(operations, phases, numberEntities, chunkSize, false, latencies);
+            operations.prepareUpdate();
+            timeNanos += ChunkedWrites.write(operations, phases, numberEntities, chunkSize, true, latencies);
+            operations.deleteAll();
+            Result result = new Result(chunkSize, ChunkedWrites.perSecond(2L * numberEntities, timeNanos),
+                    latencies.getValueAtPercentile(99));
+            phases.log("Trial " + result);
+            return result;
+        });
+        phases.stopPhase();
+        return best;
+    }
+
+    private long score(Result result) {
+        return result.p99Nanos <= maxP99Nanos ? result.entitiesPerSecond : -1;
+    }
+
+    private Result runTrial(Trial trial, int chunkSize, Map<Integer, Result> results) {
+        Result result = results.get(chunkSize);
+        if (result == null) {
+            result = trials == 1 ? trial.run(chunkSize) : runTrials(trial, chunkSize);
+            results.put(chunkSize, result);
+        }
+        return result;
+    }
+
+    private Result runTrials(Trial trial, int chunkSize) {
+        long[] entitiesPerSecond = new long[trials];
+        long[] p99Nanos = new long[trials];
+        for (int i = 0; i < trials; i++) {
+            Result result = trial.run(chunkSize);
+            entitiesPerSecond[i] = result.entitiesPerSecond;
+            p99Nanos[i] = result.p99Nanos;
+        }
+        Arrays.sort(entitiesPerSecond);
+        Arrays.sort(p99Nanos);
+        return new Result(chunkSize, median(entitiesPerSecond), median(p99Nanos), entitiesPerSecond[0],
+                entitiesPerSecond[trials - 1]);
+    }
+
+    /** Median of sorted values; of an even number of values the mean of the middle two. */
+    static long median(long[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "chunk sizes %d to %d, p99 up to %.1f ms, %d refine steps, %d trials each",
+                minChunkSize, maxChunkSize, maxP99Nanos / 1000000.0, refineSteps, trials);
+    }
+}
@@ -16,85 +16,95 @@
 
 package io.objectbox.performanceapp;
 
-import android.os.Build;
-import android.os.SystemClock;
-import android.util.Log;
-import android.util.Pair;
-
-import org.greenrobot.essentials.StringUtils;
-import org.greenrobot.essentials.io.FileUtils;
-
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+/**
+ * Measures named phases of a test run and passes the results of each run to one or more {@link ResultSink}s.
+ */
 public class Benchmark {
     public static final String TAG = "Benchmark";
 
-    private final List<Pair<String, String>> fixedColumns = new ArrayList<>();
-    private final List<Pair<String, String>> values = new ArrayList<>();
-    private final File file;
+    /** Percentiles of single operation latencies stored for each phase, see {@link #recordOperation(long)}. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final List<Column> fixedColumns = new ArrayList<>();
+    private final List<Column> values = new ArrayList<>();
+    private final LatencyHistogram operationLatencies = new LatencyHistogram();
+    private final List<ResultSink> sinks = new ArrayList<>();
+    private final List<PhaseProbe> probes = new ArrayList<>();
+    private final Map<String, Long> maxProbeValues = new HashMap<>();
+    private final Map<String, Long> maxLatencyValues = new HashMap<>();
+    private final Platform platform;
     private final SimpleDateFormat dateFormat;
-    private final char separator = '\t';
 
-    private String[] headers;
     private boolean storeThreadTime;
+    private boolean storeThroughput;
+    private int numberEntities;
+    private SettlePolicy settlePolicy = new SettlePolicy();
 
     private boolean started;
     private long threadTimeMillis;
-    private long timeMillis;
+    private long timeNanos;
     private String name;
+    private boolean multiThreaded;
     private int runs;
-    private int warmUpRuns;
+    private boolean warmUp;
+    private long runTimeNanos;
+    private long lastRunTimeNanos;
+    private long minOperationsPerSecond = -1;
 
-    public Benchmark(File file) {
-        this.file = file;
+    public Benchmark(Platform platform) {
+        this.platform = platform;
         dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        checkForLastHeader(file);
     }
 
-    private void checkForLastHeader(File file) {
-        String contents = null;
+    /**
+     * Writes results to the given tab-separated file.
+     */
+    public Benchmark(File file, Platform platform) {
+        this(platform);
         try {
-            contents = FileUtils.readUtf8(file);
-        } catch (FileNotFoundException e) {
-            // OK
+            addSink(new DelimitedResultSink(file, '\t'));
         } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        if (contents == null) {
-            return;
+            throw new RuntimeException("Could not open benchmark file", e);
         }
+    }
 
-        String[] lines = StringUtils.split(contents, '\n');
-        for (int i = lines.length - 1; i >= 0; i--) {
-            String[] columnValues = StringUtils.split(lines[i], separator);
-            if (columnValues.length > 1) {
-                boolean longValueFound = false;
-                for (String value : columnValues) {
-                    try {
-                        Long.parseLong(value);
-                        longValueFound = true;
-                        break;
-                    } catch (NumberFormatException e) {
-                        // OK, header candidate
-                    }
-                }
-                if (!longValueFound) {
-                    headers = columnValues;
-                    break;
-                }
-            }
-        }
+    public Benchmark addSink(ResultSink sink) {
+        sinks.add(sink);
+        return this;
     }
 
-    public Benchmark warmUpRuns(int warmUpRuns) {
-        this.warmUpRuns = warmUpRuns;
+    public Benchmark addProbe(PhaseProbe probe) {
+        probes.add(probe);
+        return this;
+    }
+
+    /** Number of entities of the test; passed to probes, e.g. to log allocations per entity. */
+    public Benchmark numberEntities(int numberEntities) {
+        this.numberEntities = numberEntities;
+        return this;
+    }
+
+    /**
+     * While warming up, {@link #commit()} discards the results of a run instead of writing them,
+     * see {@link WarmUpController}.
+     */
+    public Benchmark warmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    public Benchmark settlePolicy(SettlePolicy settlePolicy) {
+        this.settlePolicy = settlePolicy;
         return this;
     }
 
@@ -108,17 +118,34 @@ public class Benchmark {
         return this;
     }
 
+    /**
+     * Adds a column with operations per second for each phase: the number of recorded operations, or if none were
+     * recorded, the number of entities.
+     */
+    public Benchmark enableThroughput() {
+        this.storeThroughput = true;
+        return this;
+    }
+
     public Benchmark addFixedColumn(String key, String value) {
-        fixedColumns.add(new Pair<String, String>(key, value));
+        fixedColumns.add(new Column(key, value));
         return this;
     }
 
     public Benchmark addFixedColumnDevice() {
-        addFixedColumn("device", Build.MODEL);
+        addFixedColumn("device", platform.deviceName());
         return this;
     }
 
     public void start(String name) {
+        start(name, false);
+    }
+
+    /**
+     * @param multiThreaded the phase runs on other threads than the calling one: the time of the calling thread and
+     *                      probe values of only it are left out, see {@link PhaseProbe#startMultiThreaded()}
+     */
+    public void start(String name, boolean multiThreaded) {
         if (started) {
             throw new RuntimeException("Already started");
         }
@@ -127,81 +154,291 @@ public class Benchmark {
         if (values.isEmpty()) {
             values.addAll(fixedColumns);
             String startTime = dateFormat.format(new Date());
-            values.add(new Pair<>("time", startTime));
+            values.add(new Column("time", startTime));
         }
         this.name = name;
-        threadTimeMillis = SystemClock.currentThreadTimeMillis();
-        timeMillis = SystemClock.elapsedRealtime();
+        this.multiThreaded = multiThreaded;
+        operationLatencies.reset();
+        for (PhaseProbe probe : probes) {
+            if (multiThreaded) {
+                probe.startMultiThreaded();
+            } else {
+                probe.start();
+            }
+        }
+        threadTimeMillis = platform.currentThreadTimeMillis();
+        timeNanos = System.nanoTime();
     }
 
     /**
-     * Try to give GC & finalization some time to settle down.
+     * Try to give GC & finalization some time to settle down, see {@link SettlePolicy#settleRuntime()}.
      */
     public void prepareForNextRun() {
-        for (int i = 0; i < 5; i++) {
-            System.gc();
-            System.runFinalization();
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        settlePolicy.settleRuntime();
     }
 
     public String stop() {
-        long time = SystemClock.elapsedRealtime() - timeMillis;
-        long timeThread = SystemClock.currentThreadTimeMillis() - threadTimeMillis;
+        long timeNanos = System.nanoTime() - this.timeNanos;
+        long time = timeNanos / 1000000;
+        long timeThread = platform.currentThreadTimeMillis() - threadTimeMillis;
         if (!started) {
             throw new RuntimeException("Not started");
         }
         started = false;
+        runTimeNanos += timeNanos;
 
-        String logMessage = name + ": " + time + " ms (thread: " + timeThread + " ms)";
-        values.add(new Pair<>(name, Long.toString(time)));
-        if (storeThreadTime) {
-            values.add(new Pair<>(name + "-thread", Long.toString(timeThread)));
+        String logMessage = name + ": " + time + " ms";
+        values.add(new Column(name, Long.toString(time)));
+        if (!multiThreaded) {
+            logMessage += " (thread: " + timeThread + " ms)";
+            if (storeThreadTime) {
+                values.add(new Column(name + "-thread", Long.toString(timeThread)));
+            }
         }
+        if (storeThroughput) {
+            logMessage += addThroughputValue(timeNanos);
+        }
+        if (operationLatencies.getCount() > 0) {
+            logMessage += addOperationLatencyValues();
+            updateMinOperationsPerSecond(timeNanos > 0
+                    ? Math.round(operationLatencies.getCount() * 1e9 / timeNanos) : 0);
+        }
+        logMessage += stopProbes();
         name = null;
         return logMessage;
     }
 
+    /** Adds a column to the results of the current run, e.g. a checksum of the values read by the last phase. */
+    public void addValue(String key, String value) {
+        values.add(new Column(key, value));
+    }
+
+    /**
+     * Records the duration of a single operation (e.g. one query) of the currently running phase. If any operations
+     * were recorded, {@link #stop()} adds columns with latency percentiles and the max latency in nanoseconds.
+     */
+    public void recordOperation(long durationNanos) {
+        if (!started) {
+            throw new RuntimeException("Not started");
+        }
+        operationLatencies.record(durationNanos);
+    }
+
+    private String addThroughputValue(long timeNanos) {
+        long operations = operationLatencies.getCount() > 0 ? operationLatencies.getCount() : numberEntities;
+        long opsPerSecond = timeNanos > 0 ? Math.round(operations * 1e9 / timeNanos) : 0;
+        values.add(new Column(name + "-ops-per-s", Long.toString(opsPerSecond)));
+        return ", " + opsPerSecond + " ops/s";
+    }
+
+    private String addOperationLatencyValues() {
+        return ", ops: " + operationLatencies.getCount() + addLatencyValues(name, operationLatencies, true);
+    }
+
+    /**
+     * Adds percentile and max latency columns with the given prefix (e.g. "reader-1-p99") to the current run, e.g.
+     * for latencies recorded by other threads than the one running the phase.
+     *
+     * @return the values as log text, starting with ", "
+     */
+    public String addLatencyValues(String prefix, LatencyHistogram latencies) {
+        return addLatencyValues(prefix, latencies, false);
+    }
+
+    private String addLatencyValues(String prefix, LatencyHistogram latencies, boolean updateMaxLatency) {
+        StringBuilder logMessage = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            long value = latencies.getValueAtPercentile(percentile);
+            String percentileName = "p" + formatPercentile(percentile);
+            values.add(new Column(prefix + "-" + percentileName, Long.toString(value)));
+            if (updateMaxLatency) {
+                updateMaxLatency(percentileName, value);
+            }
+            logMessage.append(", ").append(percentileName).append(": ").append(formatMicros(value));
+        }
+        long max = latencies.getMax();
+        values.add(new Column(prefix + "-max", Long.toString(max)));
+        logMessage.append(", max: ").append(formatMicros(max));
+        return logMessage.toString();
+    }
+
+    private void updateMaxLatency(String percentileName, long value) {
+        if (warmUp) {
+            return;
+        }
+        Long max = maxLatencyValues.get(percentileName);
+        if (max == null || value > max) {
+            maxLatencyValues.put(percentileName, value);
+        }
+    }
+
+    private void updateMinOperationsPerSecond(long opsPerSecond) {
+        if (warmUp) {
+            return;
+        }
+        if (minOperationsPerSecond < 0 || opsPerSecond < minOperationsPerSecond) {
+            minOperationsPerSecond = opsPerSecond;
+        }
+    }
+
+    private String stopProbes() {
+        StringBuilder logMessage = new StringBuilder();
+        final String phaseName = name;
+        PhaseProbe.Values probeValues = (suffix, value) -> {
+            values.add(new Column(phaseName + "-" + suffix, Long.toString(value)));
+            Long max = maxProbeValues.get(suffix);
+            if (max == null || value > max) {
+                maxProbeValues.put(suffix, value);
+            }
+        };
+        // Stop in reverse order, so probes started last (closest to the measured time) are stopped first
+        for (int i = probes.size() - 1; i >= 0; i--) {
+            String log = probes.get(i).stop(numberEntities, probeValues);
+            if (log != null) {
+                logMessage.append(log);
+            }
+        }
+        return logMessage.toString();
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == (long) percentile ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    private static String formatMicros(long nanos) {
+        return String.format(Locale.US, "%.1f us", nanos / 1000.0);
+    }
+
+    /**
+     * Writes the results of a run that was measured elsewhere, e.g. in another process (see
+     * {@link IsolatedPerfTest}). Fixed columns of this benchmark are added in front.
+     */
+    public void commitRow(String[] keys, String[] rowValues) {
+        if (keys.length != rowValues.length) {
+            throw new IllegalArgumentException("Got " + keys.length + " keys, but " + rowValues.length + " values");
+        }
+        values.addAll(fixedColumns);
+        for (int i = 0; i < keys.length; i++) {
+            values.add(new Column(keys[i], rowValues[i]));
+        }
+        trackOperationValues(keys, rowValues);
+        commit();
+    }
+
+    /**
+     * Updates the values returned by {@link #getMaxOperationLatency(String)} and {@link #getMinOperationsPerSecond()}
+     * from the latency and throughput columns of a row measured elsewhere.
+     */
+    private void trackOperationValues(String[] keys, String[] rowValues) {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            row.put(keys[i], rowValues[i]);
+        }
+        String maxSuffix = "-max";
+        for (String key : keys) {
+            if (!key.endsWith(maxSuffix)) {
+                continue;
+            }
+            String phase = key.substring(0, key.length() - maxSuffix.length());
+            String p50 = row.get(phase + "-p50");
+            if (p50 == null) {
+                continue; // Not a phase with single operations
+            }
+            try {
+                for (double percentile : PERCENTILES) {
+                    String percentileName = "p" + formatPercentile(percentile);
+                    String value = row.get(phase + "-" + percentileName);
+                    if (value != null) {
+                        updateMaxLatency(percentileName, Long.parseLong(value));
+                    }
+                }
+                String opsPerSecond = row.get(phase + "-ops-per-s");
+                if (opsPerSecond != null) {
+                    updateMinOperationsPerSecond(Long.parseLong(opsPerSecond));
+                }
+            } catch (NumberFormatException e) {
+                platform.logDebug(TAG, "Ignoring invalid value of phase " + phase + ": " + e.getMessage());
+            }
+        }
+    }
+
     public void commit() {
-        runs++;
-        if (runs > warmUpRuns) {
-            Log.d(TAG, "Writing results for run " + runs);
-            String[] collectedHeaders = getAllFirsts(values);
-            if (!Arrays.equals(collectedHeaders, headers)) {
-                headers = collectedHeaders;
-                String line = StringUtils.join(headers, "" + separator) + '\n';
+        lastRunTimeNanos = runTimeNanos;
+        runTimeNanos = 0;
+        if (!warmUp) {
+            runs++;
+            platform.logDebug(TAG, "Writing results for run " + runs);
+            String[] keys = new String[values.size()];
+            String[] columnValues = new String[values.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = values.get(i).key;
+                columnValues[i] = values.get(i).value;
+            }
+            for (ResultSink sink : sinks) {
                 try {
-                    FileUtils.appendUtf8(file, line);
+                    sink.write(keys, columnValues);
                 } catch (IOException e) {
-                    throw new RuntimeException("Could not write header in benchmark file", e);
+                    throw new RuntimeException("Could not write benchmark results", e);
                 }
             }
+        } else {
+            platform.logDebug(TAG, "Ignoring results of warm-up run");
+        }
+        values.clear();
+    }
 
-            StringBuilder line = new StringBuilder();
-            for (Pair<String, String> pair : values) {
-                line.append(pair.second).append(separator);
-            }
-            line.append('\n');
+    /**
+     * Highest value a probe reported for any phase so far, e.g. for "heap-bytes"; -1 if none was reported.
+     */
+    public long getMaxProbeValue(String suffix) {
+        Long max = maxProbeValues.get(suffix);
+        return max != null ? max : -1;
+    }
+
+    /**
+     * Highest latency percentile in nanoseconds of any phase with single operations of the measured (not warm-up)
+     * runs so far, e.g. for "p99"; -1 if no operations were recorded.
+     */
+    public long getMaxOperationLatency(String percentileName) {
+        Long max = maxLatencyValues.get(percentileName);
+        return max != null ? max : -1;
+    }
+
+    /**
+     * Lowest throughput of any phase with single operations of the measured runs so far; -1 if no operations were
+     * recorded.
+     */
+    public long getMinOperationsPerSecond() {
+        return minOperationsPerSecond;
+    }
+
+    /**
+     * Sum of the phase times of the last committed run.
+     */
+    public long getLastRunTimeNanos() {
+        return lastRunTimeNanos;
+    }
+
+    /**
+     * Closes all result sinks; call once all runs are committed.
+     */
+    public void close() {
+        for (ResultSink sink : sinks) {
             try {
-                FileUtils.appendUtf8(file, line);
+                sink.close();
             } catch (IOException e) {
-                throw new RuntimeException("Could not write header in benchmark file", e);
+                platform.logError(TAG, "Could not close result sink", e);
             }
-        } else {
-            Log.d(TAG, "Ignoring results for run " + runs + " (warm up)");
         }
-        values.clear();
     }
 
-    private String[] getAllFirsts(List<Pair<String, String>> columns) {
-        String[] firsts = new String[columns.size()];
-        for (int i = 0; i < firsts.length; i++) {
-            firsts[i] = columns.get(i).first;
+    private static class Column {
+        final String key;
+        final String value;
+
+        Column(String key, String value) {
+            this.key = key;
+            this.value = value;
         }
-        return firsts;
     }
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import org.greenrobot.essentials.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes a matrix of databases x test types x entity counts to run unattended, see
+ * {@link PerfTestRunner#runPlan(BenchmarkPlan, TestFactory)}. Example:
+ * <pre>
+ * {
+ *   "name": "scaling",
+ *   "runs": 3,
+ *   "databases": ["objectbox", "sqlite"],
+ *   "types": ["crud", "query-id"],
+ *   "entities": [1000, 10000, 100000, 1000000],
+ *   "formats": ["tsv", "jsonl"],
+ *   "warmUp": {"maxRuns": 10, "maxVariation": 5, "window": 3},
+ *   "keys": "zipfian:0.99",
+ *   "rate": 5000,
+ *   "trace": "/path/to/app.trace",
+ *   "traceSpeed": 10,
+ *   "chunkSizes": [1, 10, 100, 1000, 10000],
+ *   "maxCommitP99": 16,
+ *   "isolate": true
+ * }
+ * </pre>
+ * "name", "runs" (default: 1), "formats", "warmUp", "keys" (see {@link KeyDistribution#forName(String)}), "rate"
+ * (target operations per second, see {@link PerfTestRunner#setOperationRate(int)}), "trace" and "traceSpeed" (for
+ * {@link TestType#TRACE_REPLAY}, default speed: 1), "chunkSizes" (for {@link TestType#CHUNKED_WRITES}),
+ * "maxCommitP99" (p99 latency limit in ms of {@link TestType#BATCH_SIZE_TUNING}, see {@link BatchSizeTuner}),
+ * "readers", "writers" and "duration" (in seconds, of {@link TestType#CONCURRENT_RW}, see {@link ConcurrentWorkload})
+ * and "isolate" (run each step in a separate process, default: false) are optional. Types use
+ * {@link TestType#nameShort}; the available databases depend on the {@link TestFactory}.
+ */
+public class BenchmarkPlan {
+
+    /** Creates a new test for a database name used in a plan, e.g. "objectbox". */
+    public interface TestFactory {
+        /**
+         * @throws IllegalArgumentException if the database is not available
+         */
+        PerfTest createTest(String database);
+
+        /** If false, plan steps of the type are skipped for the database. */
+        default boolean supports(String database, TestType type) {
+            return true;
+        }
+    }
+
+    private final String name;
+    private final int runs;
+    private final List<String> databases;
+    private final List<TestType> types;
+    private final int[] entityCounts;
+    private final Set<ResultFormat> formats;
+    private final WarmUpController warmUpController;
+    private final KeyDistribution keyDistribution;
+    private final int rate;
+    private final File traceFile;
+    private final double traceSpeed;
+    private final int[] chunkSizes;
+    private final long maxCommitP99Nanos;
+    private final ConcurrentWorkload concurrentWorkload;
+    private final boolean isolate;
+
+    public static BenchmarkPlan read(File file) throws IOException {
+        try {
+            return parse(FileUtils.readUtf8(file));
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new IOException("Invalid benchmark plan " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static BenchmarkPlan parse(String json) throws JSONException {
+        return new BenchmarkPlan(new JSONObject(json));
+    }
+
+    private BenchmarkPlan(JSONObject json) throws JSONException {
+        name = json.optString("name", "plan");
+        runs = json.optInt("runs", 1);
+        if (runs < 1) {
+            throw new IllegalArgumentException("runs must be at least 1");
+        }
+
+        JSONArray databasesJson = json.getJSONArray("databases");
+        List<String> databases = new ArrayList<>();
+        for (int i = 0; i < databasesJson.length(); i++) {
+            databases.add(databasesJson.getString(i));
+        }
+        this.databases = Collections.unmodifiableList(databases);
+
+        JSONArray typesJson = json.getJSONArray("types");
+        List<TestType> types = new ArrayList<>();
+        for (int i = 0; i < typesJson.length(); i++) {
+            types.add(TestType.forNameShort(typesJson.getString(i)));
+        }
+        this.types = Collections.unmodifiableList(types);
+
+        JSONArray entitiesJson = json.getJSONArray("entities");
+        entityCounts = new int[entitiesJson.length()];
+        for (int i = 0; i < entityCounts.length; i++) {
+            entityCounts[i] = entitiesJson.getInt(i);
+        }
+
+        JSONArray formatsJson = json.optJSONArray("formats");
+        if (formatsJson != null) {
+            formats = EnumSet.noneOf(ResultFormat.class);
+            for (int i = 0; i < formatsJson.length(); i++) {
+                formats.add(ResultFormat.forExtension(formatsJson.getString(i)));
+            }
+        } else {
+            formats = null;
+        }
+
+        JSONObject warmUpJson = json.optJSONObject("warmUp");
+        if (warmUpJson != null) {
+            warmUpController = new WarmUpController()
+                    .maxRuns(warmUpJson.optInt("maxRuns", 10))
+                    .maxVariation(warmUpJson.optDouble("maxVariation", 5) / 100)
+                    .window(warmUpJson.optInt("window", 3));
+        } else {
+            warmUpController = null;
+        }
+
+        String keys = json.optString("keys", null);
+        keyDistribution = keys != null ? KeyDistribution.forName(keys) : null;
+
+        rate = json.optInt("rate", 0);
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+
+        String trace = json.optString("trace", null);
+        traceFile = trace != null ? new File(trace) : null;
+        traceSpeed = json.optDouble("traceSpeed", 1);
+        if (!(traceSpeed >= 0)) {
+            throw new IllegalArgumentException("traceSpeed must not be negative");
+        }
+
+        JSONArray chunkSizesJson = json.optJSONArray("chunkSizes");
+        if (chunkSizesJson != null) {
+            int[] chunkSizes = new int[chunkSizesJson.length()];
+            for (int i = 0; i < chunkSizes.length; i++) {
+                chunkSizes[i] = chunkSizesJson.getInt(i);
+            }
+            this.chunkSizes = ChunkedWrites.validate(chunkSizes);
+        } else {
+            chunkSizes = null;
+        }
+
+        maxCommitP99Nanos = Math.round(json.optDouble("maxCommitP99", 0) * 1000000);
+        if (maxCommitP99Nanos < 0) {
+            throw new IllegalArgumentException("maxCommitP99 must not be negative");
+        }
+
+        if (json.has("readers") || json.has("writers") || json.has("duration")) {
+            ConcurrentWorkload defaults = new ConcurrentWorkload();
+            double durationSeconds = json.optDouble("duration", defaults.getDurationMillis() / 1000.0);
+            concurrentWorkload = new ConcurrentWorkload()
+                    .readers(json.optInt("readers", defaults.getReaders()))
+                    .writers(json.optInt("writers", defaults.getWriters()))
+                    .durationMillis(Math.round(durationSeconds * 1000));
+        } else {
+            concurrentWorkload = null;
+        }
+
+        isolate = json.optBoolean("isolate", false);
+
+        if (databases.isEmpty() || types.isEmpty() || entityCounts.length == 0) {
+            throw new IllegalArgumentException("databases, types and entities must not be empty");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public List<String> getDatabases() {
+        return databases;
+    }
+
+    public List<TestType> getTypes() {
+        return types;
+    }
+
+    public int[] getEntityCounts() {
+        return entityCounts.clone();
+    }
+
+    /** Result formats of the plan, or null to keep the formats of the runner. */
+    public Set<ResultFormat> getFormats() {
+        return formats;
+    }
+
+    /** Warm-up of the plan, or null to keep the warm-up of the runner. */
+    public WarmUpController getWarmUpController() {
+        return warmUpController;
+    }
+
+    /** Key distribution of the plan, or null to keep the distribution of the runner. */
+    public KeyDistribution getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    /** Target operations per second of the plan, or 0 to keep the rate of the runner. */
+    public int getRate() {
+        return rate;
+    }
+
+    /** Trace to replay of the plan, or null to keep the trace of the runner. */
+    public File getTraceFile() {
+        return traceFile;
+    }
+
+    public double getTraceSpeed() {
+        return traceSpeed;
+    }
+
+    /** Entities per transaction of {@link TestType#CHUNKED_WRITES}, or null to keep the sizes of the runner. */
+    public int[] getChunkSizes() {
+        return chunkSizes != null ? chunkSizes.clone() : null;
+    }
+
+    /** p99 latency limit of batch size tuning, or 0 to keep the limit of the runner. */
+    public long getMaxCommitP99Nanos() {
+        return maxCommitP99Nanos;
+    }
+
+    /** Readers and writers of the plan, or null to keep those of the runner. */
+    public ConcurrentWorkload getConcurrentWorkload() {
+        return concurrentWorkload;
+    }
+
+    /** If each step should run in a separate process, see {@link IsolatedPerfTest}. */
+    public boolean isIsolate() {
+        return isolate;
+    }
+
+    /** Number of database, test type and entity count combinations. */
+    public int getStepCount() {
+        return databases.size() * types.size() * entityCounts.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder entities = new StringBuilder();
+        for (int count : entityCounts) {
+            if (entities.length() > 0) {
+                entities.append(", ");
+            }
+            entities.append(count);
+        }
+        List<String> typeNames = new ArrayList<>();
+        for (TestType type : types) {
+            typeNames.add(type.nameShort);
+        }
+        return name + ": " + databases + " x " + typeNames + " x [" + entities + "] entities, " + runs + " run(s)";
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chunk sizes of {@link TestType#CHUNKED_WRITES}: all entities are inserted and updated in chunks of a given number of
+ * entities per transaction, to see the fixed cost of a transaction. See
+ * {@link #run(Operations, PhaseRunner, int[], int)}.
+ */
+public class ChunkedWrites {
+
+    public static final int[] DEFAULT_CHUNK_SIZES = {1, 10, 100, 1000, 10000};
+
+    /** Writes of a database, each call in a single transaction. */
+    public interface Operations {
+        /** Creates the entities to insert with the values of their row; not measured. */
+        void prepareInsert();
+
+        /** Inserts the entities of rows from (inclusive) to to (exclusive). */
+        void insert(int from, int to);
+
+        /** Changes the values of the inserted entities to those of {@link PerfTest#updateRow(int)}; not measured. */
+        void prepareUpdate();
+
+        /** Updates the entities of rows from (inclusive) to to (exclusive). */
+        void update(int from, int to);
+
+        /** Deletes all entities; not measured. */
+        void deleteAll();
+    }
+
+    /** Throughput of each chunk size of a run. */
+    public static class Result {
+        /** In ascending order, see {@link #forEntities(int[], int)}. */
+        public final int[] chunkSizes;
+        public final long[] insertsPerSecond;
+        public final long[] updatesPerSecond;
+
+        Result(int[] chunkSizes) {
+            this.chunkSizes = chunkSizes;
+            insertsPerSecond = new long[chunkSizes.length];
+            updatesPerSecond = new long[chunkSizes.length];
+        }
+    }
+
+    /**
+     * Parses comma separated chunk sizes, e.g. "1,10,100".
+     *
+     * @throws IllegalArgumentException if there are none or a size is not positive
+     */
+    public static int[] parse(String chunkSizes) {
+        String[] parts = chunkSizes.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return validate(sizes);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are no sizes or a size is not positive
+     */
+    public static int[] validate(int[] chunkSizes) {
+        if (chunkSizes.length == 0) {
+            throw new IllegalArgumentException("At least one chunk size is required");
+        }
+        for (int size : chunkSizes) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Chunk size must be at least 1, but is " + size);
+            }
+        }
+        return chunkSizes.clone();
+    }
+
+    /** Comma separated chunk sizes, as accepted by {@link #parse(String)}. */
+    public static String format(int[] chunkSizes) {
+        StringBuilder text = new StringBuilder();
+        for (int size : chunkSizes) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(size);
+        }
+        return text.toString();
+    }
+
+    /**
+     * The chunk sizes to run with the given number of entities in ascending order: sizes above are reduced to the
+     * number of entities (writing all in one transaction), duplicates are removed.
+     */
+    public static int[] forEntities(int[] chunkSizes, int numberEntities) {
+        int[] sorted = chunkSizes.clone();
+        Arrays.sort(sorted);
+        List<Integer> sizes = new ArrayList<>();
+        for (int size : sorted) {
+            int capped = Math.min(size, Math.max(numberEntities, 1));
+            if (sizes.isEmpty() || sizes.get(sizes.size() - 1) != capped) {
+                sizes.add(capped);
+            }
+        }
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sizes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * For each chunk size (see {@link #forEntities(int[], int)}), inserts and then updates all entities in chunks of
+     * that size in an "insert-size" and "update-size" phase (recording the latency of each chunk) and deletes them
+     * again.
+     */
+    public static Result run(Operations operations, PhaseRunner phases, int[] chunkSizes, int numberEntities) {
+        Result result = new Result(forEntities(chunkSizes, numberEntities));
+        for (int i = 0; i < result.chunkSizes.length; i++) {
+            int chunkSize = result.chunkSizes[i];
+            operations.prepareInsert();
+            phases.startPhase("insert-" + chunkSize, false);
+            long timeNanos = write(operations, phases, numberEntities, chunkSize, false, null);
+            phases.stopPhase();
+            result.insertsPerSecond[i] = perSecond(numberEntities, timeNanos);
+            operations.prepareUpdate();
+            phases.startPhase("update-" + chunkSize, false);
+            timeNanos = write(operations, phases, numberEntities, chunkSize, true, null);
+            phases.stopPhase();
+            result.updatesPerSecond[i] = perSecond(numberEntities, timeNanos);
+            operations.deleteAll();
+        }
+        return result;
+    }
+
+    /**
+     * Inserts or updates all entities in chunks.
+     *
+     * @param latencies if not null, chunk latencies are recorded there instead of in the current phase and chunks
+     *                  are written as fast as possible: a fixed rate would throttle them and charge the time of the
+     *                  unmeasured steps between trials to the chunks
+     * @return time to write all chunks in nanoseconds
+     */
+    static long write(Operations operations, PhaseRunner phases, int numberEntities, int chunkSize, boolean update,
+                      LatencyHistogram latencies) {
+        long startNanos = System.nanoTime();
+        for (int from = 0; from < numberEntities; from += chunkSize) {
+            int to = Math.min(from + chunkSize, numberEntities);
+            long start = latencies != null ? System.nanoTime() : phases.startOperation();
+            if (update) {
+                operations.update(from, to);
+            } else {
+                operations.insert(from, to);
+            }
+            if (latencies != null) {
+                latencies.record(System.nanoTime() - start);
+            } else {
+                phases.recordOperation(start);
+            }
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    static long perSecond(long entities, long timeNanos) {
+        return timeNanos > 0 ? Math.round(entities * 1e9 / timeNanos) : 0;
+    }
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread counts and duration of {@link TestType#CONCURRENT_RW}: reader threads look up random IDs and query an
+ * indexed integer while writer threads insert and update entities, all at the same time until the duration is over.
+ * See {@link #run(Operations, PhaseRunner, KeyDistribution, Dataset, int)}.
+ */
+public class ConcurrentWorkload {
+
+    /** Opens a database handle for a thread, e.g. a thread-confined instance or a separate connection. */
+    public interface Operations {
+        /**
+         * Called on the reader thread before its first operation.
+         *
+         * @param values the reader adds all properties of each entity it gets or queries, so all databases do the
+         *               same work to consume values; used by this thread only
+         */
+        Reader openReader(ValueChecksum values);
+
+        /** Called on the writer thread before its first operation. */
+        Writer openWriter();
+    }
+
+    /** Used by a single thread only; closed on it when the duration is over. */
+    public interface Reader {
+        /**
+         * Gets the entity inserted with the given key (0 to numberEntities - 1) and adds it to the values.
+         *
+         * @return false if it was not found
+         */
+        boolean get(int key);
+
+        /**
+         * Gets the entities with the given simpleInt value and adds them to the values.
+         *
+         * @return the number of entities found
+         */
+        int query(int value);
+
+        void close();
+    }
+
+    /** Used by a single thread only, each write in its own transaction; closed on it when the duration is over. */
+    public interface Writer {
+        /** Inserts a new entity with the given key (numberEntities or above) and the values of the given row. */
+        void insert(int key, int row);
+
+        /** Updates the entity inserted with the given key (0 to numberEntities - 1) to the values of the row. */
+        void update(int key, int row);
+
+        void close();
+    }
+
+    /** Operations and latencies of a reader or writer thread. */
+    public static class ThreadResult {
+        /** E.g. "reader-1" or "writer-2". */
+        public final String name;
+        public final boolean reader;
+        public final LatencyHistogram latencies = new LatencyHistogram();
+        /** Values of the entities a reader got. */
+        public final ValueChecksum values = new ValueChecksum();
+        /** Gets of entities that were not found. */
+        public long notFound;
+        /** Entities found by queries. */
+        public long queryResults;
+
+        ThreadResult(String name, boolean reader) {
+            this.name = name;
+            this.reader = reader;
+        }
+    }
+
+    public static class Result {
+        /** Readers first, then writers. */
+        public final ThreadResult[] threads;
+        /** Time all threads ran. */
+        public final long timeNanos;
+
+        Result(ThreadResult[] threads, long timeNanos) {
+            this.threads = threads;
+            this.timeNanos = timeNanos;
+        }
+    }
+
+    private int readers = 2;
+    private int writers = 1;
+    private long durationMillis = 10000;
+
+    /** Number of reader threads (default: 2). */
+    public ConcurrentWorkload readers(int readers) {
+        if (readers < 0) {
+            throw new IllegalArgumentException("Readers must not be negative");
+        }
+        this.readers = readers;
+        return this;
+    }
+
+    /** Number of writer threads (default: 1). */
+    public ConcurrentWorkload writers(int writers) {
+        if (writers < 0) {
+            throw new IllegalArgumentException("Writers must not be negative");
+        }
+        this.writers = writers;
+        return this;
+    }
+
+    /** How long readers and writers run (default: 10 s). */
+    public ConcurrentWorkload durationMillis(long durationMillis) {
+        if (durationMillis < 1) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    public int getReaders() {
+        return readers;
+    }
+
+    public int getWriters() {
+        return writers;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Runs the readers and writers at the same time in a "concurrent" phase until the duration is over. Readers
+     * alternate between getting an entity and querying the simpleInt value of a row, writers between inserting new
+     * and updating existing entities.
+     *
+     * @param keys           chooses the entities to read and update; each thread uses a copy
+     * @param numberEntities number of entities inserted before; inserted entities get the keys following them
+     * @throws RuntimeException if a thread failed
+     */
+    public Result run(Operations operations, PhaseRunner phases, KeyDistribution keys, Dataset dataset,
+                      int numberEntities) {
+        int threadCount = readers + writers;
+        if (threadCount == 0) {
+            throw new IllegalArgumentException("At least one reader or writer is required");
+        }
+        ConcurrentThread.Shared shared = new ConcurrentThread.Shared(operations, dataset, numberEntities,
+                threadCount);
+        ConcurrentThread[] threads = new ConcurrentThread[threadCount];
+        ThreadResult[] results = new ThreadResult[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            boolean reader = i < readers;
+            results[i] = new ThreadResult(reader ? "reader-" + (i + 1) : "writer-" + (i - readers + 1), reader);
+            threads[i] = new ConcurrentThread(shared, results[i], keys.copy(), i);
+            threads[i].start();
+        }
+        long timeNanos = 0;
+        try {
+            shared.ready.await();
+            if (shared.error == null) {
+                phases.startPhase("concurrent", true);
+                long startNanos = System.nanoTime();
+                shared.go.countDown();
+                long endMillis = System.currentTimeMillis() + durationMillis;
+                long remainingMillis;
+                while (!shared.stop && (remainingMillis = endMillis - System.currentTimeMillis()) > 0) {
+                    Thread.sleep(Math.min(remainingMillis, 100));
+                }
+                shared.stop = true;
+                for (ConcurrentThread thread : threads) {
+                    thread.join();
+                }
+                timeNanos = System.nanoTime() - startNanos;
+                phases.stopPhase();
+            } else {
+                // Let threads that did open a handle close it before the database is torn down
+                shared.stop = true;
+                shared.go.countDown();
+                for (ConcurrentThread thread : threads) {
+                    thread.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running concurrent threads", e);
+        } finally {
+            shared.stop = true;
+            shared.go.countDown();
+        }
+        if (shared.error != null) {
+            throw new RuntimeException("Concurrent " + shared.errorThread + " failed", shared.error);
+        }
+        return new Result(results, timeNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d reader(s), %d writer(s) for %.1f s", readers, writers,
+                durationMillis / 1000.0);
+    }
+
+    /** A reader or writer of {@link #run(Operations, PhaseRunner, KeyDistribution, Dataset, int)}. */
+    private static class ConcurrentThread extends Thread {
+
+        /** State of all threads of a run. */
+        static class Shared {
+            final Operations operations;
+            final Dataset dataset;
+            final int numberEntities;
+            final CountDownLatch ready;
+            final CountDownLatch go = new CountDownLatch(1);
+            /** Keys of inserted entities follow those of the entities inserted before the run. */
+            final AtomicInteger nextInsertKey;
+            volatile boolean stop;
+            volatile Throwable error;
+            volatile String errorThread;
+
+            Shared(Operations operations, Dataset dataset, int numberEntities, int threadCount) {
+                this.operations = operations;
+                this.dataset = dataset;
+                this.numberEntities = numberEntities;
+                this.ready = new CountDownLatch(threadCount);
+                this.nextInsertKey = new AtomicInteger(numberEntities);
+            }
+        }
+
+        private final Shared shared;
+        private final ThreadResult result;
+        private final Random random;
+        /** Own instance, distributions are not thread-safe. */
+        private final KeyDistribution keys;
+
+        ConcurrentThread(Shared shared, ThreadResult result, KeyDistribution keys, int index) {
+            super("Perf-" + result.name);
+            this.shared = shared;
+            this.result = result;
+            this.keys = keys;
+            random = new Random(RandomValues.SEED + index + 1);
+        }
+
+        @Override
+        public void run() {
+            Reader reader = null;
+            Writer writer = null;
+            try {
+                try {
+                    if (result.reader) {
+                        reader = shared.operations.openReader(result.values);
+                    } else {
+                        writer = shared.operations.openWriter();
+                    }
+                } finally {
+                    shared.ready.countDown();
+                }
+                shared.go.await();
+                int numberEntities = shared.numberEntities;
+                while (!shared.stop) {
+                    int key = keys.nextKey(random, numberEntities);
+                    boolean found = true;
+                    long start;
+                    if (reader != null) {
+                        if (random.nextBoolean()) {
+                            start = System.nanoTime();
+                            found = reader.get(key);
+                        } else {
+                            // Updates change values, so the entity of the key may not be found by its value
+                            int value = shared.dataset.getInt(key);
+                            start = System.nanoTime();
+                            result.queryResults += reader.query(value);
+                        }
+                    } else if (random.nextBoolean()) {
+                        int newKey = shared.nextInsertKey.getAndIncrement();
+                        start = System.nanoTime();
+                        writer.insert(newKey, newKey % numberEntities);
+                    } else {
+                        int row = PerfTest.updateRow(key, numberEntities);
+                        start = System.nanoTime();
+                        writer.update(key, row);
+                    }
+                    result.latencies.record(System.nanoTime() - start);
+                    if (!found) {
+                        result.notFound++;
+                    }
+                }
+                result.values.getValue();
+            } catch (Throwable e) {
+                if (shared.error == null) {
+                    shared.error = e;
+                    shared.errorThread = result.name;
+                }
+                shared.stop = true;
+            } finally {
+                if (reader != null) {
+                    reader.close();
+                }
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+}
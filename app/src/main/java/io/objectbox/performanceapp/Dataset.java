@@ -0,0 +1,334 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * Values of all entity properties for a number of rows, generated once from {@link RandomValues#SEED} and shared by
+ * the tests of all databases. This way every database gets the same workload, and generating values does not
+ * allocate right before or during measured phases.
+ * <p>
+ * Datasets are written to a file once and then read through memory-mapped buffers, so they are reused across runs
+ * and processes and do not take up Java heap. The file starts with a header, followed by fixed-width columns for each
+ * scalar property and the offsets of strings (ASCII only) and byte arrays, which are stored back to back in two pools
+ * at the end of the file. Tests create entities from rows, see {@link #getString(int)}.
+ */
+public class Dataset {
+
+    private static final int MAGIC = 0x4F424453; // "OBDS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    /** Bytes of columns per row: boolean, byte, short, int, long, double, float and 2 pool offsets. */
+    private static final int ROW_SIZE = 1 + 1 + 2 + 4 + 8 + 8 + 4 + 4 + 4;
+    private static final int MAX_STRING_LENGTH = 100;
+    private static final int MAX_BYTES_LENGTH = 100;
+    private static final String FILE_PREFIX = "dataset-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static Dataset shared;
+
+    private final File file;
+    private final int size;
+    private final ByteBuffer columns;
+    private final ByteBuffer stringPool;
+    private final ByteBuffer byteArrayPool;
+    private final ColumnLayout layout;
+
+    /**
+     * Returns the shared dataset with at least the given number of rows. Uses an existing dataset file in the
+     * directory if there is one with enough rows, otherwise generates one. Rows only depend on the seed and their
+     * index, so smaller datasets are a prefix of larger ones.
+     */
+    public static synchronized Dataset getShared(File directory, int size) {
+        if (shared != null && shared.size >= size && directory.equals(shared.file.getParentFile())) {
+            return shared;
+        }
+        shared = null; // Allow GC of the old mapping
+        try {
+            Dataset dataset = openExisting(directory, size);
+            shared = dataset != null ? dataset : generate(directory, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create dataset in " + directory.getAbsolutePath(), e);
+        }
+        return shared;
+    }
+
+    /** Opens the smallest valid dataset file in the directory with at least the given number of rows. */
+    private static Dataset openExisting(File directory, int size) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return null;
+        }
+        File best = null;
+        int bestSize = Integer.MAX_VALUE;
+        for (File file : files) {
+            int fileSize = parseSize(file.getName());
+            if (fileSize >= size && fileSize < bestSize) {
+                best = file;
+                bestSize = fileSize;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        try {
+            return new Dataset(best);
+        } catch (IOException | RuntimeException e) {
+            // Likely an older format or incomplete, generate again
+            //noinspection ResultOfMethodCallIgnored
+            best.delete();
+            return openExisting(directory, size);
+        }
+    }
+
+    private static int parseSize(String fileName) {
+        if (!fileName.startsWith(FILE_PREFIX) || !fileName.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(FILE_PREFIX.length(),
+                    fileName.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes a dataset file with the given number of rows, streaming values to disk to keep memory use low.
+     */
+    static Dataset generate(File directory, int size) throws IOException {
+        long columnsLength = (long) ROW_SIZE * size + 8;
+        if (columnsLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for a dataset: " + size);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getAbsolutePath());
+        }
+        File file = new File(directory, FILE_PREFIX + size + FILE_SUFFIX);
+        File tempFile = new File(directory, file.getName() + ".tmp");
+        File byteArraysFile = new File(directory, file.getName() + ".bytes.tmp");
+
+        long stringPoolLength = 0;
+        long byteArrayPoolLength = 0;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            channel.truncate(0);
+            ByteBuffer columns = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, columnsLength)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            ColumnLayout layout = new ColumnLayout(size);
+            channel.position(HEADER_SIZE + columnsLength);
+            // String pool follows the columns; byte arrays are appended once all strings are written
+            OutputStream strings = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            try (OutputStream byteArrays = new BufferedOutputStream(new FileOutputStream(byteArraysFile),
+                    64 * 1024)) {
+                Random random = new Random(RandomValues.SEED);
+                byte[] buffer = new byte[Math.max(MAX_STRING_LENGTH, MAX_BYTES_LENGTH)];
+                for (int row = 0; row < size; row++) {
+                    columns.put(row, (byte) (random.nextBoolean() ? 1 : 0));
+                    columns.put(layout.bytesStart + row, (byte) random.nextInt());
+                    columns.putShort(layout.shortsStart + row * 2, (short) random.nextInt());
+                    columns.putInt(layout.intsStart + row * 4, random.nextInt());
+                    columns.putLong(layout.longsStart + row * 8, random.nextLong());
+                    columns.putDouble(layout.doublesStart + row * 8, random.nextDouble());
+                    columns.putFloat(layout.floatsStart + row * 4, random.nextFloat());
+
+                    int stringLength = random.nextInt(MAX_STRING_LENGTH);
+                    RandomValues.fillRandomChars(random, buffer, 0, stringLength);
+                    strings.write(buffer, 0, stringLength);
+                    columns.putInt(layout.stringOffsetsStart + row * 4, checkOffset(stringPoolLength));
+                    stringPoolLength += stringLength;
+
+                    int byteArrayLength = random.nextInt(MAX_BYTES_LENGTH);
+                    for (int i = 0; i < byteArrayLength; i++) {
+                        buffer[i] = (byte) random.nextInt();
+                    }
+                    byteArrays.write(buffer, 0, byteArrayLength);
+                    columns.putInt(layout.byteArrayOffsetsStart + row * 4, checkOffset(byteArrayPoolLength));
+                    byteArrayPoolLength += byteArrayLength;
+                }
+                columns.putInt(layout.stringOffsetsStart + size * 4, checkOffset(stringPoolLength));
+                columns.putInt(layout.byteArrayOffsetsStart + size * 4, checkOffset(byteArrayPoolLength));
+            }
+            strings.flush();
+
+            try (FileInputStream byteArraysIn = new FileInputStream(byteArraysFile)) {
+                FileChannel byteArraysChannel = byteArraysIn.getChannel();
+                long position = HEADER_SIZE + columnsLength + stringPoolLength;
+                long transferred = 0;
+                while (transferred < byteArrayPoolLength) {
+                    transferred += channel.transferFrom(byteArraysChannel, position + transferred,
+                            byteArrayPoolLength - transferred);
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(RandomValues.SEED).putInt(size)
+                    .putLong(stringPoolLength).putLong(byteArrayPoolLength);
+            header.rewind();
+            channel.write(header, 0);
+            channel.force(false);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            byteArraysFile.delete();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not rename " + tempFile.getAbsolutePath());
+        }
+        return new Dataset(file);
+    }
+
+    private static int checkOffset(long offset) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dataset pool exceeds 2 GB");
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Maps an existing dataset file.
+     *
+     * @throws IOException if the file could not be read or is not a valid dataset of the current version and seed
+     */
+    public Dataset(File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_SIZE) {
+                throw new IOException("Incomplete header");
+            }
+            header.rewind();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != RandomValues.SEED) {
+                throw new IOException("Not a dataset of the current version and seed");
+            }
+            size = header.getInt();
+            long stringPoolLength = header.getLong();
+            long byteArrayPoolLength = header.getLong();
+            long columnsLength = (long) ROW_SIZE * size + 8;
+            if (channel.size() != HEADER_SIZE + columnsLength + stringPoolLength + byteArrayPoolLength) {
+                throw new IOException("Unexpected file length " + channel.size());
+            }
+            columns = map(channel, HEADER_SIZE, columnsLength);
+            stringPool = map(channel, HEADER_SIZE + columnsLength, stringPoolLength);
+            byteArrayPool = map(channel, HEADER_SIZE + columnsLength + stringPoolLength, byteArrayPoolLength);
+            // Mapping stays valid after the channel is closed
+        }
+        layout = new ColumnLayout(size);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean getBoolean(int row) {
+        return columns.get(row) != 0;
+    }
+
+    public byte getByte(int row) {
+        return columns.get(layout.bytesStart + row);
+    }
+
+    public short getShort(int row) {
+        return columns.getShort(layout.shortsStart + row * 2);
+    }
+
+    public int getInt(int row) {
+        return columns.getInt(layout.intsStart + row * 4);
+    }
+
+    public long getLong(int row) {
+        return columns.getLong(layout.longsStart + row * 8);
+    }
+
+    public double getDouble(int row) {
+        return columns.getDouble(layout.doublesStart + row * 8);
+    }
+
+    public float getFloat(int row) {
+        return columns.getFloat(layout.floatsStart + row * 4);
+    }
+
+    /** Creates a new string, so call this before a measured phase. */
+    public String getString(int row) {
+        int offset = columns.getInt(layout.stringOffsetsStart + row * 4);
+        int end = columns.getInt(layout.stringOffsetsStart + row * 4 + 4);
+        char[] chars = new char[end - offset];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) stringPool.get(offset + i);
+        }
+        return new String(chars);
+    }
+
+    /** Creates a new array, so call this before a measured phase. */
+    public byte[] getByteArray(int row) {
+        int offset = columns.getInt(layout.byteArrayOffsetsStart + row * 4);
+        int end = columns.getInt(layout.byteArrayOffsetsStart + row * 4 + 4);
+        byte[] bytes = new byte[end - offset];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteArrayPool.get(offset + i);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return size + " rows, " + PhaseProbe.formatBytes(stringPool.capacity()) + " of strings, "
+                + PhaseProbe.formatBytes(byteArrayPool.capacity()) + " of byte arrays (" + file.getName() + ")";
+    }
+
+    /** Start of each column in the columns buffer; each column is aligned to the size of its values. */
+    private static class ColumnLayout {
+        final int bytesStart;
+        final int shortsStart;
+        final int intsStart;
+        final int longsStart;
+        final int doublesStart;
+        final int floatsStart;
+        final int stringOffsetsStart;
+        final int byteArrayOffsetsStart;
+
+        ColumnLayout(int size) {
+            // Booleans start at 0
+            bytesStart = size;
+            shortsStart = size * 2;
+            intsStart = size * 4;
+            longsStart = size * 8;
+            doublesStart = size * 16;
+            floatsStart = size * 24;
+            stringOffsetsStart = size * 28;
+            byteArrayOffsetsStart = size * 32 + 4;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import org.greenrobot.essentials.StringUtils;
+import org.greenrobot.essentials.io.FileUtils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Appends a line per run to a tab- or comma-separated file and a header line whenever the columns change.
+ * <p>
+ * The file is kept open for appending. The last header is stored in a small sidecar file (".header") together with
+ * the length of the result file, so the result file never has to be read again, no matter how large it grows. If the
+ * length does not match (e.g. the result file was deleted or edited), the sidecar is ignored.
+ */
+public class DelimitedResultSink implements ResultSink {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final File headerFile;
+    private final char separator;
+    private String lastHeader;
+    private Writer writer;
+
+    public DelimitedResultSink(File file, char separator) throws IOException {
+        this.file = file;
+        this.headerFile = new File(file.getPath() + ".header");
+        this.separator = separator;
+        if (!file.exists() || file.length() == 0) {
+            // Stale sidecar of a deleted result file must not suppress the header of the new file
+            if (headerFile.exists() && !headerFile.delete()) {
+                throw new IOException("Could not delete " + headerFile);
+            }
+            return;
+        }
+        if (headerFile.exists()) {
+            lastHeader = readHeaderFile();
+        }
+        if (lastHeader == null) {
+            // Result file written before header files existed or changed since: scan it once
+            lastHeader = findLastHeader(FileUtils.readUtf8(file));
+            if (lastHeader != null) {
+                writeHeaderFile();
+            }
+        }
+    }
+
+    /** Returns the header stored in the sidecar file, or null if it was stored for another file length. */
+    private String readHeaderFile() throws IOException {
+        String contents = FileUtils.readUtf8(headerFile);
+        int newline = contents.indexOf('\n');
+        if (newline < 0) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(contents.substring(0, newline)) != file.length()) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String header = contents.substring(newline + 1).trim();
+        return header.isEmpty() ? null : header;
+    }
+
+    private void writeHeaderFile() throws IOException {
+        FileUtils.writeUtf8(headerFile, file.length() + "\n" + lastHeader);
+    }
+
+    @Override
+    public void write(String[] keys, String[] values) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        }
+        String header = join(keys);
+        if (!header.equals(lastHeader)) {
+            writer.write(header);
+            writer.write('\n');
+            lastHeader = header;
+        }
+        writer.write(join(values));
+        writer.write('\n');
+        // Results of a run should not be lost if the process is killed
+        writer.flush();
+        writeHeaderFile();
+    }
+
+    private String join(String[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(separator);
+            }
+            line.append(escape(values[i]));
+        }
+        return line.toString();
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (separator == ',' && (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0)) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        if (separator == '\t') {
+            return value.replace('\t', ' ').replace('\n', ' ');
+        }
+        return value;
+    }
+
+    private String findLastHeader(String contents) {
+        String[] lines = StringUtils.split(contents, '\n');
+        for (int i = lines.length - 1; i >= 0; i--) {
+            String[] columnValues = StringUtils.split(lines[i], separator);
+            if (columnValues.length > 1) {
+                boolean longValueFound = false;
+                for (String value : columnValues) {
+                    try {
+                        Long.parseLong(value);
+                        longValueFound = true;
+                        break;
+                    } catch (NumberFormatException e) {
+                        // OK, header candidate
+                    }
+                }
+                if (!longValueFound) {
+                    return lines[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
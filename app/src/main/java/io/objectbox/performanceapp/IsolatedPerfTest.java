@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+/**
+ * Runs the tests of a database in a fresh process, so results are not affected by the heap, JIT state or native
+ * libraries of tests that ran before. The other process does the warm-up and all runs and passes log output and
+ * results back; {@link #runAll} passes the runs of {@link PerfTestRunner} to {@link #runIsolated} instead of the usual
+ * set up, run and tear down.
+ */
+public abstract class IsolatedPerfTest extends PerfTest {
+
+    private final String name;
+
+    /**
+     * @param name the name of the test that is run in the other process, used for result files
+     */
+    protected IsolatedPerfTest(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /** Does a single run without warm-up in another process. */
+    @Override
+    public void run(TestType type) {
+        runIsolated(testRunner, type, 1, numberEntities, new WarmUpController().maxRuns(0), benchmark);
+    }
+
+    @Override
+    public boolean runAll(PerfTestRunner testRunner, TestType type, int runs, WarmUpController warmUpController) {
+        runIsolated(testRunner, type, runs, numberEntities, warmUpController, benchmark);
+        return true;
+    }
+
+    /**
+     * Runs the test in another process and blocks until it is done. Log output of the other process is passed to
+     * {@link PerfTestRunner#log(String)}, results of each run to
+     * {@link PerfTestRunner#commitIsolatedRow(Benchmark, String, String[], String[])}.
+     *
+     * @throws RuntimeException if the other process failed
+     */
+    public abstract void runIsolated(PerfTestRunner testRunner, TestType type, int runs, int numberEntities,
+                                     WarmUpController warmUpController, Benchmark benchmark);
+
+}
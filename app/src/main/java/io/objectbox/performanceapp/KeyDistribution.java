@@ -0,0 +1,274 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Chooses which of the entities (keys 0 to count - 1, in insert order) an operation accesses, e.g. the IDs looked up
+ * by {@link TestType#QUERY_ID_RANDOM}. Skewed distributions model traffic where a few entities get most of the reads,
+ * which shows how well caching and page locality of a database work. Based on the generators of YCSB.
+ */
+public abstract class KeyDistribution {
+
+    public static final double DEFAULT_ZIPFIAN_THETA = 0.99;
+
+    /** Every key is equally likely. */
+    public static KeyDistribution uniform() {
+        return new Uniform();
+    }
+
+    /**
+     * Popularity of keys follows Zipf's law; the popular keys are scattered over all keys.
+     *
+     * @param theta skew between 0 (excluded, uniform) and 1 (excluded, extremely skewed), YCSB uses 0.99
+     */
+    public static KeyDistribution zipfian(double theta) {
+        return new Zipfian(theta, false);
+    }
+
+    /**
+     * The fraction hotSetFraction of keys (inserted first) gets hotOperationFraction of all operations.
+     */
+    public static KeyDistribution hotspot(double hotSetFraction, double hotOperationFraction) {
+        return new Hotspot(hotSetFraction, hotOperationFraction);
+    }
+
+    /** Like {@link #zipfian(double)}, but the most recently inserted keys are the most popular. */
+    public static KeyDistribution latest(double theta) {
+        return new Zipfian(theta, true);
+    }
+
+    /**
+     * Parses a distribution as returned by {@link #toString()}: "uniform", "zipfian[:theta]",
+     * "hotspot[:hotSetFraction[:hotOperationFraction]]" (default: 0.2 and 0.8) or "latest[:theta]".
+     *
+     * @throws IllegalArgumentException if the name or a parameter is invalid
+     */
+    public static KeyDistribution forName(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "uniform":
+                    checkParameterCount(parts, 0);
+                    return uniform();
+                case "zipfian":
+                    checkParameterCount(parts, 1);
+                    return zipfian(parts.length > 1 ? Double.parseDouble(parts[1]) : DEFAULT_ZIPFIAN_THETA);
+                case "hotspot":
+                    checkParameterCount(parts, 2);
+                    return hotspot(parts.length > 1 ? Double.parseDouble(parts[1]) : 0.2,
+                            parts.length > 2 ? Double.parseDouble(parts[2]) : 0.8);
+                case "latest":
+                    checkParameterCount(parts, 1);
+                    return latest(parts.length > 1 ? Double.parseDouble(parts[1]) : DEFAULT_ZIPFIAN_THETA);
+                default:
+                    throw new IllegalArgumentException("Unknown key distribution " + spec
+                            + ", use one of: uniform, zipfian[:theta], hotspot[:hot-keys[:hot-ops]], latest[:theta]");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameter of key distribution " + spec, e);
+        }
+    }
+
+    private static void checkParameterCount(String[] parts, int max) {
+        if (parts.length - 1 > max) {
+            throw new IllegalArgumentException("Key distribution " + parts[0] + " takes at most " + max
+                    + " parameters");
+        }
+    }
+
+    private static String format(double value) {
+        String text = String.format(Locale.US, "%.4f", value);
+        // Strip trailing zeros, but keep one decimal, e.g. 0.9900 -> 0.99, 1.0000 -> 1.0
+        int end = text.length();
+        while (text.charAt(end - 1) == '0' && text.charAt(end - 2) != '.') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    /**
+     * Returns the next key between 0 and count - 1. Not thread-safe.
+     *
+     * @param count number of keys, i.e. entities
+     */
+    public abstract int nextKey(Random random, int count);
+
+    /**
+     * Returns a distribution with the same parameters, but its own state, e.g. for another thread (as
+     * {@link #nextKey(Random, int)} is not thread-safe).
+     */
+    public abstract KeyDistribution copy();
+
+    public boolean isUniform() {
+        return false;
+    }
+
+    /** The spec of the distribution, see {@link #forName(String)}. */
+    @Override
+    public abstract String toString();
+
+    private static class Uniform extends KeyDistribution {
+        @Override
+        public int nextKey(Random random, int count) {
+            return random.nextInt(count);
+        }
+
+        @Override
+        public KeyDistribution copy() {
+            return new Uniform();
+        }
+
+        @Override
+        public boolean isUniform() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "uniform";
+        }
+    }
+
+    /**
+     * Algorithm of "Quickly Generating Billion-Record Synthetic Databases" by Gray et al., like the
+     * ZipfianGenerator of YCSB. Constants depending on the key count are computed in O(count) once for each count;
+     * if the count grows (e.g. while inserting, see {@link YcsbWorkload}), only the new keys are added.
+     */
+    private static class Zipfian extends KeyDistribution {
+        private static final long FNV_OFFSET_BASIS_64 = 0xCBF29CE484222325L;
+        private static final long FNV_PRIME_64 = 1099511628211L;
+
+        private final double theta;
+        private final boolean latest;
+        private final double alpha;
+        private final double zeta2;
+
+        private int count = -1;
+        private double zetaN;
+        private double eta;
+
+        Zipfian(double theta, boolean latest) {
+            if (!(theta > 0 && theta < 1)) {
+                throw new IllegalArgumentException("Theta must be between 0 and 1 (exclusive), but is " + theta);
+            }
+            this.theta = theta;
+            this.latest = latest;
+            alpha = 1 / (1 - theta);
+            zeta2 = zeta(1, 2, theta);
+        }
+
+        /** Sum of 1 / i^theta for i = from to to (both inclusive). */
+        private static double zeta(int from, int to, double theta) {
+            double sum = 0;
+            for (int i = from; i <= to; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        @Override
+        public int nextKey(Random random, int count) {
+            if (count != this.count) {
+                zetaN = this.count > 0 && count > this.count
+                        ? zetaN + zeta(this.count + 1, count, theta)
+                        : zeta(1, count, theta);
+                eta = (1 - Math.pow(2.0 / count, 1 - theta)) / (1 - zeta2 / zetaN);
+                this.count = count;
+            }
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            int rank;
+            if (uz < 1) {
+                rank = 0;
+            } else if (uz < 1 + Math.pow(0.5, theta)) {
+                rank = 1;
+            } else {
+                rank = (int) (count * Math.pow(eta * u - eta + 1, alpha));
+            }
+            rank = Math.min(rank, count - 1);
+            if (latest) {
+                return count - 1 - rank;
+            }
+            // Scatter popular ranks over all keys, so they are not all next to each other
+            return (int) ((fnvHash64(rank) & Long.MAX_VALUE) % count);
+        }
+
+        /** Also copies the constants of the current count, so they are not computed again. */
+        @Override
+        public KeyDistribution copy() {
+            Zipfian copy = new Zipfian(theta, latest);
+            copy.count = count;
+            copy.zetaN = zetaN;
+            copy.eta = eta;
+            return copy;
+        }
+
+        private static long fnvHash64(long value) {
+            long hash = FNV_OFFSET_BASIS_64;
+            for (int i = 0; i < 8; i++) {
+                hash ^= value & 0xFF;
+                hash *= FNV_PRIME_64;
+                value >>>= 8;
+            }
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return (latest ? "latest:" : "zipfian:") + format(theta);
+        }
+    }
+
+    private static class Hotspot extends KeyDistribution {
+        private final double hotSetFraction;
+        private final double hotOperationFraction;
+
+        Hotspot(double hotSetFraction, double hotOperationFraction) {
+            if (hotSetFraction < 0 || hotSetFraction > 1 || hotOperationFraction < 0 || hotOperationFraction > 1) {
+                throw new IllegalArgumentException("Fractions must be between 0 and 1");
+            }
+            this.hotSetFraction = hotSetFraction;
+            this.hotOperationFraction = hotOperationFraction;
+        }
+
+        @Override
+        public int nextKey(Random random, int count) {
+            int hotSetSize = (int) (count * hotSetFraction);
+            if (hotSetSize == 0 || hotSetSize == count) {
+                return random.nextInt(count);
+            }
+            if (random.nextDouble() < hotOperationFraction) {
+                return random.nextInt(hotSetSize);
+            } else {
+                return hotSetSize + random.nextInt(count - hotSetSize);
+            }
+        }
+
+        @Override
+        public KeyDistribution copy() {
+            return new Hotspot(hotSetFraction, hotOperationFraction);
+        }
+
+        @Override
+        public String toString() {
+            return "hotspot:" + format(hotSetFraction) + ":" + format(hotOperationFraction);
+        }
+    }
+}
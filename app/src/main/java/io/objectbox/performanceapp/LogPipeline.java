@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes log events from test threads to a consumer thread using a lock-free ring buffer.
+ * <p>
+ * Publishing never takes a lock or waits for the consumer, unless the buffer is full; then the publisher yields until
+ * the consumer caught up (events are never dropped). The consumer thread hands events in batches to a {@link Sink},
+ * which may take its time, e.g. to update the UI or write files. When there are no events, the consumer parks until a
+ * publisher wakes it, so it does not disturb measured phases without log output.
+ */
+public class LogPipeline {
+
+    public interface Sink {
+        /** Called on the consumer thread. */
+        void write(List<Event> events);
+    }
+
+    public static final class Event {
+        public final String text;
+        public final boolean error;
+
+        Event(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    private static final long AWAIT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Platform platform;
+    private final Sink sink;
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    /** Sequence of the next event to publish; claimed by publishers. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Sequence of the next event to consume; only written by the consumer. */
+    private volatile long head;
+    /** All events before this sequence were written by the sink. */
+    private volatile long written;
+    private volatile boolean closed;
+    /** Set by the consumer before it parks; publishers only unpark it if set. */
+    private volatile boolean waiting;
+    private volatile Thread consumer;
+
+    /**
+     * @param platform logs errors thrown by the sink
+     * @param capacity number of events the buffer can hold, rounded up to the next power of 2
+     */
+    public LogPipeline(Platform platform, Sink sink, int capacity) {
+        this.platform = platform;
+        this.sink = sink;
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public synchronized void start() {
+        if (consumer != null) {
+            throw new IllegalStateException("Already started");
+        }
+        consumer = new Thread(this::consume, "PerfLog");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public void publish(String text, boolean error) {
+        Event event = new Event(text, error);
+        long sequence = tail.getAndIncrement();
+        while (sequence - head >= slots.length()) {
+            Thread.yield();
+        }
+        // Volatile write, so either the consumer sees the event before parking or this sees it waiting
+        slots.set((int) sequence & mask, event);
+        if (waiting) {
+            Thread thread = consumer;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Waits until all events published so far were written by the sink.
+     *
+     * @return false if the timeout elapsed before
+     */
+    public boolean awaitDrained(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (written < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(AWAIT_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /** Writes all pending events and stops the consumer thread; {@link #start()} may be called again after. */
+    public synchronized void close() {
+        closed = true;
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        consumer = null;
+        closed = false;
+    }
+
+    private void consume() {
+        List<Event> batch = new ArrayList<>();
+        while (true) {
+            // Read before draining, so events published before close are never missed
+            boolean closing = closed;
+            long sequence = head;
+            Event event;
+            while ((event = slots.get((int) sequence & mask)) != null) {
+                slots.lazySet((int) sequence & mask, null);
+                batch.add(event);
+                sequence++;
+            }
+            head = sequence;
+            if (!batch.isEmpty()) {
+                try {
+                    sink.write(batch);
+                } catch (RuntimeException e) {
+                    platform.logError("PERF", "Could not write log events", e);
+                }
+                batch.clear();
+                written = sequence;
+            } else if (closing && sequence == tail.get()) {
+                return;
+            } else {
+                waiting = true;
+                if (slots.get((int) sequence & mask) == null && !closed) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+}
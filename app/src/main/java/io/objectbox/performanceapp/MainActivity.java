@@ -23,26 +23,43 @@ import android.os.Bundle;
 import android.view.View;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
 import android.widget.EditText;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import androidx.preference.PreferenceManager;
 import io.objectbox.performanceapp.PerfTestRunner.Callback;
 import io.objectbox.performanceapp.databinding.ActivityMainBinding;
-import io.objectbox.performanceapp.greendao.GreendaoPerfTest;
-import io.objectbox.performanceapp.objectbox.ObjectBoxPerfTest;
-import io.objectbox.performanceapp.realm.RealmPerfTest;
-import io.objectbox.performanceapp.room.RoomPerfTest;
 
+/**
+ * Runs the selected tests. To run a {@link BenchmarkPlan} unattended, pass the path of its JSON file:
+ * <pre>
+ * adb shell am start -n io.objectbox.performanceapp/.MainActivity --es plan /sdcard/Android/data/.../plan.json
+ * </pre>
+ * To replay an {@link OperationTrace} with the "trace-replay" type, pass its path with {@code --es trace <path>}.
+ */
 public class MainActivity extends Activity implements Callback {
 
+    public static final String EXTRA_PLAN = "plan";
+    public static final String EXTRA_TRACE = "trace";
+
     private static final String PREF_TYPE = "io.objectbox.performance.type";
     private static final String PREF_RUNS = "io.objectbox.performance.runs";
     private static final String PREF_COUNT = "io.objectbox.performance.count";
+    private static final String PREF_ISOLATE = "io.objectbox.performance.isolate";
+    private static final String PREF_COUNT_ALLOCATIONS = "io.objectbox.performance.countAllocations";
+    private static final String PREF_DATABASES = "io.objectbox.performance.databases";
 
     private ActivityMainBinding binding;
+    private PerfTestRegistry registry;
+    private final List<CheckBox> databaseCheckBoxes = new ArrayList<>();
     private PerfTestRunner testRunner;
 
     @Override
@@ -50,6 +67,7 @@ public class MainActivity extends Activity implements Callback {
         super.onCreate(savedInstanceState);
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        registry = new PerfTestRegistry();
 
         binding.buttonRunTest.setOnClickListener(view -> {
             binding.buttonRunTest.setEnabled(false);
@@ -61,16 +79,13 @@ public class MainActivity extends Activity implements Callback {
                 }
                 currentFocus.clearFocus();
             }
-            boolean objectBox = binding.checkBoxObjectBox.isChecked();
-            boolean realm = binding.checkBoxRealm.isChecked();
-            boolean greenDao = binding.checkBoxGreenDao.isChecked();
-            boolean room = binding.checkBoxRoom.isChecked();
+            boolean isolate = binding.checkBoxIsolate.isChecked();
             TestType type = (TestType) binding.spinnerTestType.getSelectedItem();
 
             int runs = getIntegerFromEditTextOrZero(binding.editTextRuns);
             int numberEntities = getIntegerFromEditTextOrZero(binding.editTextNumberEntities);
 
-            runTests(type, runs, numberEntities, objectBox, realm, greenDao, room);
+            runTests(type, runs, numberEntities, getSelectedDatabases(), isolate);
         });
 
         ArrayAdapter<TestType> adapter = new ArrayAdapter<>(
@@ -81,8 +96,17 @@ public class MainActivity extends Activity implements Callback {
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.spinnerTestType.setAdapter(adapter);
 
-        // Restore type, runs and count or set defaults.
+        // Restore databases, type, runs and count or set defaults.
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
+        Set<String> selectedDatabases = prefs.getStringSet(PREF_DATABASES, Collections.singleton("objectbox"));
+        for (PerfTestVariant variant : registry.getVariants()) {
+            CheckBox checkBox = new CheckBox(this);
+            checkBox.setText(variant.getName());
+            checkBox.setTag(variant.getId());
+            checkBox.setChecked(selectedDatabases.contains(variant.getId()));
+            binding.gridDatabases.addView(checkBox);
+            databaseCheckBoxes.add(checkBox);
+        }
         int previousTypeSelection = prefs.getInt(PREF_TYPE, 0);
         if (previousTypeSelection > TestType.ALL.length - 1 || previousTypeSelection < 0) {
             previousTypeSelection = 0;
@@ -93,6 +117,61 @@ public class MainActivity extends Activity implements Callback {
                 .setText(String.valueOf(prefs.getInt(PREF_RUNS, 1)));
         binding.editTextNumberEntities
                 .setText(String.valueOf(prefs.getInt(PREF_COUNT, 100000)));
+        binding.checkBoxIsolate.setChecked(prefs.getBoolean(PREF_ISOLATE, false));
+        binding.checkBoxCountAllocations.setChecked(prefs.getBoolean(PREF_COUNT_ALLOCATIONS, false));
+
+        String planPath = getIntent().getStringExtra(EXTRA_PLAN);
+        if (planPath != null && savedInstanceState == null) {
+            runPlan(new File(planPath));
+        }
+    }
+
+    private void runPlan(File planFile) {
+        BenchmarkPlan plan;
+        try {
+            plan = BenchmarkPlan.read(planFile);
+        } catch (IOException e) {
+            binding.textViewResults.setText("Could not read plan: " + e.getMessage());
+            return;
+        }
+        binding.buttonRunTest.setEnabled(false);
+        binding.textViewResults.setText("");
+        testRunner = new AndroidPerfTestRunner(this, this, binding.textViewResults, plan.getRuns(), 0);
+        setCountAllocations(testRunner);
+        BenchmarkPlan.TestFactory testFactory = !plan.isIsolate() ? registry : new BenchmarkPlan.TestFactory() {
+            @Override
+            public PerfTest createTest(String database) {
+                return new AndroidIsolatedPerfTest(MainActivity.this, registry.getVariant(database));
+            }
+
+            @Override
+            public boolean supports(String database, TestType type) {
+                return registry.supports(database, type);
+            }
+        };
+        try {
+            testRunner.runPlan(plan, testFactory);
+        } catch (IllegalArgumentException e) {
+            testRunner = null;
+            binding.textViewResults.setText(e.getMessage());
+            binding.buttonRunTest.setEnabled(true);
+        }
+    }
+
+    private void setCountAllocations(PerfTestRunner testRunner) {
+        ((AndroidPlatform) testRunner.getPlatform())
+                .setCountAllocations(binding.checkBoxCountAllocations.isChecked());
+    }
+
+    /** IDs of the checked {@link PerfTestVariant}s. */
+    private Set<String> getSelectedDatabases() {
+        Set<String> databases = new HashSet<>();
+        for (CheckBox checkBox : databaseCheckBoxes) {
+            if (checkBox.isChecked()) {
+                databases.add((String) checkBox.getTag());
+            }
+        }
+        return databases;
     }
 
     private int getIntegerFromEditTextOrZero(EditText editText) {
@@ -107,13 +186,16 @@ public class MainActivity extends Activity implements Callback {
     @Override
     protected void onPause() {
         super.onPause();
-        // Save type, runs and count.
+        // Save databases, type, runs and count.
         PreferenceManager.getDefaultSharedPreferences(this).edit()
                 .putInt(PREF_TYPE, binding.spinnerTestType.getSelectedItemPosition())
                 .putInt(PREF_RUNS,
                         getIntegerFromEditTextOrZero(binding.editTextRuns))
                 .putInt(PREF_COUNT,
                         getIntegerFromEditTextOrZero(binding.editTextNumberEntities))
+                .putBoolean(PREF_ISOLATE, binding.checkBoxIsolate.isChecked())
+                .putBoolean(PREF_COUNT_ALLOCATIONS, binding.checkBoxCountAllocations.isChecked())
+                .putStringSet(PREF_DATABASES, getSelectedDatabases())
                 .apply();
     }
 
@@ -126,22 +208,25 @@ public class MainActivity extends Activity implements Callback {
         super.onDestroy();
     }
 
-    private void runTests(TestType type, int runs, int numberEntities, boolean objectBox, boolean realm, boolean greenDao, boolean room) {
+    private void runTests(TestType type, int runs, int numberEntities, Set<String> databases, boolean isolate) {
         binding.textViewResults.setText("");
         List<PerfTest> tests = new ArrayList<>();
-        if (objectBox) {
-            tests.add(new ObjectBoxPerfTest());
-        }
-        if (realm) {
-            tests.add(new RealmPerfTest());
-        }
-        if (greenDao) {
-            tests.add(new GreendaoPerfTest());
+        for (PerfTestVariant variant : registry.getVariants()) {
+            if (!databases.contains(variant.getId())) {
+                continue;
+            }
+            if (!variant.supports(type)) {
+                binding.textViewResults.append(variant.getName() + " does not support " + type + "\n");
+                continue;
+            }
+            tests.add(isolate ? new AndroidIsolatedPerfTest(this, variant) : variant.createTest());
         }
-        if (room) {
-            tests.add(new RoomPerfTest());
+        testRunner = new AndroidPerfTestRunner(this, this, binding.textViewResults, runs, numberEntities);
+        setCountAllocations(testRunner);
+        String tracePath = getIntent().getStringExtra(EXTRA_TRACE);
+        if (tracePath != null) {
+            testRunner.setTraceFile(new File(tracePath));
         }
-        testRunner = new PerfTestRunner(this, this, binding.textViewResults, runs, numberEntities);
         testRunner.run(type, tests);
     }
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+/**
+ * Takes a snapshot of the Java heap, the native heap (if known by the {@link Platform}) and the database size on
+ * disk at the end of each phase, see {@link PerfTest#getDatabaseSizeOnDisk()}.
+ */
+public class MemoryProbe implements PhaseProbe {
+
+    private final Platform platform;
+    private final PerfTest test;
+
+    public MemoryProbe(Platform platform, PerfTest test) {
+        this.platform = platform;
+        this.test = test;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public String stop(int numberEntities, Values values) {
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+        values.add("heap-bytes", heap);
+        String log = ", heap: " + PhaseProbe.formatBytes(heap);
+
+        long nativeHeap = platform.nativeHeapAllocatedBytes();
+        if (nativeHeap >= 0) {
+            values.add("native-heap-bytes", nativeHeap);
+            log += ", native heap: " + PhaseProbe.formatBytes(nativeHeap);
+        }
+
+        long dbSize = test.getDatabaseSizeOnDisk();
+        if (dbSize >= 0) {
+            values.add("db-bytes", dbSize);
+            log += ", DB: " + PhaseProbe.formatBytes(dbSize);
+            if (numberEntities > 0) {
+                log += " (" + dbSize / numberEntities + " B/entity)";
+            }
+        }
+        return log;
+    }
+
+}
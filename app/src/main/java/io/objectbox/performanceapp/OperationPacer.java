@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides when the single operations of a phase (e.g. one query after another) start, see
+ * {@link PerfTest#startOperation()}.
+ * <p>
+ * By default, tests run closed-loop: the next operation starts as soon as the previous one returns. If a database
+ * stalls, fewer operations are issued during the stall, so the latency percentiles understate how long requests
+ * arriving meanwhile would have waited ("coordinated omission"). At a fixed rate, operations are scheduled at
+ * intended start times independent of how long previous operations took, and latency is measured from the intended
+ * start time: operations that start late because of a stall include the time they waited.
+ */
+public abstract class OperationPacer {
+
+    /** Starts each operation right away. */
+    public static OperationPacer closedLoop() {
+        return new ClosedLoop();
+    }
+
+    /**
+     * Schedules operations at a fixed arrival rate.
+     *
+     * @param operationsPerSecond target throughput, must be positive
+     */
+    public static OperationPacer fixedRate(double operationsPerSecond) {
+        return new FixedRate(operationsPerSecond);
+    }
+
+    /**
+     * Schedules operations at the times they were recorded in the trace.
+     *
+     * @param speed 1 for the original timing, higher to replay faster (e.g. 10 for 10 times as fast)
+     */
+    public static OperationPacer trace(OperationTrace trace, double speed) {
+        return new Trace(trace, speed);
+    }
+
+    /** Called at the start of a phase. */
+    public abstract void reset();
+
+    /**
+     * Waits until the next operation is due.
+     *
+     * @return the start time of the operation to measure its latency from, as {@link System#nanoTime()}
+     */
+    public abstract long startOperation();
+
+    /** Target operations per second, or 0 for closed-loop. */
+    public abstract double getRate();
+
+    private static class ClosedLoop extends OperationPacer {
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public long startOperation() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public double getRate() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "closed-loop";
+        }
+    }
+
+    /** Waits for intended start times relative to the start of the phase. */
+    private abstract static class Scheduled extends OperationPacer {
+        /** Shorter waits spin, as parking for them would overshoot. */
+        private static final long SPIN_NANOS = 100_000;
+
+        private long phaseStartNanos;
+        private int operations;
+
+        /** Intended start of the given operation relative to the start of the phase. */
+        abstract long getOffsetNanos(int operation);
+
+        @Override
+        public void reset() {
+            phaseStartNanos = System.nanoTime();
+            operations = 0;
+        }
+
+        @Override
+        public long startOperation() {
+            long intendedNanos = phaseStartNanos + getOffsetNanos(operations++);
+            long waitNanos;
+            while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                if (waitNanos > SPIN_NANOS) {
+                    LockSupport.parkNanos(waitNanos - SPIN_NANOS);
+                }
+            }
+            // If behind schedule, this is in the past, so the latency includes the time spent waiting to start
+            return intendedNanos;
+        }
+    }
+
+    private static class FixedRate extends Scheduled {
+        private final double rate;
+        private final double intervalNanos;
+
+        FixedRate(double rate) {
+            if (!(rate > 0)) {
+                throw new IllegalArgumentException("Rate must be positive, but is " + rate);
+            }
+            this.rate = rate;
+            intervalNanos = 1e9 / rate;
+        }
+
+        @Override
+        long getOffsetNanos(int operation) {
+            return Math.round(operation * intervalNanos);
+        }
+
+        @Override
+        public double getRate() {
+            return rate;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%.0f ops/s", rate);
+        }
+    }
+
+    private static class Trace extends Scheduled {
+        private final OperationTrace trace;
+        private final double speed;
+
+        Trace(OperationTrace trace, double speed) {
+            if (!(speed > 0)) {
+                throw new IllegalArgumentException("Speed must be positive, but is " + speed);
+            }
+            this.trace = trace;
+            this.speed = speed;
+        }
+
+        @Override
+        long getOffsetNanos(int operation) {
+            return Math.round(trace.getTimeNanos(operation) / speed);
+        }
+
+        @Override
+        public double getRate() {
+            long durationNanos = trace.getDurationNanos();
+            return durationNanos > 0 ? trace.size() * 1e9 * speed / durationNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "trace timing x %s", speed);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A recorded sequence of entity operations (e.g. of a production app) that {@link TestType#TRACE_REPLAY} replays
+ * against each database, see {@link #replay(Operations, PhaseRunner, Dataset, int, Random)}.
+ * <p>
+ * Record a trace with a {@link Writer}; the file is compact: after a header, each operation takes a type byte and
+ * variable-length integers for the time since the previous operation (in microseconds), the entity ID and, for puts,
+ * the payload size in bytes. When read, entity IDs are mapped to keys 0 to {@link #getKeyCount()} - 1 in the order
+ * they first appear.
+ */
+public class OperationTrace {
+
+    static final int MAGIC = 0x4F425452; // "OBTR"
+    static final int VERSION = 1;
+
+    public enum Operation {
+        /** Inserts or replaces an entity with a payload of a given size. */
+        PUT,
+        GET,
+        /** Query for entities with the same (non-indexed) integer value as the entity. */
+        QUERY,
+        REMOVE;
+
+        /** Lower case name as used in logs, e.g. "put". */
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.US);
+        }
+    }
+
+    /**
+     * Operations of a database on SimpleEntity. A key that was not put yet (or was removed) does not exist;
+     * databases assigning IDs themselves map keys to their IDs.
+     */
+    public interface Operations {
+        /**
+         * Inserts or replaces the entity with the values of the given dataset row, but with the payload as byte
+         * array.
+         */
+        void put(int key, int row, byte[] payload);
+
+        /** Gets the entity and accesses all properties; false if it does not exist. */
+        boolean get(int key);
+
+        /** Gets the entities with the given simpleInt value and accesses all properties. */
+        int query(int value);
+
+        void remove(int key);
+    }
+
+    /** Operations done by a replay. */
+    public static class Result {
+        /** Count of each {@link Operation}, by ordinal. */
+        public final int[] operationCounts = new int[Operation.values().length];
+        /** Gets of entities that did not exist. */
+        public long notFound;
+        /** Entities found by queries. */
+        public long queryResults;
+
+        /** Counts for log output, e.g. "Operations: put=10 get=5 ...". */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Operations:");
+            for (Operation operation : Operation.values()) {
+                text.append(' ').append(operation).append('=').append(operationCounts[operation.ordinal()]);
+            }
+            return text.append(", gets not found: ").append(notFound).append(", entities queried: ")
+                    .append(queryResults).toString();
+        }
+    }
+
+    /**
+     * Writes a trace file, e.g. from a production app (copy this class). Operations are timestamped when they are
+     * written. Thread-safe.
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private long lastNanos = -1;
+
+        public Writer(File file) throws IOException {
+            this(new FileOutputStream(file));
+        }
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+        }
+
+        public synchronized void put(long id, int payloadBytes) throws IOException {
+            writeOperation(Operation.PUT, id);
+            writeVarLong(payloadBytes);
+        }
+
+        public synchronized void get(long id) throws IOException {
+            writeOperation(Operation.GET, id);
+        }
+
+        public synchronized void query(long id) throws IOException {
+            writeOperation(Operation.QUERY, id);
+        }
+
+        public synchronized void remove(long id) throws IOException {
+            writeOperation(Operation.REMOVE, id);
+        }
+
+        private void writeOperation(Operation operation, long id) throws IOException {
+            long nanos = System.nanoTime();
+            long deltaMicros = lastNanos < 0 ? 0 : Math.max(0, (nanos - lastNanos) / 1000);
+            // Keep the remainder, so rounding errors do not add up
+            lastNanos = lastNanos < 0 ? nanos : lastNanos + deltaMicros * 1000;
+            out.writeByte(operation.ordinal());
+            writeVarLong(deltaMicros);
+            // Zig-zag, so negative IDs stay short as well
+            writeVarLong((id << 1) ^ (id >> 63));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private final String name;
+    private final int size;
+    private final byte[] operations;
+    private final int[] keys;
+    private final int[] payloadSizes;
+    private final long[] timeNanos;
+    private final int keyCount;
+    private final int maxPayloadSize;
+
+    /**
+     * @throws IOException if the file can not be read or is not a trace
+     */
+    public static OperationTrace read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(file.getName(), in);
+        }
+    }
+
+    public static OperationTrace read(String name, InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (data.readInt() != MAGIC) {
+            throw new IOException(name + " is not an operation trace");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException(name + " has unsupported version " + version);
+        }
+        Operation[] operationValues = Operation.values();
+        Map<Long, Integer> keysById = new HashMap<>();
+        int capacity = 1024;
+        byte[] operations = new byte[capacity];
+        int[] keys = new int[capacity];
+        int[] payloadSizes = new int[capacity];
+        long[] timeNanos = new long[capacity];
+        int size = 0;
+        long time = 0;
+        int maxPayloadSize = 0;
+        while (true) {
+            int operation = data.read();
+            if (operation < 0) {
+                break;
+            }
+            if (operation >= operationValues.length) {
+                throw new IOException(name + " has invalid operation " + operation + " at " + size);
+            }
+            if (size == capacity) {
+                capacity *= 2;
+                operations = Arrays.copyOf(operations, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                payloadSizes = Arrays.copyOf(payloadSizes, capacity);
+                timeNanos = Arrays.copyOf(timeNanos, capacity);
+            }
+            try {
+                time += readVarLong(data) * 1000;
+                long zigZag = readVarLong(data);
+                long id = (zigZag >>> 1) ^ -(zigZag & 1);
+                Integer key = keysById.get(id);
+                if (key == null) {
+                    key = keysById.size();
+                    keysById.put(id, key);
+                }
+                int payloadSize = 0;
+                if (operation == Operation.PUT.ordinal()) {
+                    long value = readVarLong(data);
+                    if (value > Integer.MAX_VALUE) {
+                        throw new IOException(name + " has invalid payload size " + value + " at " + size);
+                    }
+                    payloadSize = (int) value;
+                    maxPayloadSize = Math.max(maxPayloadSize, payloadSize);
+                }
+                operations[size] = (byte) operation;
+                keys[size] = key;
+                payloadSizes[size] = payloadSize;
+                timeNanos[size] = time;
+                size++;
+            } catch (EOFException e) {
+                throw new IOException(name + " is truncated at operation " + size, e);
+            }
+        }
+        return new OperationTrace(name, size, operations, keys, payloadSizes, timeNanos, keysById.size(),
+                maxPayloadSize);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable-length integer is too long");
+    }
+
+    private OperationTrace(String name, int size, byte[] operations, int[] keys, int[] payloadSizes,
+                           long[] timeNanos, int keyCount, int maxPayloadSize) {
+        this.name = name;
+        this.size = size;
+        this.operations = operations;
+        this.keys = keys;
+        this.payloadSizes = payloadSizes;
+        this.timeNanos = timeNanos;
+        this.keyCount = keyCount;
+        this.maxPayloadSize = maxPayloadSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Number of operations. */
+    public int size() {
+        return size;
+    }
+
+    public Operation getOperation(int index) {
+        return Operation.values()[operations[index]];
+    }
+
+    /** Key (0 to {@link #getKeyCount()} - 1) of the entity of the operation. */
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    /** Payload size in bytes of a put, 0 for other operations. */
+    public int getPayloadSize(int index) {
+        return payloadSizes[index];
+    }
+
+    /** Time of the operation since the first operation. */
+    public long getTimeNanos(int index) {
+        return timeNanos[index];
+    }
+
+    /** Number of distinct entities. */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public int getMaxPayloadSize() {
+        return maxPayloadSize;
+    }
+
+    /** Time from the first to the last operation. */
+    public long getDurationNanos() {
+        return size > 0 ? timeNanos[size - 1] : 0;
+    }
+
+    /**
+     * Replays all operations in a "replay" phase, each one measured; the timing is up to the {@link OperationPacer}
+     * of the test. Entities get the values of dataset row key % numberEntities with a payload of the recorded size.
+     *
+     * @param random fills payloads
+     */
+    public Result replay(Operations operations, PhaseRunner phases, Dataset dataset, int numberEntities,
+                         Random random) {
+        if (size == 0) {
+            throw new IllegalStateException("Trace " + name + " has no operations");
+        }
+        byte[] payloadSource = new byte[maxPayloadSize];
+        random.nextBytes(payloadSource);
+
+        Result result = new Result();
+        phases.startPhase("replay", false);
+        for (int i = 0; i < size; i++) {
+            Operation operation = getOperation(i);
+            int key = keys[i];
+            int row = key % numberEntities;
+            byte[] payload = operation == Operation.PUT ? Arrays.copyOf(payloadSource, payloadSizes[i]) : null;
+            long start = phases.startOperation();
+            switch (operation) {
+                case PUT:
+                    operations.put(key, row, payload);
+                    break;
+                case GET:
+                    if (!operations.get(key)) {
+                        result.notFound++;
+                    }
+                    break;
+                case QUERY:
+                    result.queryResults += operations.query(dataset.getInt(row));
+                    break;
+                case REMOVE:
+                    operations.remove(key);
+                    break;
+            }
+            phases.recordOperation(start);
+            result.operationCounts[operation.ordinal()]++;
+        }
+        phases.stopPhase();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        int[] counts = new int[Operation.values().length];
+        for (int i = 0; i < size; i++) {
+            counts[operations[i]]++;
+        }
+        StringBuilder text = new StringBuilder(name).append(": ").append(size).append(" operations");
+        for (Operation operation : Operation.values()) {
+            text.append(", ").append(counts[operation.ordinal()]).append(' ').append(operation);
+        }
+        return text.append(", ").append(keyCount).append(" entities, ")
+                .append(getDurationNanos() / 1000000).append(" ms").toString();
+    }
+}
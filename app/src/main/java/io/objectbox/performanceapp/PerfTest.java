@@ -16,24 +16,70 @@
 
 package io.objectbox.performanceapp;
 
-import android.content.Context;
 import androidx.annotation.CallSuper;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Random;
 
+/**
+ * Base class of the tests of a single database. Does not depend on Android, see {@link AndroidPerfTest} for tests
+ * that require an Android {@code Context}.
+ */
 public abstract class PerfTest {
 
+    /**
+     * IDs per get of {@link TestType#QUERY_ID_BATCH}; the max number of variables of a SQLite statement (before SQLite
+     * 3.32), so SQLite databases can look up a batch with a single "WHERE id IN (...)" query.
+     */
+    protected static final int ID_BATCH_SIZE = 999;
+
+    /** Seeded, so all databases look up the same values, IDs, etc. */
     protected Random random;
-    protected Context context;
     protected PerfTestRunner testRunner;
     protected int numberEntities;
     protected Benchmark benchmark;
+    /** Values of entities to put, see {@link #updateRow(int)}. */
+    protected Dataset dataset;
+    protected KeyDistribution keyDistribution = KeyDistribution.uniform();
+    protected OperationPacer operationPacer = OperationPacer.closedLoop();
+    /** Consumes the values read by a phase, see {@link ValueChecksum}. */
+    protected final ValueChecksum checksum = new ValueChecksum();
+    private String phaseName;
+    /** Lets workload drivers run phases of this test. */
+    protected final PhaseRunner phases = new PhaseRunner() {
+        @Override
+        public void startPhase(String name, boolean multiThreaded) {
+            startBenchmark(name, multiThreaded);
+        }
+
+        @Override
+        public void stopPhase() {
+            stopBenchmark();
+        }
+
+        @Override
+        public long startOperation() {
+            return PerfTest.this.startOperation();
+        }
+
+        @Override
+        public void recordOperation(long startNanos) {
+            PerfTest.this.recordOperation(startNanos);
+        }
+
+        @Override
+        public void log(String text) {
+            PerfTest.this.log(text);
+        }
+    };
 
     @CallSuper
-    public void setUp(Context context, PerfTestRunner testRunner) {
-        random = new Random();
-        this.context = context.getApplicationContext();
+    public void setUp(PerfTestRunner testRunner) {
+        random = new Random(RandomValues.SEED);
         this.testRunner = testRunner;
+        dataset = testRunner.getDataset(numberEntities);
     }
 
     public void tearDown() {
@@ -47,20 +93,87 @@ public abstract class PerfTest {
 
     public abstract void run(TestType type);
 
+    /**
+     * Called by {@link PerfTestRunner} before its warm-up; a test that does the warm-up and all runs itself, e.g. in
+     * another process (see {@link IsolatedPerfTest}), does them here and returns true.
+     *
+     * @return false to let the runner set up, run and tear down this test for each run (the default)
+     */
+    public boolean runAll(PerfTestRunner testRunner, TestType type, int runs, WarmUpController warmUpController) {
+        return false;
+    }
+
     public void setNumberEntities(int numberEntities) {
         this.numberEntities = numberEntities;
     }
 
+    public void setKeyDistribution(KeyDistribution keyDistribution) {
+        this.keyDistribution = keyDistribution;
+    }
+
+    /**
+     * Index (0 to numberEntities - 1, in insert order) of the entity to look up next, see {@link KeyDistribution}.
+     */
+    protected int nextKey() {
+        return keyDistribution.nextKey(random, numberEntities);
+    }
+
+    /** Decides when single operations start, see {@link #startOperation()}. */
+    public void setOperationPacer(OperationPacer operationPacer) {
+        this.operationPacer = operationPacer;
+    }
+
     public void setBenchmark(Benchmark benchmark) {
         this.benchmark = benchmark;
     }
 
     protected void startBenchmark(String name) {
-        benchmark.start(name);
+        startBenchmark(name, false);
     }
 
+    /**
+     * @param multiThreaded the phase runs on other threads, see {@link Benchmark#start(String, boolean)}
+     */
+    protected void startBenchmark(String name, boolean multiThreaded) {
+        testRunner.prepareForPhase();
+        benchmark.start(name, multiThreaded);
+        phaseName = name;
+        checksum.reset();
+        operationPacer.reset();
+    }
+
+    /**
+     * If the phase read entities, stores the {@link #checksum} of their values in a "-checksum" column and checks
+     * that other databases read the same values, see {@link PerfTestRunner#verifyChecksum(String, String, String)}.
+     */
     protected void stopBenchmark() {
         log(benchmark.stop());
+        if (checksum.getEntityCount() > 0) {
+            String value = checksum.getValue();
+            benchmark.addValue(phaseName + PerfTestRunner.CHECKSUM_SUFFIX, value);
+            testRunner.verifyChecksum(name(), phaseName, value);
+        }
+        phaseName = null;
+    }
+
+    /**
+     * Call right before a single operation of the current phase; at a fixed rate, waits until it is due (see
+     * {@link OperationPacer}).
+     *
+     * @return start time to pass to {@link #recordOperation(long)}
+     */
+    protected long startOperation() {
+        return operationPacer.startOperation();
+    }
+
+    /**
+     * Records the latency of a single operation of the current phase, see {@link Benchmark#recordOperation(long)}.
+     *
+     * @param startNanos value of {@link #startOperation()} (or {@link System#nanoTime()}) right before the operation
+     *                   started
+     */
+    protected void recordOperation(long startNanos) {
+        benchmark.recordOperation(System.nanoTime() - startNanos);
     }
 
     /**
@@ -72,15 +185,183 @@ public abstract class PerfTest {
         stopBenchmark();
     }
 
-    public String randomString() {
-        return RandomValues.createRandomString(random, 0, 100);
+    /**
+     * Size of all database files in bytes including WAL and lock files, or -1 if unknown.
+     * Only called while a test is set up.
+     */
+    public long getDatabaseSizeOnDisk() {
+        return -1;
+    }
+
+    /** Sum of the lengths of the given files, missing files are ignored. */
+    protected static long sizeOfFiles(File... files) {
+        long size = 0;
+        for (File file : files) {
+            if (file.isFile()) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * IDs of all entities in random order, so {@link TestType#QUERY_ID_SINGLE} and {@link TestType#QUERY_ID_BATCH}
+     * look up each entity once.
+     *
+     * @param firstId ID of the first inserted entity, e.g. 1 if IDs are assigned by the database
+     */
+    protected long[] shuffledIds(long firstId) {
+        long[] ids = new long[numberEntities];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = firstId + i;
+        }
+        for (int i = ids.length - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            long id = ids[i];
+            ids[i] = ids[other];
+            ids[other] = id;
+        }
+        return ids;
+    }
+
+    /** Splits the IDs into batches of {@link #ID_BATCH_SIZE} for {@link TestType#QUERY_ID_BATCH}. */
+    protected static long[][] toIdBatches(long[] ids) {
+        long[][] batches = new long[(ids.length + ID_BATCH_SIZE - 1) / ID_BATCH_SIZE][];
+        for (int i = 0; i < batches.length; i++) {
+            int from = i * ID_BATCH_SIZE;
+            batches[i] = Arrays.copyOfRange(ids, from, Math.min(from + ID_BATCH_SIZE, ids.length));
+        }
+        return batches;
+    }
+
+    /**
+     * Row of the {@link #dataset} with the values to update the entity inserted from the given row to; differs from
+     * the inserted values.
+     */
+    protected int updateRow(int row) {
+        return updateRow(row, numberEntities);
+    }
+
+    /** See {@link #updateRow(int)}. */
+    static int updateRow(int row, int numberEntities) {
+        return row + 1 < numberEntities ? row + 1 : 0;
+    }
+
+    /**
+     * Run phase of a YCSB workload, see
+     * {@link YcsbWorkload#run(YcsbWorkload.Operations, PhaseRunner, Random, KeyDistribution, int)}. Uses the key
+     * distribution of the workload unless another than uniform was set.
+     */
+    protected void runWorkload(YcsbWorkload workload, YcsbWorkload.Operations operations) {
+        KeyDistribution keys = keyDistribution.isUniform() ? workload.createKeyDistribution() : keyDistribution;
+        log(workload + ", keys: " + keys);
+        YcsbWorkload.Result result = workload.run(operations, phases, random, keys, numberEntities);
+        log(result.toString());
+        if (result.notFound > 0) {
+            throw new IllegalStateException(result.notFound + " entities to read were not found");
+        }
+    }
+
+    /**
+     * Replays the trace of the runner (see {@link PerfTestRunner#setTraceFile(File)}) in a "replay" phase, at its
+     * original timing times the trace speed of the runner or, if that is 0, as fast as possible. See
+     * {@link OperationTrace#replay(OperationTrace.Operations, PhaseRunner, Dataset, int, Random)}.
+     */
+    protected void runTrace(OperationTrace.Operations operations) {
+        OperationTrace trace = testRunner.getTrace();
+        double speed = testRunner.getTraceSpeed();
+        OperationPacer previousPacer = operationPacer;
+        operationPacer = speed > 0 ? OperationPacer.trace(trace, speed) : OperationPacer.closedLoop();
+        try {
+            log(trace.replay(operations, phases, dataset, numberEntities, random).toString());
+        } finally {
+            operationPacer = previousPacer;
+        }
+    }
+
+    /**
+     * Writes in chunks of each chunk size of the runner (see {@link PerfTestRunner#setChunkSizes(int[])} and
+     * {@link ChunkedWrites#run(ChunkedWrites.Operations, PhaseRunner, int[], int)}) and adds "-entities-per-s"
+     * columns for each phase.
+     */
+    protected void runChunkedWrites(ChunkedWrites.Operations operations) {
+        ChunkedWrites.Result result = ChunkedWrites.run(operations, phases, testRunner.getChunkSizes(),
+                numberEntities);
+        StringBuilder summary = new StringBuilder("Entities per second by chunk size:");
+        for (int i = 0; i < result.chunkSizes.length; i++) {
+            int chunkSize = result.chunkSizes[i];
+            benchmark.addValue("insert-" + chunkSize + "-entities-per-s", Long.toString(result.insertsPerSecond[i]));
+            benchmark.addValue("update-" + chunkSize + "-entities-per-s", Long.toString(result.updatesPerSecond[i]));
+            summary.append("\n").append(chunkSize).append(": insert ").append(result.insertsPerSecond[i])
+                    .append(", update ").append(result.updatesPerSecond[i]);
+        }
+        log(summary.toString());
+    }
+
+    /**
+     * Searches the chunk size with the highest throughput within the p99 latency limit of the runner's
+     * {@link BatchSizeTuner} in a "tuning" phase, see
+     * {@link BatchSizeTuner#tune(ChunkedWrites.Operations, PhaseRunner, int)}. The recommended size is logged and
+     * stored in "tuned-" columns (0 if no size is within the limit).
+     *
+     * @param payload describes the values written, e.g. "scalars"
+     */
+    protected void tuneBatchSize(ChunkedWrites.Operations operations, String payload) {
+        BatchSizeTuner tuner = testRunner.getBatchSizeTuner();
+        log("Batch size tuning (" + payload + "): " + tuner);
+        BatchSizeTuner.Result best = tuner.tune(operations, phases, numberEntities);
+
+        if (best != null) {
+            log("Recommended batch size for " + name() + " (" + payload + ", " + numberEntities + " entities): "
+                    + best.chunkSize + " entities per transaction (" + best.entitiesPerSecond + " entities/s, "
+                    + best.minEntitiesPerSecond + " to " + best.maxEntitiesPerSecond + " in trials, p99 "
+                    + String.format(Locale.US, "%.2f ms)", best.p99Nanos / 1000000.0));
+        } else {
+            log("No batch size of " + name() + " (" + payload + ") keeps p99 within the limit");
+        }
+        benchmark.addValue("tuned-chunk-size", Integer.toString(best != null ? best.chunkSize : 0));
+        benchmark.addValue("tuned-entities-per-s", Long.toString(best != null ? best.entitiesPerSecond : 0));
+        benchmark.addValue("tuned-p99", Long.toString(best != null ? best.p99Nanos : 0));
+        benchmark.addValue("tuned-entities-per-s-min", Long.toString(best != null ? best.minEntitiesPerSecond : 0));
+        benchmark.addValue("tuned-entities-per-s-max", Long.toString(best != null ? best.maxEntitiesPerSecond : 0));
+    }
+
+    /**
+     * Runs the readers and writers of the runner's {@link ConcurrentWorkload} in a "concurrent" phase, see
+     * {@link ConcurrentWorkload#run(ConcurrentWorkload.Operations, PhaseRunner, KeyDistribution, Dataset, int)}.
+     * Stores the operations per second and latency percentiles of each thread (e.g. "reader-1-ops-per-s",
+     * "writer-1-p99") and of all reads and writes.
+     */
+    protected void runConcurrent(ConcurrentWorkload.Operations operations) {
+        ConcurrentWorkload workload = testRunner.getConcurrentWorkload();
+        log("Concurrent: " + workload);
+        ConcurrentWorkload.Result result = workload.run(operations, phases, keyDistribution, dataset, numberEntities);
+
+        StringBuilder summary = new StringBuilder("Operations by thread:");
+        LatencyHistogram reads = new LatencyHistogram();
+        LatencyHistogram writes = new LatencyHistogram();
+        long notFound = 0;
+        long queryResults = 0;
+        for (ConcurrentWorkload.ThreadResult thread : result.threads) {
+            summary.append("\n").append(addConcurrentValues(thread.name, thread.latencies, result.timeNanos));
+            (thread.reader ? reads : writes).add(thread.latencies);
+            notFound += thread.notFound;
+            queryResults += thread.queryResults;
+        }
+        summary.append("\n").append(addConcurrentValues("read", reads, result.timeNanos));
+        summary.append("\n").append(addConcurrentValues("write", writes, result.timeNanos));
+        log(summary.toString());
+        log("Entities found by queries: " + queryResults);
+        if (notFound > 0) {
+            throw new IllegalStateException(notFound + " entities to get were not found");
+        }
     }
 
-    public byte[] randomBytes() {
-        int length = random.nextInt(100);
-        byte[] bytes = new byte[length];
-        random.nextBytes(bytes);
-        return bytes;
+    /** Adds operations per second and latency columns with the given prefix, returns them as log text. */
+    private String addConcurrentValues(String prefix, LatencyHistogram latencies, long timeNanos) {
+        long opsPerSecond = timeNanos > 0 ? Math.round(latencies.getCount() * 1e9 / timeNanos) : 0;
+        benchmark.addValue(prefix + "-ops-per-s", Long.toString(opsPerSecond));
+        return prefix + ": " + opsPerSecond + " ops/s" + benchmark.addLatencyValues(prefix, latencies);
     }
 
     public void allTestsComplete() {
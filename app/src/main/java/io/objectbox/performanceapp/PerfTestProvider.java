@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.List;
+
+/**
+ * Makes the tests of a database available to {@link PerfTestRegistry}. Implementations are looked up with
+ * {@link java.util.ServiceLoader}, so they must have a public no-arg constructor and be listed in
+ * {@code META-INF/services/io.objectbox.performanceapp.PerfTestProvider}.
+ */
+public interface PerfTestProvider {
+
+    /**
+     * Configurations of the database to test, e.g. with different journal modes. The first one should be the
+     * default configuration.
+     */
+    List<PerfTestVariant> getVariants();
+
+}
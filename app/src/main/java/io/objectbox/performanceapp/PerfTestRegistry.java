@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * All {@link PerfTestVariant}s of the {@link PerfTestProvider}s available on the class path. To add a database or a
+ * configuration of it, add a provider and list it in {@code META-INF/services}; the app and the command line pick it
+ * up without further changes.
+ */
+public class PerfTestRegistry implements BenchmarkPlan.TestFactory {
+
+    private final List<PerfTestVariant> variants = new ArrayList<>();
+
+    /**
+     * Loads providers using {@link ServiceLoader}.
+     */
+    public PerfTestRegistry() {
+        this(ServiceLoader.load(PerfTestProvider.class, PerfTestProvider.class.getClassLoader()));
+    }
+
+    /**
+     * @throws IllegalStateException if two variants have the same ID
+     */
+    public PerfTestRegistry(Iterable<PerfTestProvider> providers) {
+        for (PerfTestProvider provider : providers) {
+            for (PerfTestVariant variant : provider.getVariants()) {
+                if (findVariant(variant.getId()) != null) {
+                    throw new IllegalStateException("Duplicate database " + variant.getId() + " of "
+                            + provider.getClass().getName());
+                }
+                variants.add(variant);
+            }
+        }
+    }
+
+    public List<PerfTestVariant> getVariants() {
+        return Collections.unmodifiableList(variants);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no variant with the given ID
+     */
+    public PerfTestVariant getVariant(String id) {
+        PerfTestVariant variant = findVariant(id);
+        if (variant == null) {
+            throw new IllegalArgumentException("Unknown database " + id + ", available: " + getIds());
+        }
+        return variant;
+    }
+
+    private PerfTestVariant findVariant(String id) {
+        for (PerfTestVariant variant : variants) {
+            if (variant.getId().equals(id)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    /** Comma separated IDs of all variants. */
+    public String getIds() {
+        StringBuilder ids = new StringBuilder();
+        for (PerfTestVariant variant : variants) {
+            if (ids.length() > 0) {
+                ids.append(", ");
+            }
+            ids.append(variant.getId());
+        }
+        return ids.toString();
+    }
+
+    @Override
+    public PerfTest createTest(String database) {
+        return getVariant(database).createTest();
+    }
+
+    @Override
+    public boolean supports(String database, TestType type) {
+        return getVariant(database).supports(type);
+    }
+}
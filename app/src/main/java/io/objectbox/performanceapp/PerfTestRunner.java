@@ -16,73 +16,491 @@
 
 package io.objectbox.performanceapp;
 
-import android.app.Activity;
-import android.app.ActivityManager;
-import android.graphics.Color;
-import android.os.Build;
-import android.os.Environment;
-import android.text.Spannable;
-import android.text.SpannableString;
-import android.text.style.ForegroundColorSpan;
-import android.util.Log;
-import android.widget.ScrollView;
-import android.widget.TextView;
-
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by Markus on 01.10.2016.
+ * <p>
+ * Runs tests on a background thread. Subclasses decide where log output and result files go, see
+ * {@link AndroidPerfTestRunner} and the runner of the headless JVM benchmark.
+ * <p>
+ * Logging does not block the test thread: log lines are passed through a {@link LogPipeline} and written by a
+ * separate thread to {@link #writeLog(List)} and to a log file next to the result files. Waiting for log output and
+ * the runtime to settle before a phase is defined by the {@link SettlePolicy}.
  */
+public abstract class PerfTestRunner {
 
-public class PerfTestRunner {
-
-    interface Callback {
+    public interface Callback {
         void done();
     }
 
-    private final Activity activity;
+    public static final String LOG_FILE_NAME = "perf-tests.log";
+    /** Suffix of the column with the checksum of a phase, see {@link PerfTest#stopBenchmark()}. */
+    static final String CHECKSUM_SUFFIX = "-checksum";
+
+    private final Platform platform;
     private final Callback callback;
-    private final TextView textViewResults;
     private final int runs;
     private final int numberEntities;
-    private ScrollView scrollViewResults;
+    private final LogPipeline logPipeline;
+    private SettlePolicy settlePolicy = new SettlePolicy();
+    private WarmUpController warmUpController = new WarmUpController();
+    private Set<ResultFormat> resultFormats = EnumSet.of(ResultFormat.TSV);
+    private Writer logFileWriter;
+    private boolean writeLogFile = true;
+    private Dataset lastDataset;
+    private KeyDistribution keyDistribution = KeyDistribution.uniform();
+    private int operationRate;
+    private File traceFile;
+    private double traceSpeed = 1;
+    private OperationTrace trace;
+    private int[] chunkSizes = ChunkedWrites.DEFAULT_CHUNK_SIZES;
+    private BatchSizeTuner batchSizeTuner = new BatchSizeTuner();
+    private ConcurrentWorkload concurrentWorkload = new ConcurrentWorkload();
+    /** Test type, entity count and key distribution of the test running, see {@link #verifyChecksum}. */
+    private String checksumScope;
+    private final Map<String, String[]> checksums = new HashMap<>();
 
     boolean running;
     boolean destroyed;
 
-    public PerfTestRunner(Activity activity, Callback callback, TextView textViewResults, int runs, int numberEntities) {
-        this.activity = activity;
+    public PerfTestRunner(Platform platform, Callback callback, int runs, int numberEntities) {
+        this.platform = platform;
         this.callback = callback;
-        this.textViewResults = textViewResults;
-        if (textViewResults.getParent() instanceof ScrollView) {
-            scrollViewResults = (ScrollView) textViewResults.getParent();
-        }
         this.runs = runs;
         this.numberEntities = numberEntities;
+        logPipeline = new LogPipeline(platform, this::writeEvents, 4096);
+    }
+
+    public Platform getPlatform() {
+        return platform;
+    }
+
+    /**
+     * Values of entities shared by all tests, see {@link Dataset#getShared(File, int)}. Logs when a different dataset
+     * was opened or generated.
+     */
+    public Dataset getDataset(int rows) {
+        long startNanos = System.nanoTime();
+        Dataset dataset = Dataset.getShared(platform.getDatasetDirectory(), rows);
+        if (dataset != lastDataset) {
+            log("Dataset: " + dataset + ", ready in " + (System.nanoTime() - startNanos) / 1000000 + " ms");
+            lastDataset = dataset;
+        }
+        return dataset;
+    }
+
+    public void setSettlePolicy(SettlePolicy settlePolicy) {
+        this.settlePolicy = settlePolicy;
+    }
+
+    /** Decides how many runs are done before results are measured, see {@link WarmUpController}. */
+    public void setWarmUpController(WarmUpController warmUpController) {
+        this.warmUpController = warmUpController;
+    }
+
+    /**
+     * Distribution of the entities looked up by random ID, string and integer queries; if not uniform, it is stored
+     * in a "keys" column.
+     */
+    public void setKeyDistribution(KeyDistribution keyDistribution) {
+        this.keyDistribution = keyDistribution;
+    }
+
+    public KeyDistribution getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    /**
+     * Target operations per second of phases with single operations (e.g. queries), see
+     * {@link OperationPacer#fixedRate(double)}; 0 (default) to run closed-loop. If set, it is stored in a "rate"
+     * column.
+     */
+    public void setOperationRate(int operationRate) {
+        if (operationRate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative");
+        }
+        this.operationRate = operationRate;
+    }
+
+    public int getOperationRate() {
+        return operationRate;
+    }
+
+    /** Trace replayed by {@link TestType#TRACE_REPLAY}, see {@link OperationTrace}. */
+    public void setTraceFile(File traceFile) {
+        if (!traceFile.equals(this.traceFile)) {
+            trace = null;
+        }
+        this.traceFile = traceFile;
+    }
+
+    public File getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * Replay speed of the trace: 1 (default) for its original timing, e.g. 10 to replay 10 times as fast, or 0 to
+     * replay as fast as possible.
+     */
+    public void setTraceSpeed(double traceSpeed) {
+        if (!(traceSpeed >= 0)) {
+            throw new IllegalArgumentException("Trace speed must not be negative");
+        }
+        this.traceSpeed = traceSpeed;
+    }
+
+    public double getTraceSpeed() {
+        return traceSpeed;
+    }
+
+    /**
+     * The trace of {@link #setTraceFile(File)}, read once and kept for following tests.
+     *
+     * @throws IllegalStateException if no trace file was set
+     */
+    public OperationTrace getTrace() {
+        if (traceFile == null) {
+            throw new IllegalStateException("No trace file to replay was set");
+        }
+        if (trace == null) {
+            long startNanos = System.nanoTime();
+            try {
+                trace = OperationTrace.read(traceFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read trace " + traceFile, e);
+            }
+            log("Trace " + trace + ", read in " + (System.nanoTime() - startNanos) / 1000000 + " ms");
+        }
+        return trace;
+    }
+
+    /**
+     * Entities per transaction of {@link TestType#CHUNKED_WRITES}, by default
+     * {@link ChunkedWrites#DEFAULT_CHUNK_SIZES}.
+     *
+     * @throws IllegalArgumentException if there are no sizes or a size is not positive
+     */
+    public void setChunkSizes(int[] chunkSizes) {
+        this.chunkSizes = ChunkedWrites.validate(chunkSizes);
+    }
+
+    public int[] getChunkSizes() {
+        return chunkSizes.clone();
+    }
+
+    /** Search of {@link TestType#BATCH_SIZE_TUNING}, e.g. to change the p99 latency limit. */
+    public void setBatchSizeTuner(BatchSizeTuner batchSizeTuner) {
+        this.batchSizeTuner = batchSizeTuner;
+    }
+
+    public BatchSizeTuner getBatchSizeTuner() {
+        return batchSizeTuner;
+    }
+
+    /** Reader and writer threads of {@link TestType#CONCURRENT_RW}. */
+    public void setConcurrentWorkload(ConcurrentWorkload concurrentWorkload) {
+        this.concurrentWorkload = concurrentWorkload;
+    }
+
+    public ConcurrentWorkload getConcurrentWorkload() {
+        return concurrentWorkload;
+    }
+
+    /** Runners in a separate process pass log output to the parent process instead of writing the log file. */
+    public void setWriteLogFile(boolean writeLogFile) {
+        this.writeLogFile = writeLogFile;
+    }
+
+    /** Formats of the result files written for each test, {@link ResultFormat#TSV} by default. */
+    public void setResultFormats(Set<ResultFormat> resultFormats) {
+        if (resultFormats.isEmpty()) {
+            throw new IllegalArgumentException("At least one result format is required");
+        }
+        this.resultFormats = EnumSet.copyOf(resultFormats);
     }
 
     public void run(final TestType type, final List<PerfTest> tests) {
+        start(() -> {
+            for (PerfTest test : tests) {
+                if (!destroyed) {
+                    try {
+                        PerfTestRunner.this.run(type, test, runs, numberEntities, null, null);
+                    } catch (Exception e) {
+                        logError("Aborted because of " + e.getMessage());
+                        platform.logError("PERF", "Error while running tests", e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs all steps of the plan unattended. In addition to the result files of each test, the results of all steps
+     * are written to consolidated files named after the plan, with columns for database, test type and entities.
+     *
+     * @throws IllegalArgumentException if the factory does not know a database of the plan
+     */
+    public void runPlan(final BenchmarkPlan plan, final BenchmarkPlan.TestFactory testFactory) {
+        for (String database : plan.getDatabases()) {
+            testFactory.createTest(database);
+        }
+        if (plan.getFormats() != null) {
+            setResultFormats(plan.getFormats());
+        }
+        if (plan.getWarmUpController() != null) {
+            setWarmUpController(plan.getWarmUpController());
+        }
+        if (plan.getKeyDistribution() != null) {
+            setKeyDistribution(plan.getKeyDistribution());
+        }
+        if (plan.getRate() > 0) {
+            setOperationRate(plan.getRate());
+        }
+        if (plan.getTraceFile() != null) {
+            setTraceFile(plan.getTraceFile());
+            setTraceSpeed(plan.getTraceSpeed());
+        }
+        if (plan.getChunkSizes() != null) {
+            setChunkSizes(plan.getChunkSizes());
+        }
+        if (plan.getMaxCommitP99Nanos() > 0) {
+            batchSizeTuner.maxP99Nanos(plan.getMaxCommitP99Nanos());
+        }
+        if (plan.getConcurrentWorkload() != null) {
+            setConcurrentWorkload(plan.getConcurrentWorkload());
+        }
+        start(() -> {
+            log("Plan " + plan);
+            String planFileName = plan.getName() + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            List<ResultSink> planSinks = new ArrayList<>();
+            try {
+                openSharedSinks(planFileName, planSinks);
+                int step = 0;
+                for (int entities : plan.getEntityCounts()) {
+                    for (TestType type : plan.getTypes()) {
+                        for (String database : plan.getDatabases()) {
+                            if (destroyed) {
+                                return;
+                            }
+                            step++;
+                            log("\nPlan step " + step + "/" + plan.getStepCount() + ": " + database + ", "
+                                    + type.nameShort + ", " + entities + " entities");
+                            if (!testFactory.supports(database, type)) {
+                                log("Skipped, " + database + " does not support " + type.nameShort);
+                                continue;
+                            }
+                            try {
+                                PerfTest test = testFactory.createTest(database);
+                                run(type, test, plan.getRuns(), entities, planSinks, database);
+                            } catch (Exception e) {
+                                logError("Plan step " + step + " aborted because of " + e.getMessage());
+                                platform.logError("PERF", "Error while running plan step", e);
+                            }
+                        }
+                    }
+                }
+                log("\nPlan done, results: " + planFileName);
+            } catch (IOException e) {
+                logError("Could not open plan result files: " + e.getMessage());
+                platform.logError("PERF", "Could not open plan result files", e);
+            } finally {
+                closeSharedSinks(planSinks);
+            }
+        });
+    }
+
+    /**
+     * Runs the test type for each test at increasing entity counts until the end of the sweep or until its time or
+     * heap budget is hit. Like for plans, results of all sizes are also written to consolidated files; they include
+     * the throughput of each phase.
+     */
+    public void runSweep(final TestType type, final List<PerfTest> tests, final ScalingSweep sweep) {
+        start(() -> {
+            log("Sweep " + type.nameShort + ": " + sweep);
+            String sweepFileName = "sweep-" + type.nameShort + "-"
+                    + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            List<ResultSink> sweepSinks = new ArrayList<>();
+            try {
+                openSharedSinks(sweepFileName, sweepSinks);
+                for (PerfTest test : tests) {
+                    if (destroyed) {
+                        return;
+                    }
+                    sweep(type, test, sweep, sweepSinks);
+                }
+                log("\nSweep done, results: " + sweepFileName);
+            } catch (IOException e) {
+                logError("Could not open sweep result files: " + e.getMessage());
+                platform.logError("PERF", "Could not open sweep result files", e);
+            } finally {
+                closeSharedSinks(sweepSinks);
+            }
+        });
+    }
+
+    private void sweep(TestType type, PerfTest test, ScalingSweep sweep, List<ResultSink> sweepSinks) {
+        long startNanos = System.nanoTime();
+        long lastStepMillis = 0;
+        for (int entities : sweep.getEntityCounts()) {
+            if (destroyed) {
+                return;
+            }
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+            long remainingMillis = sweep.getTimeBudgetMillis() - elapsedMillis;
+            if (lastStepMillis * sweep.getFactor() > remainingMillis) {
+                log("\n" + test.name() + " sweep stopped before " + entities + " entities: would exceed time budget");
+                return;
+            }
+            long stepStartNanos = System.nanoTime();
+            Benchmark benchmark;
+            try {
+                benchmark = run(type, test, sweep.getRuns(), entities, sweepSinks, test.name());
+            } catch (OutOfMemoryError e) {
+                logError(test.name() + " sweep stopped at " + entities + " entities: out of memory");
+                return;
+            } catch (Exception e) {
+                logError(test.name() + " sweep aborted at " + entities + " entities because of " + e.getMessage());
+                platform.logError("PERF", "Error while running sweep", e);
+                return;
+            }
+            lastStepMillis = (System.nanoTime() - stepStartNanos) / 1000000;
+            long maxHeap = benchmark.getMaxProbeValue("heap-bytes");
+            if (maxHeap > sweep.getHeapBudgetBytes()) {
+                log("\n" + test.name() + " sweep stopped after " + entities + " entities: heap of "
+                        + PhaseProbe.formatBytes(maxHeap) + " exceeds budget");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the test type for each test at increasing target rates until a rate is not sustainable, and logs the
+     * maximum sustainable rate of each test. Like for plans, results of all rates are also written to consolidated
+     * files; they include a "rate" column.
+     */
+    public void runRateSweep(final TestType type, final List<PerfTest> tests, final RateSweep sweep) {
+        start(() -> {
+            log("Rate sweep " + type.nameShort + " with " + numberEntities + " entities: " + sweep);
+            String sweepFileName = "rate-sweep-" + type.nameShort + "-"
+                    + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            List<ResultSink> sweepSinks = new ArrayList<>();
+            int previousRate = operationRate;
+            try {
+                openSharedSinks(sweepFileName, sweepSinks);
+                List<String> summary = new ArrayList<>();
+                for (PerfTest test : tests) {
+                    if (destroyed) {
+                        return;
+                    }
+                    int maxRate = rateSweep(type, test, sweep, sweepSinks);
+                    summary.add(test.name() + ": " + (maxRate > 0 ? maxRate + " ops/s" : "none"));
+                }
+                log("\nMax sustainable rates:");
+                for (String line : summary) {
+                    log(line);
+                }
+                log("\nRate sweep done, results: " + sweepFileName);
+            } catch (IOException e) {
+                logError("Could not open sweep result files: " + e.getMessage());
+                platform.logError("PERF", "Could not open sweep result files", e);
+            } finally {
+                operationRate = previousRate;
+                closeSharedSinks(sweepSinks);
+            }
+        });
+    }
+
+    /**
+     * @return the highest sustainable rate, or 0 if not even the start rate is
+     */
+    private int rateSweep(TestType type, PerfTest test, RateSweep sweep, List<ResultSink> sweepSinks) {
+        long baselineP99 = -1;
+        int sustainableRate = 0;
+        for (int rate : sweep.getRates()) {
+            if (destroyed) {
+                break;
+            }
+            operationRate = rate;
+            Benchmark benchmark;
+            try {
+                benchmark = run(type, test, sweep.getRuns(), numberEntities, sweepSinks, test.name());
+            } catch (Exception e) {
+                logError(test.name() + " rate sweep aborted at " + rate + " ops/s because of " + e.getMessage());
+                platform.logError("PERF", "Error while running rate sweep", e);
+                break;
+            }
+            long p99 = benchmark.getMaxOperationLatency("p99");
+            if (p99 < 0) {
+                logError(test.name() + " rate sweep stopped: " + type.nameShort + " has no single operations");
+                break;
+            }
+            if (baselineP99 < 0) {
+                baselineP99 = p99;
+            }
+            String reason = sweep.checkSustainable(rate, p99, benchmark.getMinOperationsPerSecond(), baselineP99);
+            if (reason != null) {
+                log("\n" + test.name() + " rate sweep stopped at " + rate + " ops/s: " + reason);
+                break;
+            }
+            sustainableRate = rate;
+        }
+        log("\n" + test.name() + " max sustainable rate: "
+                + (sustainableRate > 0 ? sustainableRate + " ops/s" : "below start rate"));
+        return sustainableRate;
+    }
+
+    /** Opens sinks for results of multiple tests, e.g. of a plan, in all result formats. */
+    private void openSharedSinks(String fileName, List<ResultSink> sinks) throws IOException {
+        for (ResultFormat format : resultFormats) {
+            sinks.add(format.createSink(getResultsDirectory(), fileName));
+        }
+    }
+
+    private void closeSharedSinks(List<ResultSink> sinks) {
+        for (ResultSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                platform.logError("PERF", "Could not close result file", e);
+            }
+        }
+    }
+
+    private void start(Runnable tests) {
         if (running) {
             throw new IllegalStateException("Already running");
         }
         running = true;
+        logPipeline.start();
         Thread thread = new Thread(() -> {
             try {
-                for (PerfTest test : tests) {
-                    if (!destroyed) {
-                        try {
-                            PerfTestRunner.this.run(type, test);
-                        } catch (Exception e) {
-                            logError("Aborted because of " + e.getMessage());
-                            Log.e("PERF", "Error while running tests", e);
-                        }
-                    }
+                log("Settle policy: " + settlePolicy);
+                log("Warm-up: " + warmUpController);
+                if (!keyDistribution.isUniform()) {
+                    log("Key distribution: " + keyDistribution);
+                }
+                if (operationRate > 0) {
+                    log("Operation rate: " + operationRate + " ops/s (latency from intended start)");
                 }
+                tests.run();
             } finally {
+                logPipeline.close();
+                closeLogFile();
                 running = false;
                 callback.done();
             }
@@ -103,96 +521,257 @@ public class PerfTestRunner {
         log(text, true);
     }
 
-    private void log(final String text, final boolean error) {
-        Log.d("PERF", text);
-        final CountDownLatch joinLatch = new CountDownLatch(1);
-        activity.runOnUiThread(() -> {
-            if (error) {
-                Spannable errorSpan = new SpannableString(text.concat("\n"));
-                errorSpan.setSpan(new ForegroundColorSpan(Color.RED), 0, errorSpan.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                textViewResults.append(errorSpan);
-            } else {
-                textViewResults.append(text.concat("\n"));
+    protected void log(String text, boolean error) {
+        logPipeline.publish(text, error);
+    }
+
+    /**
+     * Called on the log thread with log lines in the order they were logged.
+     */
+    protected abstract void writeLog(List<LogPipeline.Event> events);
+
+    private void writeEvents(List<LogPipeline.Event> events) {
+        writeLog(events);
+        if (writeLogFile) {
+            writeLogFile(events);
+        }
+    }
+
+    private void writeLogFile(List<LogPipeline.Event> events) {
+        try {
+            if (logFileWriter == null) {
+                File file = new File(getResultsDirectory(), LOG_FILE_NAME);
+                logFileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                        Charset.forName("UTF-8")));
             }
-            // post so just appended text is visible
-            if (scrollViewResults != null) {
-                textViewResults.post(() -> scrollViewResults.fullScroll(ScrollView.FOCUS_DOWN));
+            for (LogPipeline.Event event : events) {
+                logFileWriter.write(event.text);
+                logFileWriter.write('\n');
             }
-            textViewResults.postDelayed(joinLatch::countDown, 20);
-        });
-        try {
-            boolean ok = joinLatch.await(10, TimeUnit.SECONDS);
-            if (!ok) {
-                throw new RuntimeException("Not joined");
+            logFileWriter.flush();
+        } catch (IOException e) {
+            platform.logError("PERF", "Could not write log file", e);
+        }
+    }
+
+    private void closeLogFile() {
+        if (logFileWriter != null) {
+            try {
+                logFileWriter.close();
+            } catch (IOException e) {
+                platform.logError("PERF", "Could not close log file", e);
             }
-            // Give UI time to settle (> 1 frame)
-            Thread.sleep(20);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            logFileWriter = null;
         }
     }
 
-    private void run(TestType type, PerfTest test) {
+    /**
+     * Called by tests right before a phase starts: waits for pending log output according to the
+     * {@link SettlePolicy}. The runtime is settled by {@link Benchmark#start(String)}.
+     */
+    public void prepareForPhase() {
+        if (settlePolicy.isAwaitLogDrained()) {
+            if (!logPipeline.awaitDrained(settlePolicy.getAwaitLogTimeoutMillis())) {
+                platform.logDebug("PERF", "Log output not drained before phase");
+            }
+        }
+    }
+
+    /**
+     * @param planSinks if not null, results are also written to these sinks (not closed by the benchmark)
+     *                  including the throughput of each phase
+     * @param database name of the database in the plan, added as a column if planSinks is set
+     * @return the closed benchmark, e.g. to check values reported by probes
+     */
+    private Benchmark run(TestType type, PerfTest test, int runs, int numberEntities, List<ResultSink> planSinks,
+                          String database) {
         printDeviceInfo();
 
         test.setNumberEntities(numberEntities);
+        test.setKeyDistribution(keyDistribution);
+        test.setOperationPacer(operationRate > 0
+                ? OperationPacer.fixedRate(operationRate)
+                : OperationPacer.closedLoop());
         Benchmark benchmark = createBenchmark(type, test, numberEntities);
+        if (planSinks != null) {
+            benchmark.addFixedColumn("db", database)
+                    .addFixedColumn("type", type.nameShort)
+                    .addFixedColumn("entities", Integer.toString(numberEntities))
+                    .enableThroughput();
+            for (ResultSink sink : planSinks) {
+                benchmark.addSink(new SharedSink(sink));
+            }
+        }
         test.setBenchmark(benchmark);
-        log("\nStarting tests with " + numberEntities + " entities at " + new Date());
-        for (int i = 1; i <= runs; i++) {
-            log("\n" + test.name() + " " + type + " (" + i + "/" + runs + ")\n" +
-                    "------------------------------");
-            test.setUp(activity, this);
-
-            RuntimeException exDuringRun = null;
-            try {
-                test.run(type);
-            } catch (RuntimeException ex) {
-                exDuringRun = ex;
+        try {
+            log("\nStarting tests with " + numberEntities + " entities at " + new Date());
+            checksumScope = checksumScope(type, numberEntities);
+            if (test.runAll(this, type, runs, warmUpController)) {
+                return benchmark;
             }
-
-            RuntimeException exDuringTearDown = null;
-            try {
-                test.tearDown();
-            } catch (RuntimeException ex) {
-                exDuringTearDown = ex;
+            if (!keyDistribution.isUniform()) {
+                benchmark.addFixedColumn("keys", keyDistribution.toString());
             }
-            if (exDuringRun != null) {
-                throw exDuringRun;
-            } else if (exDuringTearDown != null) {
-                throw exDuringTearDown;
+            if (operationRate > 0) {
+                benchmark.addFixedColumn("rate", Integer.toString(operationRate));
             }
-            benchmark.commit();
-            if (destroyed) {
-                break;
+            if (TestType.TRACE_REPLAY.equals(type.name)) {
+                benchmark.addFixedColumn("trace", traceFile != null ? traceFile.getName() : "")
+                        .addFixedColumn("trace-speed", Double.toString(traceSpeed));
             }
+            if (TestType.CONCURRENT_RW.equals(type.name)) {
+                benchmark.addFixedColumn("readers", Integer.toString(concurrentWorkload.getReaders()))
+                        .addFixedColumn("writers", Integer.toString(concurrentWorkload.getWriters()))
+                        .addFixedColumn("duration-ms", Long.toString(concurrentWorkload.getDurationMillis()));
+            }
+            int warmUpRuns = warmUp(type, test, benchmark);
+            benchmark.addFixedColumn("warm-up-runs", Integer.toString(warmUpRuns));
+            for (int i = 1; i <= runs && !destroyed; i++) {
+                log("\n" + test.name() + " " + type + " (" + i + "/" + runs + ")\n" +
+                        "------------------------------");
+                runOnce(type, test, benchmark);
+            }
+        } finally {
+            benchmark.close();
         }
         test.allTestsComplete();
         log("\nTests done at " + new Date());
+        return benchmark;
     }
 
-    private void printDeviceInfo() {
-        log("Model: " + Build.MANUFACTURER + " " + Build.MODEL
-                + ", Android " + Build.VERSION.RELEASE);
+    /**
+     * Repeats runs until the {@link WarmUpController} reports a steady state; their results are not written.
+     *
+     * @return the number of warm-up runs
+     */
+    private int warmUp(TestType type, PerfTest test, Benchmark benchmark) {
+        if (!warmUpController.isEnabled()) {
+            return 0;
+        }
+        warmUpController.reset();
+        benchmark.warmUp(true);
+        try {
+            boolean done = false;
+            while (!done && !destroyed) {
+                log("\n" + test.name() + " " + type + " (warm-up " + (warmUpController.getRuns() + 1) + ")\n" +
+                        "------------------------------");
+                runOnce(type, test, benchmark);
+                done = warmUpController.addRun(benchmark.getLastRunTimeNanos());
+            }
+        } finally {
+            benchmark.warmUp(false);
+        }
+        log("\n" + test.name() + " warm-up: " + warmUpController.describeResult());
+        return warmUpController.getRuns();
+    }
+
+    private void runOnce(TestType type, PerfTest test, Benchmark benchmark) {
+        checksumScope = checksumScope(type, test.numberEntities);
+        test.setUp(this);
+
+        RuntimeException exDuringRun = null;
+        try {
+            test.run(type);
+        } catch (RuntimeException ex) {
+            exDuringRun = ex;
+        }
 
-        ActivityManager activityManager =
-                (ActivityManager) activity.getSystemService(Activity.ACTIVITY_SERVICE);
-        int memoryClassMb = activityManager.getMemoryClass();
-        int largeMemoryClassMb = activityManager.getLargeMemoryClass();
-        log("MemoryClass: " + memoryClassMb + " MB");
-        log("LargeMemoryClass: " + largeMemoryClassMb + " MB");
+        RuntimeException exDuringTearDown = null;
+        try {
+            test.tearDown();
+        } catch (RuntimeException ex) {
+            exDuringTearDown = ex;
+        }
+        if (exDuringRun != null) {
+            throw exDuringRun;
+        } else if (exDuringTearDown != null) {
+            throw exDuringTearDown;
+        }
+        benchmark.commit();
     }
 
+    private String checksumScope(TestType type, int numberEntities) {
+        return type.nameShort + ", " + numberEntities + " entities, keys: " + keyDistribution;
+    }
+
+    /**
+     * Commits the results of a run in another process (see {@link IsolatedPerfTest}) and checks the checksum of each
+     * phase that read values like for runs in this process, see {@link #verifyChecksum(String, String, String)}.
+     */
+    public void commitIsolatedRow(Benchmark benchmark, String testName, String[] keys, String[] values) {
+        for (int i = 0; i < keys.length && i < values.length; i++) {
+            if (keys[i].endsWith(CHECKSUM_SUFFIX)) {
+                verifyChecksum(testName, keys[i].substring(0, keys[i].length() - CHECKSUM_SUFFIX.length()),
+                        values[i]);
+            }
+        }
+        benchmark.commitRow(keys, values);
+    }
+
+    /**
+     * Checks that the values read by a phase have the same checksum (see {@link ValueChecksum}) as when the phase
+     * first ran with the same test type, entity count and key distribution, regardless of the database. Logs an
+     * error if not, e.g. if a database did not return all values it was expected to.
+     */
+    synchronized void verifyChecksum(String testName, String phase, String checksum) {
+        String key = checksumScope + ", " + phase;
+        String[] first = checksums.get(key);
+        if (first == null) {
+            checksums.put(key, new String[]{checksum, testName});
+        } else if (!first[0].equals(checksum)) {
+            logError("Checksum of " + phase + " values read by " + testName + " (" + checksumScope + "): "
+                    + checksum + ", but " + first[1] + " read " + first[0]);
+        }
+    }
+
+    protected abstract void printDeviceInfo();
+
+    /** Directory the result files are written to. */
+    protected abstract File getResultsDirectory();
+
     protected Benchmark createBenchmark(TestType type, PerfTest test, int numberEntities) {
-        String name = test.name() + "-" + type.nameShort + "-" + numberEntities + ".tsv";
-        File dir = Environment.getExternalStorageDirectory();
-        File file = new File(dir, name);
-        if (dir == null || !dir.canWrite()) {
-            File appFile = new File(activity.getFilesDir(), name);
-            Log.i("PERF", "Using file " + appFile.getAbsolutePath() + " because " + file.getAbsolutePath() +
-                    " is not writable - please grant the storage permission to the app");
-            file = appFile;
-        }
-        return new Benchmark(file);
+        String name = test.name() + "-" + type.nameShort + "-" + numberEntities;
+        Benchmark benchmark = new Benchmark(platform).settlePolicy(settlePolicy).numberEntities(numberEntities);
+        // Added first, so it is stopped last and its work is not counted by other probes
+        benchmark.addProbe(new MemoryProbe(platform, test));
+        benchmark.addProbe(new ProcIoProbe(platform));
+        for (PhaseProbe probe : platform.createPhaseProbes()) {
+            benchmark.addProbe(probe);
+        }
+        try {
+            addResultSinks(benchmark, name);
+        } catch (IOException e) {
+            benchmark.close();
+            throw new RuntimeException("Could not open result file for " + name, e);
+        }
+        return benchmark;
+    }
+
+    /**
+     * Adds a result file for each result format. Overridden by runners in a separate process to pass results to the
+     * parent process instead, see {@link IsolatedPerfTest}.
+     */
+    protected void addResultSinks(Benchmark benchmark, String name) throws IOException {
+        for (ResultFormat format : resultFormats) {
+            benchmark.addSink(format.createSink(getResultsDirectory(), name));
+        }
+    }
+
+    /** Passes results on to a sink used by multiple benchmarks, but does not close it. */
+    private static class SharedSink implements ResultSink {
+        private final ResultSink sink;
+
+        SharedSink(ResultSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(String[] keys, String[] values) throws IOException {
+            sink.write(keys, values);
+        }
+
+        @Override
+        public void close() {
+        }
     }
 }
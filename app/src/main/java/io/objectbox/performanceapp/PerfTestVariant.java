@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A database in a specific configuration that can be tested, see {@link PerfTestProvider}.
+ */
+public class PerfTestVariant {
+
+    /** Creates a new test for each run of the variant. */
+    public interface Factory {
+        PerfTest create();
+    }
+
+    private final String id;
+    private final String name;
+    private final Factory factory;
+    private List<String> supportedTypes;
+
+    /**
+     * @param id   unique name used to select the variant, e.g. in plans or on the command line; "objectbox"
+     * @param name name to display, should match {@link PerfTest#name()} of created tests
+     */
+    public PerfTestVariant(String id, String name, Factory factory) {
+        this.id = id;
+        this.name = name;
+        this.factory = factory;
+    }
+
+    /**
+     * Limits the test types of this variant to the given {@link TestType#name}s. By default all types are supported.
+     */
+    public PerfTestVariant supportedTypes(String... typeNames) {
+        this.supportedTypes = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(typeNames)));
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean supports(TestType type) {
+        return supportedTypes == null || supportedTypes.contains(type.name);
+    }
+
+    public PerfTest createTest() {
+        return factory.create();
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+
+/**
+ * Measures something in addition to time for each phase of a {@link Benchmark}, e.g. allocations or garbage
+ * collection. Probes are created by the {@link Platform}, see {@link Platform#createPhaseProbes()}.
+ * <p>
+ * {@link #start()} is called right before and {@link #stop(int, Values)} right after the time of a phase is taken,
+ * so the work done by probes is not part of the measured time.
+ */
+public interface PhaseProbe {
+
+    /** Receives the values of a phase; each is stored in a column named "phase-suffix". */
+    interface Values {
+        void add(String suffix, long value);
+    }
+
+    void start();
+
+    /**
+     * Called instead of {@link #start()} for a phase running on other threads than the calling one, e.g. the readers
+     * and writers of {@link TestType#CONCURRENT_RW}. Values of only the calling thread (like its allocations) would
+     * miss the work of the phase, so probes leave them out; process-wide values are measured as usual.
+     */
+    default void startMultiThreaded() {
+        start();
+    }
+
+    /**
+     * @param numberEntities the number of entities of the test, e.g. to log a value per entity
+     * @return text to append to the log line of the phase (starting with ", "), or null
+     */
+    String stop(int numberEntities, Values values);
+
+    /** Formats a byte count for log output, e.g. "1.5 MB". */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        } else {
+            return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024));
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+/**
+ * The measured phases of a {@link PerfTest} as seen by workload drivers, e.g.
+ * {@link ConcurrentWorkload#run(ConcurrentWorkload.Operations, PhaseRunner, KeyDistribution, Dataset, int)}. Drivers
+ * run the operations and return their results; the test stores them in columns.
+ */
+public interface PhaseRunner {
+
+    /**
+     * Starts a phase of the given name, see {@link Benchmark#start(String, boolean)}.
+     *
+     * @param multiThreaded the phase runs on other threads than the calling one
+     */
+    void startPhase(String name, boolean multiThreaded);
+
+    void stopPhase();
+
+    /**
+     * Call right before a single operation of the current phase; at a fixed rate, waits until it is due.
+     *
+     * @return start time to pass to {@link #recordOperation(long)}
+     */
+    long startOperation();
+
+    /** Records the latency of a single operation of the current phase. */
+    void recordOperation(long startNanos);
+
+    void log(String text);
+
+}
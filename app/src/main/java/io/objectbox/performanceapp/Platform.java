@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Functionality that differs between running on an Android device and running on a plain JVM.
+ * Keeps {@link Benchmark}, {@link PerfTest} and {@link PerfTestRunner} free of Android dependencies.
+ */
+public interface Platform {
+
+    /** Describes the device or host, e.g. the Android device model. */
+    String deviceName();
+
+    /** CPU time used by the current thread in milliseconds. */
+    long currentThreadTimeMillis();
+
+    /** Directory tests may create their database files in. */
+    File getDatabaseDirectory();
+
+    /** Directory to keep {@link Dataset} files in, so they can be reused by later runs. */
+    File getDatasetDirectory();
+
+    /** Bytes allocated on the native heap of the process, or -1 if not available. */
+    long nativeHeapAllocatedBytes();
+
+    /** Probes measuring each phase in addition to time, e.g. allocations; a new list for each benchmark. */
+    List<PhaseProbe> createPhaseProbes();
+
+    void logDebug(String tag, String message);
+
+    void logError(String tag, String message, Throwable throwable);
+
+}
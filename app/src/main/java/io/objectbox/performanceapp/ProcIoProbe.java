@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the I/O counters of the process from /proc/self/io (Linux and Android) before and after each phase, to see
+ * how many bytes are actually written to storage per entity (write amplification).
+ * <p>
+ * The counters are for the whole process, so log output written during a phase is included, see
+ * {@link SettlePolicy#awaitLogDrained(boolean, long)}. If the file can not be read (e.g. not Linux or restricted
+ * by the kernel), the probe does nothing.
+ */
+public class ProcIoProbe implements PhaseProbe {
+
+    private static final File PROC_SELF_IO = new File("/proc/self/io");
+
+    private static final int READ_BYTES = 0;
+    private static final int WRITE_BYTES = 1;
+    private static final int SYSCR = 2;
+    private static final int SYSCW = 3;
+    private static final String[] KEYS = {"read_bytes", "write_bytes", "syscr", "syscw"};
+
+    private final long[] startValues = new long[KEYS.length];
+    private final long[] stopValues = new long[KEYS.length];
+    private boolean available;
+
+    public ProcIoProbe(Platform platform) {
+        available = read(startValues);
+        if (!available) {
+            platform.logDebug("PERF", "I/O counters not available, " + PROC_SELF_IO + " can not be read");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (available) {
+            available = read(startValues);
+        }
+    }
+
+    @Override
+    public String stop(int numberEntities, Values values) {
+        if (!available || !read(stopValues)) {
+            available = false;
+            return null;
+        }
+        long readBytes = stopValues[READ_BYTES] - startValues[READ_BYTES];
+        long writeBytes = stopValues[WRITE_BYTES] - startValues[WRITE_BYTES];
+        long readCalls = stopValues[SYSCR] - startValues[SYSCR];
+        long writeCalls = stopValues[SYSCW] - startValues[SYSCW];
+        values.add("io-read-bytes", readBytes);
+        values.add("io-write-bytes", writeBytes);
+        values.add("io-read-calls", readCalls);
+        values.add("io-write-calls", writeCalls);
+
+        String log = ", I/O written: " + PhaseProbe.formatBytes(writeBytes);
+        if (numberEntities > 0) {
+            log += " (" + writeBytes / numberEntities + " B/entity)";
+        }
+        return log + ", read: " + PhaseProbe.formatBytes(readBytes)
+                + ", syscalls: " + readCalls + " read/" + writeCalls + " write";
+    }
+
+    private static boolean read(long[] values) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(PROC_SELF_IO),
+                Charset.forName("US-ASCII")))) {
+            int found = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    continue;
+                }
+                String key = line.substring(0, colon);
+                for (int i = 0; i < KEYS.length; i++) {
+                    if (KEYS[i].equals(key)) {
+                        values[i] = Long.parseLong(line.substring(colon + 1).trim());
+                        found++;
+                    }
+                }
+            }
+            return found == KEYS.length;
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+}
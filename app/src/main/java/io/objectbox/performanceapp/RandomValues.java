@@ -68,6 +68,18 @@ public class RandomValues {
         return new String(chars, 0, length);
     }
 
+    /**
+     * Like {@link #createRandomString(Random, int)}, but writes the (ASCII) chars to the given array.
+     */
+    public static void fillRandomChars(Random random, byte[] target, int offset, int length) {
+        for (int i = 0; i < length; ) {
+            int intVal = random.nextInt();
+            for (int shift = 0; shift < 32 && i < length; shift += 8) {
+                target[offset + i++] = (byte) CHARS[((intVal >> shift) & 0xff) % CHARS.length];
+            }
+        }
+    }
+
     /**
      * Creates the same random sequence of indexes. To be used to select strings by {@link
      * #createFixedRandomStrings(int)}.
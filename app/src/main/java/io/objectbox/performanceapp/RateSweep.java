@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a test type at geometrically increasing target rates (e.g. 1k, 2k, 5k, 10k ... ops/s, see
+ * {@link OperationPacer#fixedRate(double)}) to find the maximum sustainable rate of each database, see
+ * {@link PerfTestRunner#runRateSweep(TestType, List, RateSweep)}. A rate is sustainable if every phase with single
+ * operations achieves most of it and its p99 latency stays below a limit; the sweep stops at the first rate that is
+ * not.
+ */
+public class RateSweep {
+
+    private int startRate = 1000;
+    private int maxRate = 1000000;
+    private int stepsPerDecade = 3;
+    private int runs = 1;
+    private double maxLatencyFactor = 10;
+    private long maxP99Nanos = -1;
+    private double minThroughputRatio = 0.9;
+
+    public RateSweep startRate(int startRate) {
+        if (startRate < 1) {
+            throw new IllegalArgumentException("Start rate must be at least 1");
+        }
+        this.startRate = startRate;
+        return this;
+    }
+
+    public RateSweep maxRate(int maxRate) {
+        this.maxRate = maxRate;
+        return this;
+    }
+
+    /** Number of rates per factor of 10, e.g. 3 for 1k, 2k, 5k, 10k. */
+    public RateSweep stepsPerDecade(int stepsPerDecade) {
+        if (stepsPerDecade < 1) {
+            throw new IllegalArgumentException("At least 1 step per decade is required");
+        }
+        this.stepsPerDecade = stepsPerDecade;
+        return this;
+    }
+
+    /** Measured runs at each rate. */
+    public RateSweep runs(int runs) {
+        this.runs = runs;
+        return this;
+    }
+
+    /**
+     * A rate is not sustainable once the p99 latency exceeds this factor times the p99 latency at the start rate
+     * (default: 10). Ignored if {@link #maxP99Nanos(long)} is set.
+     */
+    public RateSweep maxLatencyFactor(double maxLatencyFactor) {
+        this.maxLatencyFactor = maxLatencyFactor;
+        return this;
+    }
+
+    /** Fixed p99 latency limit instead of {@link #maxLatencyFactor(double)}; -1 to not use one (default). */
+    public RateSweep maxP99Nanos(long maxP99Nanos) {
+        this.maxP99Nanos = maxP99Nanos;
+        return this;
+    }
+
+    /** A rate is not sustainable if a phase achieves less than this fraction of it (default: 0.9). */
+    public RateSweep minThroughputRatio(double minThroughputRatio) {
+        this.minThroughputRatio = minThroughputRatio;
+        return this;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    /** Target rates from start to max, rounded to one (up to 3 steps per decade) or two significant digits. */
+    public int[] getRates() {
+        int significantDigits = stepsPerDecade <= 3 ? 1 : 2;
+        List<Integer> rates = new ArrayList<>();
+        for (int step = 0; ; step++) {
+            double exact = startRate * Math.pow(10, (double) step / stepsPerDecade);
+            long rate = ScalingSweep.roundToSignificantDigits(exact, significantDigits);
+            if (rate > maxRate) {
+                break;
+            }
+            if (rates.isEmpty() || rates.get(rates.size() - 1) != rate) {
+                rates.add((int) rate);
+            }
+        }
+        int[] array = new int[rates.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = rates.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Why the given results are not sustainable at the target rate, or null if they are.
+     *
+     * @param baselineP99Nanos p99 latency at the start rate
+     */
+    public String checkSustainable(int rate, long p99Nanos, long opsPerSecond, long baselineP99Nanos) {
+        if (opsPerSecond < rate * minThroughputRatio) {
+            return "achieved only " + opsPerSecond + " ops/s";
+        }
+        long limit = maxP99Nanos >= 0 ? maxP99Nanos : Math.round(baselineP99Nanos * maxLatencyFactor);
+        if (p99Nanos > limit) {
+            return String.format(Locale.US, "p99 of %.1f us exceeds %.1f us", p99Nanos / 1000.0, limit / 1000.0);
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        String latencyLimit = maxP99Nanos >= 0
+                ? String.format(Locale.US, "p99 up to %.1f us", maxP99Nanos / 1000.0)
+                : String.format(Locale.US, "p99 up to %.1fx of start rate", maxLatencyFactor);
+        return String.format(Locale.US, "%d to %d ops/s, %d steps per decade, %d run(s), %s, "
+                        + "throughput at least %.0f %%",
+                startRate, maxRate, stepsPerDecade, runs, latencyLimit, minThroughputRatio * 100);
+    }
+}
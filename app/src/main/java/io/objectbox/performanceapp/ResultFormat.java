@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.File;
+import java.io.IOException;
+
+public enum ResultFormat {
+    /** Tab-separated values, easy to paste into a spreadsheet. */
+    TSV("tsv"),
+    CSV("csv"),
+    /** One JSON object per run and line. */
+    JSON_LINES("jsonl");
+
+    public final String extension;
+
+    ResultFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public ResultSink createSink(File directory, String baseName) throws IOException {
+        File file = new File(directory, baseName + "." + extension);
+        switch (this) {
+            case TSV:
+                return new DelimitedResultSink(file, '\t');
+            case CSV:
+                return new DelimitedResultSink(file, ',');
+            case JSON_LINES:
+                return new JsonLinesResultSink(file);
+            default:
+                throw new IllegalArgumentException("Unsupported format " + this);
+        }
+    }
+
+    /**
+     * Returns the format for the given file extension, e.g. "tsv".
+     */
+    public static ResultFormat forExtension(String extension) {
+        for (ResultFormat format : values()) {
+            if (format.extension.equals(extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown result format " + extension);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the results of each run of a {@link Benchmark}, see {@link ResultFormat} for available sinks.
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     * Writes the results of a single run.
+     *
+     * @param keys column names, may change between runs
+     * @param values values of the columns, same length as keys
+     */
+    void write(String[] keys, String[] values) throws IOException;
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a test type at geometrically increasing entity counts (e.g. 1k, 3k, 10k, ... 10M) until a time or heap
+ * budget is hit, see {@link PerfTestRunner#runSweep(TestType, List, ScalingSweep)}. Results include the throughput
+ * of each phase, which shows at what size the throughput of a database drops.
+ */
+public class ScalingSweep {
+
+    private int startEntities = 1000;
+    private int maxEntities = 10000000;
+    private int stepsPerDecade = 2;
+    private int runs = 1;
+    private long timeBudgetMillis = 10 * 60 * 1000;
+    private long heapBudgetBytes = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+
+    public ScalingSweep startEntities(int startEntities) {
+        this.startEntities = startEntities;
+        return this;
+    }
+
+    public ScalingSweep maxEntities(int maxEntities) {
+        this.maxEntities = maxEntities;
+        return this;
+    }
+
+    /** Number of sizes per factor of 10, e.g. 2 for 1k, 3k, 10k, 30k or 3 for 1k, 2k, 5k, 10k. */
+    public ScalingSweep stepsPerDecade(int stepsPerDecade) {
+        if (stepsPerDecade < 1) {
+            throw new IllegalArgumentException("At least 1 step per decade is required");
+        }
+        this.stepsPerDecade = stepsPerDecade;
+        return this;
+    }
+
+    /** Measured runs at each size. */
+    public ScalingSweep runs(int runs) {
+        this.runs = runs;
+        return this;
+    }
+
+    /**
+     * Time for all sizes of one database. The sweep stops before a size that, judging from the previous size, would
+     * not finish within the remaining time.
+     */
+    public ScalingSweep timeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    /**
+     * Maximum Java heap used at the end of any phase (default: 80 % of the max heap). The sweep stops once a size
+     * exceeds it, as larger sizes would likely run out of memory.
+     */
+    public ScalingSweep heapBudgetBytes(long heapBudgetBytes) {
+        this.heapBudgetBytes = heapBudgetBytes;
+        return this;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public long getHeapBudgetBytes() {
+        return heapBudgetBytes;
+    }
+
+    /** Growth factor from one size to the next. */
+    public double getFactor() {
+        return Math.pow(10, 1.0 / stepsPerDecade);
+    }
+
+    /** Entity counts from start to max, rounded to one (up to 3 steps per decade) or two significant digits. */
+    public int[] getEntityCounts() {
+        int significantDigits = stepsPerDecade <= 3 ? 1 : 2;
+        List<Integer> counts = new ArrayList<>();
+        for (int step = 0; ; step++) {
+            double exact = startEntities * Math.pow(10, (double) step / stepsPerDecade);
+            long count = roundToSignificantDigits(exact, significantDigits);
+            if (count > maxEntities) {
+                break;
+            }
+            if (counts.isEmpty() || counts.get(counts.size() - 1) != count) {
+                counts.add((int) count);
+            }
+        }
+        int[] array = new int[counts.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = counts.get(i);
+        }
+        return array;
+    }
+
+    static long roundToSignificantDigits(double value, int digits) {
+        double scale = Math.pow(10, Math.floor(Math.log10(value)) - digits + 1);
+        return Math.max(1, Math.round(Math.round(value / scale) * scale));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d to %d entities, %d steps per decade, %d run(s), budget: %d s, heap %d MB",
+                startEntities, maxEntities, stepsPerDecade, runs, timeBudgetMillis / 1000,
+                heapBudgetBytes / (1024 * 1024));
+    }
+}
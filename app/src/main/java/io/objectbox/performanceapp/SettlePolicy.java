@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+/**
+ * Defines what happens before each measured phase to reduce noise from previous work, e.g. garbage collection
+ * or log output that is still being processed.
+ */
+public class SettlePolicy {
+
+    private int gcRounds = 5;
+    private long pauseMillis = 20;
+    private boolean awaitLogDrained = true;
+    private long awaitLogTimeoutMillis = 10000;
+
+    /** How often to run GC and finalization before a phase. */
+    public SettlePolicy gcRounds(int gcRounds) {
+        this.gcRounds = gcRounds;
+        return this;
+    }
+
+    /** Sleep after each GC round. */
+    public SettlePolicy pauseMillis(long pauseMillis) {
+        this.pauseMillis = pauseMillis;
+        return this;
+    }
+
+    /**
+     * If pending log output (e.g. updating the UI) should be processed before a phase starts, so it does not run
+     * concurrently to it.
+     */
+    public SettlePolicy awaitLogDrained(boolean awaitLogDrained, long timeoutMillis) {
+        this.awaitLogDrained = awaitLogDrained;
+        this.awaitLogTimeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    public boolean isAwaitLogDrained() {
+        return awaitLogDrained;
+    }
+
+    public long getAwaitLogTimeoutMillis() {
+        return awaitLogTimeoutMillis;
+    }
+
+    /**
+     * Try to give GC & finalization some time to settle down.
+     */
+    public void settleRuntime() {
+        for (int i = 0; i < gcRounds; i++) {
+            System.gc();
+            System.runFinalization();
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GC rounds: " + gcRounds + ", pause: " + pauseMillis + " ms, await log: " + awaitLogDrained;
+    }
+}
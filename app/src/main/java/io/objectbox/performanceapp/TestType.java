@@ -29,6 +29,19 @@ public class TestType {
     public static final String QUERY_INTEGER_INDEXED = "Query by integer - indexed";
     public static final String QUERY_ID = "Query by ID";
     public static final String QUERY_ID_RANDOM = "Query by ID - random";
+    public static final String QUERY_ID_SINGLE = "Query by ID - single gets";
+    public static final String QUERY_ID_BATCH = "Query by ID - batch gets";
+    public static final String YCSB_A = "YCSB A - update heavy";
+    public static final String YCSB_B = "YCSB B - read mostly";
+    public static final String YCSB_C = "YCSB C - read only";
+    public static final String YCSB_D = "YCSB D - read latest";
+    public static final String YCSB_E = "YCSB E - short ranges";
+    public static final String YCSB_F = "YCSB F - read-modify-write";
+    public static final String TRACE_REPLAY = "Replay operation trace";
+    public static final String CHUNKED_WRITES = "Bulk writes in chunks";
+    public static final String BATCH_SIZE_TUNING = "Batch size tuning";
+    public static final String BATCH_SIZE_TUNING_SCALARS = "Batch size tuning - scalars";
+    public static final String CONCURRENT_RW = "Concurrent reads and writes";
 
     public static TestType[] ALL = {
             new TestType(CRUD, "crud"),
@@ -40,6 +53,19 @@ public class TestType {
             new TestType(QUERY_INTEGER_INDEXED, "query-integer-indexed"),
             new TestType(QUERY_ID, "query-id"),
             new TestType(QUERY_ID_RANDOM, "query-id-random"),
+            new TestType(QUERY_ID_SINGLE, "query-id-single"),
+            new TestType(QUERY_ID_BATCH, "query-id-batch"),
+            new TestType(YCSB_A, "ycsb-a"),
+            new TestType(YCSB_B, "ycsb-b"),
+            new TestType(YCSB_C, "ycsb-c"),
+            new TestType(YCSB_D, "ycsb-d"),
+            new TestType(YCSB_E, "ycsb-e"),
+            new TestType(YCSB_F, "ycsb-f"),
+            new TestType(TRACE_REPLAY, "trace-replay"),
+            new TestType(CHUNKED_WRITES, "chunked-writes"),
+            new TestType(BATCH_SIZE_TUNING, "batch-size-tuning"),
+            new TestType(BATCH_SIZE_TUNING_SCALARS, "batch-size-tuning-scalars"),
+            new TestType(CONCURRENT_RW, "concurrent-rw"),
     };
 
     public final String name;
@@ -50,6 +76,18 @@ public class TestType {
         this.nameShort = nameShort;
     }
 
+    /**
+     * @throws IllegalArgumentException if there is no type with the given short name
+     */
+    public static TestType forNameShort(String nameShort) {
+        for (TestType type : ALL) {
+            if (type.nameShort.equals(nameShort)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown test type " + nameShort);
+    }
+
     @Override
     public String toString() {
         return name;
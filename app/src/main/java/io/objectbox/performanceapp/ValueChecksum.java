@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Consumes the values read by tests, so the work of reading them can not be eliminated by the compiler (ART or the
+ * JIT) as dead code, like a JMH {@code Blackhole}: all properties of each entity are folded into a checksum which is
+ * written to the results. It also shows that lazy databases actually loaded the values.
+ * <p>
+ * The checksum does not depend on the order entities are read in or on their IDs (ObjectBox assigns its own), so the
+ * same data read by different databases has the same checksum, see {@link PerfTestRunner#verifyChecksum}.
+ */
+public class ValueChecksum {
+
+    private long sum;
+    private long entityCount;
+    /** IDs are consumed, but not part of the checksum. */
+    private long idSink;
+    /** Written, so consuming values has an effect that can not be eliminated. */
+    private static volatile long sink;
+
+    public void reset() {
+        sum = 0;
+        entityCount = 0;
+        idSink = 0;
+    }
+
+    /** Adds an entity with the properties of SimpleEntity. */
+    public void add(long id, boolean simpleBoolean, byte simpleByte, short simpleShort, int simpleInt,
+                    long simpleLong, float simpleFloat, double simpleDouble, String simpleString,
+                    byte[] simpleByteArray) {
+        idSink += id;
+        long hash = simpleBoolean ? 1 : 0;
+        hash = hash * 31 + simpleByte;
+        hash = hash * 31 + simpleShort;
+        hash = hash * 31 + simpleInt;
+        hash = hash * 31 + simpleLong;
+        hash = hash * 31 + Float.floatToIntBits(simpleFloat);
+        hash = hash * 31 + Double.doubleToLongBits(simpleDouble);
+        hash = hash * 31 + (simpleString != null ? simpleString.hashCode() : 0);
+        hash = hash * 31 + (simpleByteArray != null ? Arrays.hashCode(simpleByteArray) : 0);
+        // Mix bits before adding, so entities with swapped values do not cancel out
+        sum += mix(hash);
+        entityCount++;
+    }
+
+    /** Finalizer of MurmurHash3 (fmix64). */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public long getEntityCount() {
+        return entityCount;
+    }
+
+    /** Checksum of the entities added since the last reset, e.g. "3f2a9c01d4e5b678/1000" (value/entity count). */
+    public String getValue() {
+        sink = sum ^ idSink;
+        return String.format(Locale.US, "%016x/%d", sum, entityCount);
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
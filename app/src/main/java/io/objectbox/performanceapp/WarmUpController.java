@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+
+/**
+ * Decides how many warm-up runs are needed before results are measured: runs are repeated until the coefficient of
+ * variation (standard deviation / mean) of the total time of the last {@link #window(int)} runs is below
+ * {@link #maxVariation(double)}, or {@link #maxRuns(int)} is reached.
+ * <p>
+ * This avoids mixing runs that are slowed down by JIT/ART compilation or cold caches into the results.
+ */
+public class WarmUpController {
+
+    private int window = 3;
+    private double maxVariation = 0.05;
+    private int maxRuns = 10;
+
+    private long[] runTimes;
+    private int runs;
+    private boolean steady;
+    private double variation = Double.NaN;
+
+    /** Number of most recent runs to check for a steady state. */
+    public WarmUpController window(int window) {
+        if (window < 2) {
+            throw new IllegalArgumentException("Window must be at least 2");
+        }
+        this.window = window;
+        return this;
+    }
+
+    /** Maximum coefficient of variation of the window to be considered steady, e.g. 0.05 for 5 %. */
+    public WarmUpController maxVariation(double maxVariation) {
+        this.maxVariation = maxVariation;
+        return this;
+    }
+
+    /** Maximum number of warm-up runs; 0 disables warm-up. */
+    public WarmUpController maxRuns(int maxRuns) {
+        this.maxRuns = maxRuns;
+        return this;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public double getMaxVariation() {
+        return maxVariation;
+    }
+
+    public int getMaxRuns() {
+        return maxRuns;
+    }
+
+    public boolean isEnabled() {
+        return maxRuns > 0;
+    }
+
+    /** Starts a new warm-up, e.g. for the next database. */
+    public void reset() {
+        runTimes = new long[window];
+        runs = 0;
+        steady = false;
+        variation = Double.NaN;
+    }
+
+    /**
+     * Adds the total time of a warm-up run.
+     *
+     * @return true if warm-up is complete, either because a steady state was reached or because of
+     * {@link #maxRuns(int)}.
+     */
+    public boolean addRun(long runTimeNanos) {
+        runTimes[runs % window] = runTimeNanos;
+        runs++;
+        if (runs >= window) {
+            variation = coefficientOfVariation();
+            steady = variation <= maxVariation;
+        }
+        return steady || runs >= maxRuns;
+    }
+
+    private double coefficientOfVariation() {
+        double sum = 0;
+        for (long time : runTimes) {
+            sum += time;
+        }
+        double mean = sum / window;
+        if (mean == 0) {
+            return 0;
+        }
+        double squares = 0;
+        for (long time : runTimes) {
+            squares += (time - mean) * (time - mean);
+        }
+        return Math.sqrt(squares / (window - 1)) / mean;
+    }
+
+    /** Number of warm-up runs since the last {@link #reset()}. */
+    public int getRuns() {
+        return runs;
+    }
+
+    public boolean isSteady() {
+        return steady;
+    }
+
+    /** Coefficient of variation of the last window, NaN if there were not enough runs. */
+    public double getVariation() {
+        return variation;
+    }
+
+    public String describeResult() {
+        String cv = Double.isNaN(variation) ? "n/a" : String.format(Locale.US, "%.1f %%", variation * 100);
+        if (steady) {
+            return "steady after " + runs + " runs (CV " + cv + ")";
+        } else {
+            return "no steady state after " + runs + " runs (CV " + cv + "), measuring anyway";
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "disabled";
+        }
+        return String.format(Locale.US, "CV <= %.1f %% over %d runs, max %d runs", maxVariation * 100, window,
+                maxRuns);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Mixes of single entity operations like the core workloads A to F of YCSB (Yahoo! Cloud Serving Benchmark). Unlike
+ * the CRUD test types, operations are interleaved and each one runs in its own transaction, which shows transaction
+ * overhead and the cost of keeping pages and indexes up to date while reading.
+ * <p>
+ * Like YCSB, a run has a load phase that inserts all entities in one batch and a run phase of single operations; see
+ * {@link #run(Operations, PhaseRunner, Random, KeyDistribution, int)}.
+ */
+public class YcsbWorkload {
+
+    /** Longest range of {@link #E}, lengths are uniform between 1 and this (like YCSB). */
+    public static final int MAX_SCAN_LENGTH = 100;
+
+    public static final YcsbWorkload A = new YcsbWorkload("A", "zipfian").read(0.5).update(0.5);
+    public static final YcsbWorkload B = new YcsbWorkload("B", "zipfian").read(0.95).update(0.05);
+    public static final YcsbWorkload C = new YcsbWorkload("C", "zipfian").read(1);
+    public static final YcsbWorkload D = new YcsbWorkload("D", "latest").read(0.95).insert(0.05);
+    public static final YcsbWorkload E = new YcsbWorkload("E", "zipfian").scan(0.95).insert(0.05);
+    public static final YcsbWorkload F = new YcsbWorkload("F", "zipfian").read(0.5).readModifyWrite(0.5);
+
+    public enum Operation {
+        READ, UPDATE, INSERT, SCAN, READ_MODIFY_WRITE;
+
+        /** Lower case name as used in logs, e.g. "read-modify-write". */
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.US).replace('_', '-');
+        }
+    }
+
+    /**
+     * Single entity operations of a database on SimpleEntity. Keys are 0 to count - 1 in insert order; databases
+     * assigning IDs themselves map them, e.g. to key + 1.
+     */
+    public interface Operations {
+        /** Gets the entity and accesses all properties; false if it does not exist. */
+        boolean read(int key);
+
+        /** Replaces the values of the existing entity with the values of the given dataset row. */
+        void update(int key, int row);
+
+        /** Puts a new entity with the values of the given dataset row; key is the current number of entities. */
+        void insert(int key, int row);
+
+        /** Gets up to count entities with a key of at least startKey in key order and accesses all properties. */
+        int scan(int startKey, int count);
+    }
+
+    /** Operations of a run phase, computed up front so random numbers are not part of the measured time. */
+    public static class Schedule {
+        public final Operation[] operations;
+        /** Key of each operation; for inserts the key of the new entity. */
+        public final int[] keys;
+        /** Dataset row to write for updates and inserts, the number of entities to get for scans. */
+        public final int[] arguments;
+
+        Schedule(int operationCount) {
+            operations = new Operation[operationCount];
+            keys = new int[operationCount];
+            arguments = new int[operationCount];
+        }
+    }
+
+    /** Operations done by a run phase. */
+    public static class Result {
+        /** Count of each {@link Operation}, by ordinal. */
+        public final int[] operationCounts = new int[Operation.values().length];
+        /** Reads of entities that were not found. */
+        public long notFound;
+        /** Entities got by scans. */
+        public long scanned;
+
+        /** Counts for log output, e.g. "Operations: read=500 update=500". */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Operations:");
+            for (Operation operation : Operation.values()) {
+                if (operationCounts[operation.ordinal()] > 0) {
+                    text.append(' ').append(operation).append('=').append(operationCounts[operation.ordinal()]);
+                }
+            }
+            if (scanned > 0) {
+                text.append(", entities scanned: ").append(scanned);
+            }
+            return text.toString();
+        }
+    }
+
+    private final String name;
+    private final String keyDistribution;
+    private final double[] proportions = new double[Operation.values().length];
+
+    private YcsbWorkload(String name, String keyDistribution) {
+        this.name = name;
+        this.keyDistribution = keyDistribution;
+    }
+
+    private YcsbWorkload read(double proportion) {
+        proportions[Operation.READ.ordinal()] = proportion;
+        return this;
+    }
+
+    private YcsbWorkload update(double proportion) {
+        proportions[Operation.UPDATE.ordinal()] = proportion;
+        return this;
+    }
+
+    private YcsbWorkload insert(double proportion) {
+        proportions[Operation.INSERT.ordinal()] = proportion;
+        return this;
+    }
+
+    private YcsbWorkload scan(double proportion) {
+        proportions[Operation.SCAN.ordinal()] = proportion;
+        return this;
+    }
+
+    private YcsbWorkload readModifyWrite(double proportion) {
+        proportions[Operation.READ_MODIFY_WRITE.ordinal()] = proportion;
+        return this;
+    }
+
+    /** The workload of a YCSB test type, or null if the type is no YCSB workload. */
+    public static YcsbWorkload forType(TestType type) {
+        switch (type.name) {
+            case TestType.YCSB_A:
+                return A;
+            case TestType.YCSB_B:
+                return B;
+            case TestType.YCSB_C:
+                return C;
+            case TestType.YCSB_D:
+                return D;
+            case TestType.YCSB_E:
+                return E;
+            case TestType.YCSB_F:
+                return F;
+            default:
+                return null;
+        }
+    }
+
+    /** New instance of the key distribution YCSB uses for this workload ("zipfian" or "latest"). */
+    public KeyDistribution createKeyDistribution() {
+        return KeyDistribution.forName(keyDistribution);
+    }
+
+    /**
+     * Picks operations, keys and values for a run phase. Inserts increase the number of keys for the following
+     * operations, so with the "latest" distribution reads prefer recently inserted entities.
+     *
+     * @param entityCount number of entities inserted by the load phase, also the number of dataset rows
+     */
+    public Schedule schedule(Random random, KeyDistribution keys, int entityCount, int operationCount) {
+        Schedule schedule = new Schedule(operationCount);
+        Operation[] operations = Operation.values();
+        int count = entityCount;
+        for (int i = 0; i < operationCount; i++) {
+            Operation operation = chooseOperation(random.nextDouble(), operations);
+            schedule.operations[i] = operation;
+            switch (operation) {
+                case INSERT:
+                    schedule.keys[i] = count++;
+                    schedule.arguments[i] = random.nextInt(entityCount);
+                    break;
+                case SCAN:
+                    schedule.keys[i] = keys.nextKey(random, count);
+                    schedule.arguments[i] = 1 + random.nextInt(MAX_SCAN_LENGTH);
+                    break;
+                case UPDATE:
+                case READ_MODIFY_WRITE:
+                    schedule.keys[i] = keys.nextKey(random, count);
+                    schedule.arguments[i] = random.nextInt(entityCount);
+                    break;
+                default:
+                    schedule.keys[i] = keys.nextKey(random, count);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Run phase of the workload: entityCount single operations (see
+     * {@link #schedule(Random, KeyDistribution, int, int)}) on the entities inserted before, each one measured.
+     */
+    public Result run(Operations operations, PhaseRunner phases, Random random, KeyDistribution keys,
+                      int entityCount) {
+        Schedule schedule = schedule(random, keys, entityCount, entityCount);
+        Result result = new Result();
+        phases.startPhase("run", false);
+        for (int i = 0; i < schedule.operations.length; i++) {
+            Operation operation = schedule.operations[i];
+            int key = schedule.keys[i];
+            long start = phases.startOperation();
+            switch (operation) {
+                case READ:
+                    if (!operations.read(key)) {
+                        result.notFound++;
+                    }
+                    break;
+                case UPDATE:
+                    operations.update(key, schedule.arguments[i]);
+                    break;
+                case INSERT:
+                    operations.insert(key, schedule.arguments[i]);
+                    break;
+                case SCAN:
+                    result.scanned += operations.scan(key, schedule.arguments[i]);
+                    break;
+                case READ_MODIFY_WRITE:
+                    if (!operations.read(key)) {
+                        result.notFound++;
+                    }
+                    operations.update(key, schedule.arguments[i]);
+                    break;
+            }
+            phases.recordOperation(start);
+            result.operationCounts[operation.ordinal()]++;
+        }
+        phases.stopPhase();
+        return result;
+    }
+
+    private Operation chooseOperation(double value, Operation[] operations) {
+        double sum = 0;
+        for (Operation operation : operations) {
+            sum += proportions[operation.ordinal()];
+            if (value < sum) {
+                return operation;
+            }
+        }
+        // Rounding errors of the proportions: use the last operation that has one
+        for (int i = operations.length - 1; i >= 0; i--) {
+            if (proportions[i] > 0) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("No operations");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("YCSB ").append(name).append(" (");
+        for (Operation operation : Operation.values()) {
+            double proportion = proportions[operation.ordinal()];
+            if (proportion > 0) {
+                if (text.charAt(text.length() - 1) != '(') {
+                    text.append(", ");
+                }
+                text.append(operation).append(' ').append(Math.round(proportion * 100)).append(" %");
+            }
+        }
+        return text.append(", ").append(keyDistribution).append(')').toString();
+    }
+}
@@ -16,7 +16,6 @@
 
 package io.objectbox.performanceapp.greendao;
 
-import android.content.Context;
 import android.database.Cursor;
 
 import org.greenrobot.greendao.database.Database;
@@ -26,13 +25,18 @@ import org.greenrobot.greendao.query.Query;
 import java.util.ArrayList;
 import java.util.List;
 
-import io.objectbox.performanceapp.PerfTest;
+import io.objectbox.performanceapp.AndroidPerfTest;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.OperationTrace;
 import io.objectbox.performanceapp.PerfTestRunner;
 import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.ValueChecksum;
+import io.objectbox.performanceapp.YcsbWorkload;
 import io.objectbox.performanceapp.greendao.DaoMaster.DevOpenHelper;
 import io.objectbox.performanceapp.greendao.SimpleEntityIndexedDao.Properties;
 
-public class GreendaoPerfTest extends PerfTest {
+public class GreendaoPerfTest extends AndroidPerfTest {
     public static final String DB_NAME = "sqlite-greendao";
 
     private Database db;
@@ -47,8 +51,8 @@ public class GreendaoPerfTest extends PerfTest {
         return "greenDAO";
     }
 
-    public void setUp(Context context, PerfTestRunner testRunner) {
-        super.setUp(context, testRunner);
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
         boolean deleted = context.deleteDatabase(DB_NAME);
         if (deleted) {
             log("DB existed before start - deleted");
@@ -97,23 +101,52 @@ public class GreendaoPerfTest extends PerfTest {
             case TestType.QUERY_ID_RANDOM:
                 runQueryById(true);
                 break;
+            case TestType.QUERY_ID_SINGLE:
+                runQueryByIds(false);
+                break;
+            case TestType.QUERY_ID_BATCH:
+                runQueryByIds(true);
+                break;
+            case TestType.YCSB_A:
+            case TestType.YCSB_B:
+            case TestType.YCSB_C:
+            case TestType.YCSB_D:
+            case TestType.YCSB_E:
+            case TestType.YCSB_F:
+                runYcsb(YcsbWorkload.forType(type));
+                break;
+            case TestType.TRACE_REPLAY:
+                runTraceReplay();
+                break;
+            case TestType.CHUNKED_WRITES:
+                runChunkedWrites(chunkedWrites(false));
+                break;
+            case TestType.BATCH_SIZE_TUNING:
+                tuneBatchSize(chunkedWrites(false), "all properties");
+                break;
+            case TestType.BATCH_SIZE_TUNING_SCALARS:
+                tuneBatchSize(chunkedWrites(true), "scalars");
+                break;
+            case TestType.CONCURRENT_RW:
+                runConcurrent();
+                break;
         }
     }
 
     public void runBatchPerfTest(boolean scalarsOnly) {
         List<SimpleEntity> list = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            list.add(createEntity((long) i, scalarsOnly));
+            list.add(createEntity(i, scalarsOnly));
         }
         startBenchmark("insert");
         dao.insertInTx(list);
         stopBenchmark();
 
-        for (SimpleEntity entity : list) {
+        for (int i = 0; i < list.size(); i++) {
             if (scalarsOnly) {
-                setRandomScalars(entity);
+                setScalars(list.get(i), updateRow(i));
             } else {
-                setRandomValues(entity);
+                setValues(list.get(i), updateRow(i));
             }
         }
         startBenchmark("update");
@@ -135,61 +168,52 @@ public class GreendaoPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntity entity) {
-        setRandomScalars(entity);
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntity entity, int row) {
+        setScalars(entity, row);
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    private void setRandomScalars(SimpleEntity entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
+    private void setScalars(SimpleEntity entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
     }
 
-    public SimpleEntity createEntity(Long key, boolean scalarsOnly) {
+    public SimpleEntity createEntity(int row, boolean scalarsOnly) {
         SimpleEntity entity = new SimpleEntity();
-        if (key != null) {
-            entity.setId(key);
-        }
+        entity.setId((long) row);
         if (scalarsOnly) {
-            setRandomScalars(entity);
+            setScalars(entity, row);
         } else {
-            setRandomValues(entity);
+            setValues(entity, row);
         }
         return entity;
     }
 
     protected void accessAll(List<SimpleEntity> list) {
         for (SimpleEntity entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
     public void runBatchPerfTestIndexed() {
         List<SimpleEntityIndexed> list = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            list.add(createEntityIndexed((long) i));
+            list.add(createEntityIndexed(i));
         }
         startBenchmark("insert");
         daoIndexed.insertInTx(list);
         stopBenchmark();
 
-        for (SimpleEntityIndexed entity : list) {
-            setRandomValues(entity);
+        for (int i = 0; i < list.size(); i++) {
+            setValues(list.get(i), updateRow(i));
         }
         startBenchmark("update");
         daoIndexed.updateInTx(list);
@@ -210,39 +234,30 @@ public class GreendaoPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntityIndexed entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntityIndexed entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    public SimpleEntityIndexed createEntityIndexed(Long key) {
+    public SimpleEntityIndexed createEntityIndexed(int row) {
         SimpleEntityIndexed entity = new SimpleEntityIndexed();
-        if (key != null) {
-            entity.setId(key);
-        }
-        setRandomValues(entity);
+        entity.setId((long) row);
+        setValues(entity, row);
         return entity;
     }
 
     protected void accessAllIndexed(List<SimpleEntityIndexed> list) {
         for (SimpleEntityIndexed entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
@@ -253,7 +268,7 @@ public class GreendaoPerfTest extends PerfTest {
         }
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -264,7 +279,7 @@ public class GreendaoPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -274,9 +289,11 @@ public class GreendaoPerfTest extends PerfTest {
         Query<SimpleEntity> query = dao.queryBuilder().where(SimpleEntityDao.Properties.SimpleString.eq(null)).build();
         db.beginTransaction();
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             query.setParameter(0, stringsToLookup[i]);
             List<SimpleEntity> result = query.list();
             accessAll(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         db.endTransaction();
@@ -287,7 +304,7 @@ public class GreendaoPerfTest extends PerfTest {
     private void runQueryByStringIndexed() {
         List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntityIndexed((long) i));
+            entities.add(createEntityIndexed(i));
         }
 
         startBenchmark("insert");
@@ -298,7 +315,7 @@ public class GreendaoPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -308,9 +325,11 @@ public class GreendaoPerfTest extends PerfTest {
         Query<SimpleEntityIndexed> query = daoIndexed.queryBuilder().where(Properties.SimpleString.eq(null)).build();
         db.beginTransaction();
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             query.setParameter(0, stringsToLookup[i]);
             List<SimpleEntityIndexed> result = query.list();
             accessAllIndexed(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         db.endTransaction();
@@ -321,7 +340,7 @@ public class GreendaoPerfTest extends PerfTest {
     private void runQueryById(boolean randomIds) {
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -332,28 +351,287 @@ public class GreendaoPerfTest extends PerfTest {
 
         long[] idsToLookup = new long[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            idsToLookup[i] = randomIds ? random.nextInt(numberEntities) : i;
+            idsToLookup[i] = randomIds ? nextKey() : i;
         }
 
         startBenchmark("query");
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             SimpleEntity entity = dao.load(idsToLookup[i]);
             accessAll(entity);
+            recordOperation(start);
+        }
+        stopBenchmark();
+    }
+
+    /** Looks up each entity once by ID, with a get per ID or batch gets of {@link #ID_BATCH_SIZE} IDs. */
+    private void runQueryByIds(boolean batch) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        dao.insertInTx(entities);
+        stopBenchmark();
+
+        assertEntityCount(dao.count());
+
+        long[] idsToLookup = shuffledIds(0);
+        if (!batch) {
+            startBenchmark("query");
+            for (long id : idsToLookup) {
+                long start = startOperation();
+                accessAll(dao.load(id));
+                recordOperation(start);
+            }
+            stopBenchmark();
+            return;
+        }
+
+        long[][] idBatches = toIdBatches(idsToLookup);
+        Long[][] batches = new Long[idBatches.length][];
+        for (int i = 0; i < batches.length; i++) {
+            batches[i] = new Long[idBatches[i].length];
+            for (int j = 0; j < batches[i].length; j++) {
+                batches[i][j] = idBatches[i][j];
+            }
+        }
+        long entitiesFound = 0;
+        startBenchmark("query");
+        for (int i = 0; i < batches.length; i++) {
+            long start = startOperation();
+            List<SimpleEntity> result = dao.queryBuilder()
+                    .where(SimpleEntityDao.Properties.Id.in((Object[]) batches[i]))
+                    .list();
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
+        }
+        stopBenchmark();
+        assertEntityCount(entitiesFound);
+    }
+
+    private ChunkedWrites.Operations chunkedWrites(final boolean scalarsOnly) {
+        final List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        return new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+                entities.clear();
+                for (int i = 0; i < numberEntities; i++) {
+                    entities.add(createEntity(i, scalarsOnly));
+                }
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                dao.insertInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void prepareUpdate() {
+                for (int i = 0; i < entities.size(); i++) {
+                    if (scalarsOnly) {
+                        setScalars(entities.get(i), updateRow(i));
+                    } else {
+                        setValues(entities.get(i), updateRow(i));
+                    }
+                }
+            }
+
+            @Override
+            public void update(int from, int to) {
+                dao.updateInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void deleteAll() {
+                assertEntityCount(dao.count());
+                dao.deleteAll();
+            }
+        };
+    }
+
+    private void runConcurrent() {
+        List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntityIndexed(i));
         }
+
+        startBenchmark("insert");
+        daoIndexed.insertInTx(entities);
         stopBenchmark();
+        //noinspection UnusedAssignment
+        entities = null;
+
+        final Query<SimpleEntityIndexed> query = daoIndexed.queryBuilder()
+                .where(Properties.SimpleInt.eq(0))
+                .build();
+        runConcurrent(new ConcurrentWorkload.Operations() {
+            @Override
+            public ConcurrentWorkload.Reader openReader(final ValueChecksum values) {
+                // Queries may only be used by the thread that created them
+                final Query<SimpleEntityIndexed> threadQuery = query.forCurrentThread();
+                return new ConcurrentWorkload.Reader() {
+                    @Override
+                    public boolean get(int key) {
+                        SimpleEntityIndexed entity = daoIndexed.load((long) key);
+                        if (entity == null) {
+                            return false;
+                        }
+                        accessAll(values, entity);
+                        return true;
+                    }
+
+                    @Override
+                    public int query(int value) {
+                        threadQuery.setParameter(0, value);
+                        List<SimpleEntityIndexed> results = threadQuery.list();
+                        for (SimpleEntityIndexed entity : results) {
+                            accessAll(values, entity);
+                        }
+                        return results.size();
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+
+            @Override
+            public ConcurrentWorkload.Writer openWriter() {
+                return new ConcurrentWorkload.Writer() {
+                    @Override
+                    public void insert(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        daoIndexed.insert(entity);
+                    }
+
+                    @Override
+                    public void update(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        daoIndexed.update(entity);
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        });
+    }
+
+    private void runTraceReplay() {
+        final Query<SimpleEntity> query = dao.queryBuilder()
+                .where(SimpleEntityDao.Properties.SimpleInt.eq(0))
+                .build();
+        runTrace(new OperationTrace.Operations() {
+            @Override
+            public void put(int key, int row, byte[] payload) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                entity.setSimpleByteArray(payload);
+                dao.insertOrReplace(entity);
+            }
+
+            @Override
+            public boolean get(int key) {
+                SimpleEntity entity = dao.load((long) key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public int query(int value) {
+                query.setParameter(0, value);
+                List<SimpleEntity> result = query.list();
+                accessAll(result);
+                return result.size();
+            }
+
+            @Override
+            public void remove(int key) {
+                dao.deleteByKey((long) key);
+            }
+        });
     }
 
     private void accessAll(SimpleEntity entity) {
-        entity.getId();
-        entity.getSimpleBoolean();
-        entity.getSimpleByte();
-        entity.getSimpleShort();
-        entity.getSimpleInt();
-        entity.getSimpleLong();
-        entity.getSimpleFloat();
-        entity.getSimpleDouble();
-        entity.getSimpleString();
-        entity.getSimpleByteArray();
+        checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    private static void accessAll(ValueChecksum values, SimpleEntityIndexed entity) {
+        values.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    private void runYcsb(YcsbWorkload workload) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        dao.insertInTx(entities);
+        stopBenchmark();
+
+        assertEntityCount(dao.count());
+        //noinspection UnusedAssignment
+        entities = null;
+
+        Query<SimpleEntity> scanQuery = dao.queryBuilder()
+                .where(SimpleEntityDao.Properties.Id.ge(0))
+                .orderAsc(SimpleEntityDao.Properties.Id)
+                .limit(1)
+                .build();
+        runWorkload(workload, new YcsbWorkload.Operations() {
+            @Override
+            public boolean read(int key) {
+                SimpleEntity entity = dao.load((long) key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public void update(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.update(entity);
+            }
+
+            @Override
+            public void insert(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.insert(entity);
+            }
+
+            @Override
+            public int scan(int startKey, int count) {
+                scanQuery.setParameter(0, startKey);
+                scanQuery.setLimit(count);
+                List<SimpleEntity> result = scanQuery.list();
+                accessAll(result);
+                return result.size();
+            }
+        });
+    }
+
+    @Override
+    public long getDatabaseSizeOnDisk() {
+        return sqliteDatabaseSize(DB_NAME);
     }
 
     @Override
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.greendao;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.objectbox.performanceapp.PerfTestProvider;
+import io.objectbox.performanceapp.PerfTestVariant;
+import io.objectbox.performanceapp.TestType;
+
+public class GreendaoPerfTestProvider implements PerfTestProvider {
+
+    @Override
+    public List<PerfTestVariant> getVariants() {
+        return Collections.singletonList(
+                new PerfTestVariant("greendao", "greenDAO", GreendaoPerfTest::new).supportedTypes(
+                        TestType.CRUD, TestType.CRUD_SCALARS, TestType.CRUD_INDEXED,
+                        TestType.QUERY_STRING, TestType.QUERY_STRING_INDEXED,
+                        TestType.QUERY_ID, TestType.QUERY_ID_RANDOM,
+                        TestType.QUERY_ID_SINGLE, TestType.QUERY_ID_BATCH,
+                        TestType.YCSB_A, TestType.YCSB_B, TestType.YCSB_C,
+                        TestType.YCSB_D, TestType.YCSB_E, TestType.YCSB_F,
+                        TestType.TRACE_REPLAY, TestType.CHUNKED_WRITES,
+                        TestType.BATCH_SIZE_TUNING, TestType.BATCH_SIZE_TUNING_SCALARS,
+                        TestType.CONCURRENT_RW)
+        );
+    }
+
+}
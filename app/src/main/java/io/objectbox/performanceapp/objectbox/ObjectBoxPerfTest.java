@@ -16,39 +16,56 @@
 
 package io.objectbox.performanceapp.objectbox;
 
-import android.content.Context;
-
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 import io.objectbox.Box;
 import io.objectbox.BoxStore;
+import io.objectbox.BoxStoreBuilder;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.OperationTrace;
 import io.objectbox.performanceapp.PerfTest;
 import io.objectbox.performanceapp.PerfTestRunner;
 import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.ValueChecksum;
+import io.objectbox.performanceapp.YcsbWorkload;
 import io.objectbox.query.Query;
 
 import static io.objectbox.query.QueryBuilder.StringOrder.CASE_SENSITIVE;
 
 public class ObjectBoxPerfTest extends PerfTest {
+    private final boolean inMemory;
     private BoxStore store;
 
     private boolean versionLoggedOnce;
     private Box<SimpleEntity> box;
     private Box<SimpleEntityIndexed> boxIndexed;
 
+    public ObjectBoxPerfTest() {
+        this(false);
+    }
+
+    /**
+     * @param inMemory if true, keeps the database in memory instead of writing files
+     */
+    public ObjectBoxPerfTest(boolean inMemory) {
+        this.inMemory = inMemory;
+    }
+
     @Override
     public String name() {
-        return "ObjectBox";
+        return inMemory ? "ObjectBox in-memory" : "ObjectBox";
     }
 
-    public void setUp(Context context, PerfTestRunner testRunner) {
-        super.setUp(context, testRunner);
-        store = MyObjectBox.builder().androidContext(context).build();
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
+        store = storeBuilder().build();
         store.close();
         store.deleteAllFiles();
         // 2 GB for DB to allow putting millions of objects
-        store = MyObjectBox.builder().androidContext(context).maxSizeInKByte(2 * 1024 * 1024).build();
+        store = storeBuilder().maxSizeInKByte(2 * 1024 * 1024).build();
         box = store.boxFor(SimpleEntity.class);
         boxIndexed = store.boxFor(SimpleEntityIndexed.class);
 
@@ -64,6 +81,15 @@ public class ObjectBoxPerfTest extends PerfTest {
         }
     }
 
+    private BoxStoreBuilder storeBuilder() {
+        if (inMemory) {
+            return MyObjectBox.builder().inMemory("objectbox-perf");
+        }
+        // Same directory as androidContext() would use, but also works on a plain JVM
+        File baseDirectory = new File(testRunner.getPlatform().getDatabaseDirectory(), "objectbox");
+        return MyObjectBox.builder().baseDirectory(baseDirectory);
+    }
+
     @Override
     public void run(TestType type) {
         switch (type.name) {
@@ -94,17 +120,46 @@ public class ObjectBoxPerfTest extends PerfTest {
             case TestType.QUERY_ID_RANDOM:
                 runQueryById(true);
                 break;
+            case TestType.QUERY_ID_SINGLE:
+                runQueryByIds(false);
+                break;
+            case TestType.QUERY_ID_BATCH:
+                runQueryByIds(true);
+                break;
+            case TestType.YCSB_A:
+            case TestType.YCSB_B:
+            case TestType.YCSB_C:
+            case TestType.YCSB_D:
+            case TestType.YCSB_E:
+            case TestType.YCSB_F:
+                runYcsb(YcsbWorkload.forType(type));
+                break;
+            case TestType.TRACE_REPLAY:
+                runTraceReplay();
+                break;
+            case TestType.CHUNKED_WRITES:
+                runChunkedWrites(chunkedWrites(false));
+                break;
+            case TestType.BATCH_SIZE_TUNING:
+                tuneBatchSize(chunkedWrites(false), "all properties");
+                break;
+            case TestType.BATCH_SIZE_TUNING_SCALARS:
+                tuneBatchSize(chunkedWrites(true), "scalars");
+                break;
+            case TestType.CONCURRENT_RW:
+                runConcurrent();
+                break;
         }
     }
 
     public void runBatchPerfTest(boolean scalarsOnly) {
         List<SimpleEntity> list = prepareAndPutEntities(scalarsOnly);
 
-        for (SimpleEntity entity : list) {
+        for (int i = 0; i < list.size(); i++) {
             if (scalarsOnly) {
-                setRandomScalars(entity);
+                setScalars(list.get(i), updateRow(i));
             } else {
-                setRandomValues(entity);
+                setValues(list.get(i), updateRow(i));
             }
         }
         startBenchmark("update");
@@ -129,53 +184,45 @@ public class ObjectBoxPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntity entity) {
-        setRandomScalars(entity);
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntity entity, int row) {
+        setScalars(entity, row);
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    private void setRandomScalars(SimpleEntity entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
+    private void setScalars(SimpleEntity entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
     }
 
-    public SimpleEntity createEntity(boolean scalarsOnly) {
+    public SimpleEntity createEntity(int row, boolean scalarsOnly) {
         SimpleEntity entity = new SimpleEntity();
         if (scalarsOnly) {
-            setRandomScalars(entity);
+            setScalars(entity, row);
         } else {
-            setRandomValues(entity);
+            setValues(entity, row);
         }
         return entity;
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     protected void accessAll(List<SimpleEntity> list) {
         for (SimpleEntity entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
     public void runBatchPerfTestIndexed() {
         List<SimpleEntityIndexed> list = prepareAndPutEntitiesIndexed();
 
-        for (SimpleEntityIndexed entity : list) {
-            setRandomValues(entity);
+        for (int i = 0; i < list.size(); i++) {
+            setValues(list.get(i), updateRow(i));
         }
         startBenchmark("update");
         boxIndexed.put(list);
@@ -197,37 +244,29 @@ public class ObjectBoxPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntityIndexed entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntityIndexed entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    public SimpleEntityIndexed createEntityIndexed() {
+    public SimpleEntityIndexed createEntityIndexed(int row) {
         SimpleEntityIndexed entity = new SimpleEntityIndexed();
-        setRandomValues(entity);
+        setValues(entity, row);
         return entity;
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     protected void accessAllIndexed(List<SimpleEntityIndexed> list) {
         for (SimpleEntityIndexed entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
@@ -242,7 +281,7 @@ public class ObjectBoxPerfTest extends PerfTest {
         for (int i = 0; i < stringsToLookup.length; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -256,9 +295,11 @@ public class ObjectBoxPerfTest extends PerfTest {
                         .alias("string")
         ).build()) {
             for (int i = 0; i < stringsToLookup.length; i++) {
+                long start = startOperation();
                 query.setParameter("string", stringsToLookup[i]);
                 List<SimpleEntity> result = query.find();
                 accessAll(result);
+                recordOperation(start);
                 entitiesFound += result.size();
             }
         }
@@ -274,7 +315,7 @@ public class ObjectBoxPerfTest extends PerfTest {
         List<SimpleEntity> entities = prepareAndPutEntities(false);
         final int[] valuesToLookup = new int[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            valuesToLookup[i] = entities.get(random.nextInt(numberEntities)).getSimpleInt();
+            valuesToLookup[i] = entities.get(nextKey()).getSimpleInt();
         }
 
         startBenchmark("query");
@@ -285,9 +326,11 @@ public class ObjectBoxPerfTest extends PerfTest {
                         .alias("int")
         ).build()) {
             for (int i = 0; i < numberEntities; i++) {
+                long start = startOperation();
                 query.setParameter("int", valuesToLookup[i]);
                 List<SimpleEntity> result = query.find();
                 accessAll(result);
+                recordOperation(start);
                 entitiesFound += result.size();
             }
         }
@@ -299,7 +342,7 @@ public class ObjectBoxPerfTest extends PerfTest {
     private List<SimpleEntity> prepareAndPutEntities(boolean scalarsOnly) {
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity(scalarsOnly));
+            entities.add(createEntity(i, scalarsOnly));
         }
         log("Prepared test data: " + numberEntities + " objects");
 
@@ -318,7 +361,7 @@ public class ObjectBoxPerfTest extends PerfTest {
         for (int i = 0; i < stringsToLookup.length; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -331,9 +374,11 @@ public class ObjectBoxPerfTest extends PerfTest {
                         .alias("string")
         ).build()) {
             for (int i = 0; i < stringsToLookup.length; i++) {
+                long start = startOperation();
                 query.setParameter("string", stringsToLookup[i]);
                 List<SimpleEntityIndexed> result = query.find();
                 accessAllIndexed(result);
+                recordOperation(start);
                 entitiesFound += result.size();
             }
         }
@@ -346,7 +391,7 @@ public class ObjectBoxPerfTest extends PerfTest {
         List<SimpleEntityIndexed> entities = prepareAndPutEntitiesIndexed();
         final int[] valuesToLookup = new int[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            valuesToLookup[i] = entities.get(random.nextInt(numberEntities)).getSimpleInt();
+            valuesToLookup[i] = entities.get(nextKey()).getSimpleInt();
         }
 
         startBenchmark("query");
@@ -357,9 +402,11 @@ public class ObjectBoxPerfTest extends PerfTest {
                         .alias("int")
         ).build()) {
             for (int i = 0; i < numberEntities; i++) {
+                long start = startOperation();
                 query.setParameter("int", valuesToLookup[i]);
                 List<SimpleEntityIndexed> result = query.find();
                 accessAllIndexed(result);
+                recordOperation(start);
                 entitiesFound += result.size();
             }
         }
@@ -371,7 +418,7 @@ public class ObjectBoxPerfTest extends PerfTest {
     private List<SimpleEntityIndexed> prepareAndPutEntitiesIndexed() {
         List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntityIndexed());
+            entities.add(createEntityIndexed(i));
         }
 
         startBenchmark("insert");
@@ -388,7 +435,7 @@ public class ObjectBoxPerfTest extends PerfTest {
 
         final long[] idsToLookup = new long[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            idsToLookup[i] = randomIds ? 1 + random.nextInt(numberEntities) : 1 + i;
+            idsToLookup[i] = randomIds ? 1 + nextKey() : 1 + i;
         }
 
         benchmark("query", () -> {
@@ -401,6 +448,248 @@ public class ObjectBoxPerfTest extends PerfTest {
         });
     }
 
+    /** Looks up each entity once by ID, with a get per ID or batch gets of {@link #ID_BATCH_SIZE} IDs. */
+    private void runQueryByIds(boolean batch) {
+        prepareAndPutEntities(false);
+
+        // IDs are assigned by ObjectBox starting at 1
+        long[] idsToLookup = shuffledIds(1);
+        if (!batch) {
+            startBenchmark("query");
+            for (long id : idsToLookup) {
+                long start = startOperation();
+                accessAll(box.get(id));
+                recordOperation(start);
+            }
+            stopBenchmark();
+            return;
+        }
+
+        long[][] batches = toIdBatches(idsToLookup);
+        long entitiesFound = 0;
+        startBenchmark("query");
+        for (int i = 0; i < batches.length; i++) {
+            long start = startOperation();
+            List<SimpleEntity> result = box.get(batches[i]);
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
+        }
+        stopBenchmark();
+        assertEntityCount(entitiesFound);
+    }
+
+    private ChunkedWrites.Operations chunkedWrites(final boolean scalarsOnly) {
+        final List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        return new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+                entities.clear();
+                for (int i = 0; i < numberEntities; i++) {
+                    entities.add(createEntity(i, scalarsOnly));
+                }
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                box.put(entities.subList(from, to));
+            }
+
+            @Override
+            public void prepareUpdate() {
+                for (int i = 0; i < entities.size(); i++) {
+                    if (scalarsOnly) {
+                        setScalars(entities.get(i), updateRow(i));
+                    } else {
+                        setValues(entities.get(i), updateRow(i));
+                    }
+                }
+            }
+
+            @Override
+            public void update(int from, int to) {
+                box.put(entities.subList(from, to));
+            }
+
+            @Override
+            public void deleteAll() {
+                assertEntityCount(box.count());
+                box.removeAll();
+            }
+        };
+    }
+
+    private void runConcurrent() {
+        prepareAndPutEntitiesIndexed();
+
+        // IDs are assigned by ObjectBox starting at 1, so key 0 has ID 1
+        runConcurrent(new ConcurrentWorkload.Operations() {
+            @Override
+            public ConcurrentWorkload.Reader openReader(final ValueChecksum values) {
+                // Queries must not be shared by threads
+                final Query<SimpleEntityIndexed> query = boxIndexed.query(
+                        SimpleEntityIndexed_.simpleInt
+                                .equal(0)
+                                .alias("int")
+                ).build();
+                return new ConcurrentWorkload.Reader() {
+                    @Override
+                    public boolean get(int key) {
+                        SimpleEntityIndexed entity = boxIndexed.get(key + 1);
+                        if (entity == null) {
+                            return false;
+                        }
+                        accessAll(values, entity);
+                        return true;
+                    }
+
+                    @Override
+                    public int query(int value) {
+                        query.setParameter("int", value);
+                        List<SimpleEntityIndexed> results = query.find();
+                        for (SimpleEntityIndexed entity : results) {
+                            accessAll(values, entity);
+                        }
+                        return results.size();
+                    }
+
+                    @Override
+                    public void close() {
+                        query.close();
+                        store.closeThreadResources();
+                    }
+                };
+            }
+
+            @Override
+            public ConcurrentWorkload.Writer openWriter() {
+                return new ConcurrentWorkload.Writer() {
+                    @Override
+                    public void insert(int key, int row) {
+                        boxIndexed.put(createEntityIndexed(row));
+                    }
+
+                    @Override
+                    public void update(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId(key + 1);
+                        boxIndexed.put(entity);
+                    }
+
+                    @Override
+                    public void close() {
+                        store.closeThreadResources();
+                    }
+                };
+            }
+        });
+    }
+
+    private void runYcsb(YcsbWorkload workload) {
+        prepareAndPutEntities(false);
+
+        // IDs are assigned by ObjectBox starting at 1, so key 0 has ID 1
+        try (Query<SimpleEntity> scanQuery = box.query(
+                SimpleEntity_.id
+                        .greaterOrEqual(0)
+                        .alias("id")
+        ).order(SimpleEntity_.id).build()) {
+            runWorkload(workload, new YcsbWorkload.Operations() {
+                @Override
+                public boolean read(int key) {
+                    SimpleEntity entity = box.get(key + 1);
+                    if (entity == null) {
+                        return false;
+                    }
+                    accessAll(entity);
+                    return true;
+                }
+
+                @Override
+                public void update(int key, int row) {
+                    SimpleEntity entity = createEntity(row, false);
+                    entity.setId(key + 1);
+                    box.put(entity);
+                }
+
+                @Override
+                public void insert(int key, int row) {
+                    box.put(createEntity(row, false));
+                }
+
+                @Override
+                public int scan(int startKey, int count) {
+                    scanQuery.setParameter("id", startKey + 1);
+                    List<SimpleEntity> result = scanQuery.find(0, count);
+                    accessAll(result);
+                    return result.size();
+                }
+            });
+        }
+    }
+
+    private void runTraceReplay() {
+        // IDs are assigned by ObjectBox when a key is put for the first time, 0 if it was never put
+        final long[] ids = new long[testRunner.getTrace().getKeyCount()];
+        try (Query<SimpleEntity> query = box.query(
+                SimpleEntity_.simpleInt
+                        .equal(0)
+                        .alias("int")
+        ).build()) {
+            runTrace(new OperationTrace.Operations() {
+                @Override
+                public void put(int key, int row, byte[] payload) {
+                    SimpleEntity entity = createEntity(row, false);
+                    entity.setSimpleByteArray(payload);
+                    entity.setId(ids[key]);
+                    ids[key] = box.put(entity);
+                }
+
+                @Override
+                public boolean get(int key) {
+                    SimpleEntity entity = ids[key] != 0 ? box.get(ids[key]) : null;
+                    if (entity == null) {
+                        return false;
+                    }
+                    accessAll(entity);
+                    return true;
+                }
+
+                @Override
+                public int query(int value) {
+                    query.setParameter("int", value);
+                    List<SimpleEntity> result = query.find();
+                    accessAll(result);
+                    return result.size();
+                }
+
+                @Override
+                public void remove(int key) {
+                    if (ids[key] != 0) {
+                        box.remove(ids[key]);
+                    }
+                }
+            });
+        }
+    }
+
+    private void accessAll(SimpleEntity entity) {
+        checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    private static void accessAll(ValueChecksum values, SimpleEntityIndexed entity) {
+        values.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    @Override
+    public long getDatabaseSizeOnDisk() {
+        return inMemory ? -1 : store.sizeOnDisk();
+    }
+
     @Override
     public void tearDown() {
         store.close();
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.objectbox;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.objectbox.performanceapp.PerfTestProvider;
+import io.objectbox.performanceapp.PerfTestVariant;
+
+public class ObjectBoxPerfTestProvider implements PerfTestProvider {
+
+    @Override
+    public List<PerfTestVariant> getVariants() {
+        return Arrays.asList(
+                new PerfTestVariant("objectbox", "ObjectBox", ObjectBoxPerfTest::new),
+                new PerfTestVariant("objectbox-in-memory", "ObjectBox in-memory", () -> new ObjectBoxPerfTest(true))
+        );
+    }
+
+}
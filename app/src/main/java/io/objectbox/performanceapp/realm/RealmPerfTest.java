@@ -16,19 +16,24 @@
 
 package io.objectbox.performanceapp.realm;
 
-import android.content.Context;
-
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
-import io.objectbox.performanceapp.PerfTest;
+import io.objectbox.performanceapp.AndroidPerfTest;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.OperationTrace;
 import io.objectbox.performanceapp.PerfTestRunner;
 import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.ValueChecksum;
+import io.objectbox.performanceapp.YcsbWorkload;
 import io.realm.Realm;
 import io.realm.RealmConfiguration;
 import io.realm.RealmResults;
+import io.realm.Sort;
 
-public class RealmPerfTest extends PerfTest {
+public class RealmPerfTest extends AndroidPerfTest {
 
     private boolean versionLoggedOnce;
     private Realm realm;
@@ -38,8 +43,8 @@ public class RealmPerfTest extends PerfTest {
         return "Realm";
     }
 
-    public void setUp(Context context, PerfTestRunner testRunner) {
-        super.setUp(context, testRunner);
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
         Realm.init(context);
         realm = Realm.getDefaultInstance();
 
@@ -78,6 +83,35 @@ public class RealmPerfTest extends PerfTest {
             case TestType.QUERY_ID_RANDOM:
                 runQueryById(true);
                 break;
+            case TestType.QUERY_ID_SINGLE:
+                runQueryByIds(false);
+                break;
+            case TestType.QUERY_ID_BATCH:
+                runQueryByIds(true);
+                break;
+            case TestType.YCSB_A:
+            case TestType.YCSB_B:
+            case TestType.YCSB_C:
+            case TestType.YCSB_D:
+            case TestType.YCSB_E:
+            case TestType.YCSB_F:
+                runYcsb(YcsbWorkload.forType(type));
+                break;
+            case TestType.TRACE_REPLAY:
+                runTraceReplay();
+                break;
+            case TestType.CHUNKED_WRITES:
+                runChunkedWrites(chunkedWrites(false));
+                break;
+            case TestType.BATCH_SIZE_TUNING:
+                tuneBatchSize(chunkedWrites(false), "all properties");
+                break;
+            case TestType.BATCH_SIZE_TUNING_SCALARS:
+                tuneBatchSize(chunkedWrites(true), "scalars");
+                break;
+            case TestType.CONCURRENT_RW:
+                runConcurrent();
+                break;
         }
     }
 
@@ -92,11 +126,11 @@ public class RealmPerfTest extends PerfTest {
         realm.commitTransaction();
         stopBenchmark();
 
-        for (SimpleEntity entity : list) {
+        for (int i = 0; i < list.size(); i++) {
             if (scalarsOnly) {
-                setRandomScalars(entity);
+                setScalars(list.get(i), updateRow(i));
             } else {
-                setRandomValues(entity);
+                setValues(list.get(i), updateRow(i));
             }
         }
         startBenchmark("update");
@@ -123,46 +157,38 @@ public class RealmPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntity entity) {
-        setRandomScalars(entity);
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntity entity, int row) {
+        setScalars(entity, row);
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    private void setRandomScalars(SimpleEntity entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
+    private void setScalars(SimpleEntity entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
     }
 
-    public SimpleEntity createEntity(long id, boolean scalarsOnly) {
+    public SimpleEntity createEntity(int row, boolean scalarsOnly) {
         SimpleEntity entity = new SimpleEntity();
-        entity.setId(id);
+        entity.setId((long) row);
         if (scalarsOnly) {
-            setRandomScalars(entity);
+            setScalars(entity, row);
         } else {
-            setRandomValues(entity);
+            setValues(entity, row);
         }
         return entity;
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     protected void accessAll(List<SimpleEntity> list) {
         for (SimpleEntity entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
@@ -177,8 +203,8 @@ public class RealmPerfTest extends PerfTest {
         realm.commitTransaction();
         stopBenchmark();
 
-        for (SimpleEntityIndexed entity : list) {
-            setRandomValues(entity);
+        for (int i = 0; i < list.size(); i++) {
+            setValues(list.get(i), updateRow(i));
         }
         startBenchmark("update");
         realm.beginTransaction();
@@ -204,38 +230,30 @@ public class RealmPerfTest extends PerfTest {
         stopBenchmark();
     }
 
-    protected void setRandomValues(SimpleEntityIndexed entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntityIndexed entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    public SimpleEntityIndexed createEntityIndexed(long id) {
+    public SimpleEntityIndexed createEntityIndexed(int row) {
         SimpleEntityIndexed entity = new SimpleEntityIndexed();
-        entity.setId(id);
-        setRandomValues(entity);
+        entity.setId((long) row);
+        setValues(entity, row);
         return entity;
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     protected void accessAllIndexed(List<SimpleEntityIndexed> list) {
         for (SimpleEntityIndexed entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
@@ -259,7 +277,7 @@ public class RealmPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -267,8 +285,10 @@ public class RealmPerfTest extends PerfTest {
         startBenchmark("query");
         long entitiesFound = 0;
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             List<SimpleEntity> result = realm.where(SimpleEntity.class).equalTo("simpleString", stringsToLookup[i]).findAll();
             accessAll(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         stopBenchmark();
@@ -291,7 +311,7 @@ public class RealmPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -299,8 +319,10 @@ public class RealmPerfTest extends PerfTest {
         startBenchmark("query");
         long entitiesFound = 0;
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             List<SimpleEntityIndexed> result = realm.where(SimpleEntityIndexed.class).equalTo("simpleString", stringsToLookup[i]).findAll();
             accessAllIndexed(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         stopBenchmark();
@@ -310,7 +332,7 @@ public class RealmPerfTest extends PerfTest {
     private void runQueryById(boolean randomIds) {
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -321,29 +343,302 @@ public class RealmPerfTest extends PerfTest {
 
         long[] idsToLookup = new long[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            idsToLookup[i] = randomIds ? random.nextInt(numberEntities) : i;
+            idsToLookup[i] = randomIds ? nextKey() : i;
         }
 
         startBenchmark("query");
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             SimpleEntity entity = realm.where(SimpleEntity.class).equalTo("id", idsToLookup[i]).findFirst();
             accessAll(entity);
+            recordOperation(start);
+        }
+        stopBenchmark();
+    }
+
+    /** Looks up each entity once by ID, with a get per ID or batch gets of {@link #ID_BATCH_SIZE} IDs. */
+    private void runQueryByIds(boolean batch) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        realm.beginTransaction();
+        realm.insert(entities);
+        realm.commitTransaction();
+        stopBenchmark();
+
+        long[] idsToLookup = shuffledIds(0);
+        if (!batch) {
+            startBenchmark("query");
+            for (long id : idsToLookup) {
+                long start = startOperation();
+                accessAll(realm.where(SimpleEntity.class).equalTo("id", id).findFirst());
+                recordOperation(start);
+            }
+            stopBenchmark();
+            return;
+        }
+
+        long[][] idBatches = toIdBatches(idsToLookup);
+        Long[][] batches = new Long[idBatches.length][];
+        for (int i = 0; i < batches.length; i++) {
+            batches[i] = new Long[idBatches[i].length];
+            for (int j = 0; j < batches[i].length; j++) {
+                batches[i][j] = idBatches[i][j];
+            }
+        }
+        long entitiesFound = 0;
+        startBenchmark("query");
+        for (int i = 0; i < batches.length; i++) {
+            long start = startOperation();
+            RealmResults<SimpleEntity> result = realm.where(SimpleEntity.class).in("id", batches[i]).findAll();
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
         }
         stopBenchmark();
+        assertEntityCount(entitiesFound);
+    }
+
+    private void runConcurrent() {
+        List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntityIndexed(i));
+        }
+
+        startBenchmark("insert");
+        realm.beginTransaction();
+        realm.insert(entities);
+        realm.commitTransaction();
+        stopBenchmark();
+        //noinspection UnusedAssignment
+        entities = null;
+
+        // Realm instances are confined to the thread that got them
+        final RealmConfiguration configuration = realm.getConfiguration();
+        runConcurrent(new ConcurrentWorkload.Operations() {
+            @Override
+            public ConcurrentWorkload.Reader openReader(final ValueChecksum values) {
+                final Realm threadRealm = Realm.getInstance(configuration);
+                return new ConcurrentWorkload.Reader() {
+                    @Override
+                    public boolean get(int key) {
+                        SimpleEntityIndexed entity = threadRealm.where(SimpleEntityIndexed.class)
+                                .equalTo("id", (long) key).findFirst();
+                        if (entity == null) {
+                            return false;
+                        }
+                        accessAll(values, entity);
+                        return true;
+                    }
+
+                    @Override
+                    public int query(int value) {
+                        RealmResults<SimpleEntityIndexed> results = threadRealm.where(SimpleEntityIndexed.class)
+                                .equalTo("simpleInt", value).findAll();
+                        for (SimpleEntityIndexed entity : results) {
+                            accessAll(values, entity);
+                        }
+                        return results.size();
+                    }
+
+                    @Override
+                    public void close() {
+                        threadRealm.close();
+                    }
+                };
+            }
+
+            @Override
+            public ConcurrentWorkload.Writer openWriter() {
+                final Realm threadRealm = Realm.getInstance(configuration);
+                return new ConcurrentWorkload.Writer() {
+                    @Override
+                    public void insert(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        threadRealm.beginTransaction();
+                        threadRealm.insert(entity);
+                        threadRealm.commitTransaction();
+                    }
+
+                    @Override
+                    public void update(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        threadRealm.beginTransaction();
+                        threadRealm.insertOrUpdate(entity);
+                        threadRealm.commitTransaction();
+                    }
+
+                    @Override
+                    public void close() {
+                        threadRealm.close();
+                    }
+                };
+            }
+        });
+    }
+
+    private ChunkedWrites.Operations chunkedWrites(final boolean scalarsOnly) {
+        final List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        return new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+                entities.clear();
+                for (int i = 0; i < numberEntities; i++) {
+                    entities.add(createEntity(i, scalarsOnly));
+                }
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                realm.beginTransaction();
+                realm.insert(entities.subList(from, to));
+                realm.commitTransaction();
+            }
+
+            @Override
+            public void prepareUpdate() {
+                for (int i = 0; i < entities.size(); i++) {
+                    if (scalarsOnly) {
+                        setScalars(entities.get(i), updateRow(i));
+                    } else {
+                        setValues(entities.get(i), updateRow(i));
+                    }
+                }
+            }
+
+            @Override
+            public void update(int from, int to) {
+                realm.beginTransaction();
+                realm.insertOrUpdate(entities.subList(from, to));
+                realm.commitTransaction();
+            }
+
+            @Override
+            public void deleteAll() {
+                assertEntityCount(realm.where(SimpleEntity.class).count());
+                realm.beginTransaction();
+                realm.delete(SimpleEntity.class);
+                realm.commitTransaction();
+            }
+        };
+    }
+
+    private void runTraceReplay() {
+        runTrace(new OperationTrace.Operations() {
+            @Override
+            public void put(int key, int row, byte[] payload) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                entity.setSimpleByteArray(payload);
+                realm.beginTransaction();
+                realm.insertOrUpdate(entity);
+                realm.commitTransaction();
+            }
+
+            @Override
+            public boolean get(int key) {
+                SimpleEntity entity = realm.where(SimpleEntity.class).equalTo("id", (long) key).findFirst();
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public int query(int value) {
+                List<SimpleEntity> result = realm.where(SimpleEntity.class).equalTo("simpleInt", value).findAll();
+                accessAll(result);
+                return result.size();
+            }
+
+            @Override
+            public void remove(int key) {
+                realm.beginTransaction();
+                realm.where(SimpleEntity.class).equalTo("id", (long) key).findAll().deleteAllFromRealm();
+                realm.commitTransaction();
+            }
+        });
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     private void accessAll(SimpleEntity entity) {
-        entity.getId();
-        entity.getSimpleBoolean();
-        entity.getSimpleByte();
-        entity.getSimpleShort();
-        entity.getSimpleInt();
-        entity.getSimpleLong();
-        entity.getSimpleFloat();
-        entity.getSimpleDouble();
-        entity.getSimpleString();
-        entity.getSimpleByteArray();
+        checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    private static void accessAll(ValueChecksum values, SimpleEntityIndexed entity) {
+        values.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    private void runYcsb(YcsbWorkload workload) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        realm.beginTransaction();
+        realm.insert(entities);
+        realm.commitTransaction();
+        stopBenchmark();
+
+        //noinspection UnusedAssignment
+        entities = null;
+
+        runWorkload(workload, new YcsbWorkload.Operations() {
+            @Override
+            public boolean read(int key) {
+                SimpleEntity entity = realm.where(SimpleEntity.class).equalTo("id", (long) key).findFirst();
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public void update(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                realm.beginTransaction();
+                realm.insertOrUpdate(entity);
+                realm.commitTransaction();
+            }
+
+            @Override
+            public void insert(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                realm.beginTransaction();
+                realm.insert(entity);
+                realm.commitTransaction();
+            }
+
+            @Override
+            public int scan(int startKey, int count) {
+                List<SimpleEntity> result = realm.where(SimpleEntity.class)
+                        .greaterThanOrEqualTo("id", (long) startKey)
+                        .sort("id", Sort.ASCENDING)
+                        .limit(count)
+                        .findAll();
+                accessAll(result);
+                return result.size();
+            }
+        });
+    }
+
+    @Override
+    public long getDatabaseSizeOnDisk() {
+        String path = realm.getPath();
+        return sizeOfFiles(new File(path), new File(path + ".lock"));
     }
 
     @Override
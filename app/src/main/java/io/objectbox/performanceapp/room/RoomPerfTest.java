@@ -1,38 +1,59 @@
 package io.objectbox.performanceapp.room;
 
 import androidx.room.Room;
-import android.content.Context;
+import androidx.room.RoomDatabase;
 import android.database.Cursor;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import io.objectbox.performanceapp.PerfTest;
+import io.objectbox.performanceapp.AndroidPerfTest;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.OperationTrace;
 import io.objectbox.performanceapp.PerfTestRunner;
 import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.ValueChecksum;
+import io.objectbox.performanceapp.YcsbWorkload;
 
-public class RoomPerfTest extends PerfTest {
+public class RoomPerfTest extends AndroidPerfTest {
 
     public static final String DB_NAME = "sqlite-room";
 
+    private final boolean writeAheadLog;
     private boolean versionLoggedOnce;
     private AppDatabase db;
     private SimpleEntityDao dao;
     private SimpleEntityIndexedDao daoIndexed;
 
+    public RoomPerfTest() {
+        this(true);
+    }
+
+    /**
+     * @param writeAheadLog if false, uses a rollback journal instead of WAL (Room's default, except on low-RAM
+     *                      devices)
+     */
+    public RoomPerfTest(boolean writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
     @Override
     public String name() {
-        return "Room";
+        return writeAheadLog ? "Room" : "Room (no WAL)";
     }
 
     @Override
-    public void setUp(Context context, PerfTestRunner testRunner) {
-        super.setUp(context, testRunner);
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
         boolean deleted = context.deleteDatabase(DB_NAME);
         if (deleted) {
             log("DB existed before start - deleted");
         }
         db = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DB_NAME)
+                .setJournalMode(writeAheadLog
+                        ? RoomDatabase.JournalMode.AUTOMATIC
+                        : RoomDatabase.JournalMode.TRUNCATE)
                 .build();
         dao = db.simpleEntityDao();
         daoIndexed = db.simpleEntityIndexedDao();
@@ -77,23 +98,52 @@ public class RoomPerfTest extends PerfTest {
             case TestType.QUERY_ID_RANDOM:
                 runQueryById(true);
                 break;
+            case TestType.QUERY_ID_SINGLE:
+                runQueryByIds(false);
+                break;
+            case TestType.QUERY_ID_BATCH:
+                runQueryByIds(true);
+                break;
+            case TestType.YCSB_A:
+            case TestType.YCSB_B:
+            case TestType.YCSB_C:
+            case TestType.YCSB_D:
+            case TestType.YCSB_E:
+            case TestType.YCSB_F:
+                runYcsb(YcsbWorkload.forType(type));
+                break;
+            case TestType.TRACE_REPLAY:
+                runTraceReplay();
+                break;
+            case TestType.CHUNKED_WRITES:
+                runChunkedWrites(chunkedWrites(false));
+                break;
+            case TestType.BATCH_SIZE_TUNING:
+                tuneBatchSize(chunkedWrites(false), "all properties");
+                break;
+            case TestType.BATCH_SIZE_TUNING_SCALARS:
+                tuneBatchSize(chunkedWrites(true), "scalars");
+                break;
+            case TestType.CONCURRENT_RW:
+                runConcurrent();
+                break;
         }
     }
 
     private void runBatchPerfTest(boolean scalarsOnly) {
         List<SimpleEntity> list = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            list.add(createEntity((long) i, scalarsOnly));
+            list.add(createEntity(i, scalarsOnly));
         }
         startBenchmark("insert");
         dao.insertInTx(list);
         stopBenchmark();
 
-        for (SimpleEntity entity : list) {
+        for (int i = 0; i < list.size(); i++) {
             if (scalarsOnly) {
-                setRandomScalars(entity);
+                setScalars(list.get(i), updateRow(i));
             } else {
-                setRandomValues(entity);
+                setValues(list.get(i), updateRow(i));
             }
         }
         startBenchmark("update");
@@ -119,14 +169,14 @@ public class RoomPerfTest extends PerfTest {
     private void runBatchPerfTestIndexed() {
         List<SimpleEntityIndexed> list = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            list.add(createEntityIndexed((long) i));
+            list.add(createEntityIndexed(i));
         }
         startBenchmark("insert");
         daoIndexed.insertInTx(list);
         stopBenchmark();
 
-        for (SimpleEntityIndexed entity : list) {
-            setRandomValues(entity);
+        for (int i = 0; i < list.size(); i++) {
+            setValues(list.get(i), updateRow(i));
         }
         startBenchmark("update");
         daoIndexed.updateInTx(list);
@@ -155,7 +205,7 @@ public class RoomPerfTest extends PerfTest {
         }
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -166,7 +216,7 @@ public class RoomPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -175,8 +225,10 @@ public class RoomPerfTest extends PerfTest {
         long entitiesFound = db.runInTransaction(() -> {
             long found = 0;
             for (int i = 0; i < numberEntities; i++) {
+                long start = startOperation();
                 List<SimpleEntity> result = dao.whereSimpleStringEq(stringsToLookup[i]);
                 accessAll(result);
+                recordOperation(start);
                 found += result.size();
             }
             return found;
@@ -188,7 +240,7 @@ public class RoomPerfTest extends PerfTest {
     private void runQueryByStringIndexed() {
         List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntityIndexed((long) i));
+            entities.add(createEntityIndexed(i));
         }
 
         startBenchmark("insert");
@@ -199,7 +251,7 @@ public class RoomPerfTest extends PerfTest {
         for (int i = 0; i < numberEntities; i++) {
             String text = "";
             while (text.length() < 2) {
-                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+                text = entities.get(nextKey()).getSimpleString();
             }
             stringsToLookup[i] = text;
         }
@@ -208,8 +260,10 @@ public class RoomPerfTest extends PerfTest {
         long entitiesFound = db.runInTransaction(() -> {
             long found = 0;
             for (int i = 0; i < numberEntities; i++) {
+                long start = startOperation();
                 List<SimpleEntityIndexed> result = daoIndexed.whereSimpleStringEq(stringsToLookup[i]);
                 accessAllIndexed(result);
+                recordOperation(start);
                 found += result.size();
             }
             return found;
@@ -225,7 +279,7 @@ public class RoomPerfTest extends PerfTest {
         }
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -234,14 +288,16 @@ public class RoomPerfTest extends PerfTest {
 
         final int[] valuesToLookup = new int[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            valuesToLookup[i] = entities.get(random.nextInt(numberEntities)).getSimpleInt();
+            valuesToLookup[i] = entities.get(nextKey()).getSimpleInt();
         }
 
         startBenchmark("query");
         long entitiesFound = 0;
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             List<SimpleEntity> result = dao.whereSimpleIntEq(valuesToLookup[i]);
             accessAll(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         stopBenchmark();
@@ -252,7 +308,7 @@ public class RoomPerfTest extends PerfTest {
     private void runQueryByIntegerIndexed() {
         List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntityIndexed((long) i));
+            entities.add(createEntityIndexed(i));
         }
 
         startBenchmark("insert");
@@ -261,14 +317,16 @@ public class RoomPerfTest extends PerfTest {
 
         final int[] valuesToLookup = new int[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            valuesToLookup[i] = entities.get(random.nextInt(numberEntities)).getSimpleInt();
+            valuesToLookup[i] = entities.get(nextKey()).getSimpleInt();
         }
 
         startBenchmark("query");
         long entitiesFound = 0;
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             List<SimpleEntityIndexed> result = daoIndexed.whereSimpleIntEq(valuesToLookup[i]);
             accessAllIndexed(result);
+            recordOperation(start);
             entitiesFound += result.size();
         }
         stopBenchmark();
@@ -279,7 +337,7 @@ public class RoomPerfTest extends PerfTest {
     private void runQueryById(boolean randomIds) {
         List<SimpleEntity> entities = new ArrayList<>(numberEntities);
         for (int i = 0; i < numberEntities; i++) {
-            entities.add(createEntity((long) i, false));
+            entities.add(createEntity(i, false));
         }
 
         startBenchmark("insert");
@@ -290,15 +348,250 @@ public class RoomPerfTest extends PerfTest {
 
         long[] idsToLookup = new long[numberEntities];
         for (int i = 0; i < numberEntities; i++) {
-            idsToLookup[i] = randomIds ? random.nextInt(numberEntities) : i;
+            idsToLookup[i] = randomIds ? nextKey() : i;
         }
 
         startBenchmark("query");
         for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
             SimpleEntity entity = dao.load(idsToLookup[i]);
             accessAll(entity);
+            recordOperation(start);
+        }
+        stopBenchmark();
+    }
+
+    /** Looks up each entity once by ID, with a get per ID or batch gets of {@link #ID_BATCH_SIZE} IDs. */
+    private void runQueryByIds(boolean batch) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        dao.insertInTx(entities);
+        stopBenchmark();
+
+        assertEntityCount(dao.count());
+
+        long[] idsToLookup = shuffledIds(0);
+        if (!batch) {
+            startBenchmark("query");
+            for (long id : idsToLookup) {
+                long start = startOperation();
+                accessAll(dao.load(id));
+                recordOperation(start);
+            }
+            stopBenchmark();
+            return;
+        }
+
+        long[][] batches = toIdBatches(idsToLookup);
+        long entitiesFound = 0;
+        startBenchmark("query");
+        for (int i = 0; i < batches.length; i++) {
+            long start = startOperation();
+            List<SimpleEntity> result = dao.loadByIds(batches[i]);
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
+        }
+        stopBenchmark();
+        assertEntityCount(entitiesFound);
+    }
+
+    private void runConcurrent() {
+        List<SimpleEntityIndexed> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntityIndexed(i));
+        }
+
+        startBenchmark("insert");
+        daoIndexed.insertInTx(entities);
+        stopBenchmark();
+        //noinspection UnusedAssignment
+        entities = null;
+
+        // Room databases and DAOs can be used by multiple threads
+        runConcurrent(new ConcurrentWorkload.Operations() {
+            @Override
+            public ConcurrentWorkload.Reader openReader(final ValueChecksum values) {
+                return new ConcurrentWorkload.Reader() {
+                    @Override
+                    public boolean get(int key) {
+                        SimpleEntityIndexed entity = daoIndexed.load(key);
+                        if (entity == null) {
+                            return false;
+                        }
+                        accessAll(values, entity);
+                        return true;
+                    }
+
+                    @Override
+                    public int query(int value) {
+                        List<SimpleEntityIndexed> results = daoIndexed.whereSimpleIntEq(value);
+                        for (SimpleEntityIndexed entity : results) {
+                            accessAll(values, entity);
+                        }
+                        return results.size();
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+
+            @Override
+            public ConcurrentWorkload.Writer openWriter() {
+                return new ConcurrentWorkload.Writer() {
+                    @Override
+                    public void insert(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        daoIndexed.insert(entity);
+                    }
+
+                    @Override
+                    public void update(int key, int row) {
+                        SimpleEntityIndexed entity = createEntityIndexed(row);
+                        entity.setId((long) key);
+                        daoIndexed.update(entity);
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        });
+    }
+
+    private ChunkedWrites.Operations chunkedWrites(final boolean scalarsOnly) {
+        final List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        return new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+                entities.clear();
+                for (int i = 0; i < numberEntities; i++) {
+                    entities.add(createEntity(i, scalarsOnly));
+                }
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                dao.insertInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void prepareUpdate() {
+                for (int i = 0; i < entities.size(); i++) {
+                    if (scalarsOnly) {
+                        setScalars(entities.get(i), updateRow(i));
+                    } else {
+                        setValues(entities.get(i), updateRow(i));
+                    }
+                }
+            }
+
+            @Override
+            public void update(int from, int to) {
+                dao.updateInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void deleteAll() {
+                assertEntityCount(dao.count());
+                dao.deleteInTx(entities);
+            }
+        };
+    }
+
+    private void runYcsb(YcsbWorkload workload) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
         }
+
+        startBenchmark("insert");
+        dao.insertInTx(entities);
         stopBenchmark();
+
+        assertEntityCount(dao.count());
+        //noinspection UnusedAssignment
+        entities = null;
+
+        runWorkload(workload, new YcsbWorkload.Operations() {
+            @Override
+            public boolean read(int key) {
+                SimpleEntity entity = dao.load(key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public void update(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.update(entity);
+            }
+
+            @Override
+            public void insert(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.insert(entity);
+            }
+
+            @Override
+            public int scan(int startKey, int count) {
+                List<SimpleEntity> result = dao.scan(startKey, count);
+                accessAll(result);
+                return result.size();
+            }
+        });
+    }
+
+    private void runTraceReplay() {
+        runTrace(new OperationTrace.Operations() {
+            @Override
+            public void put(int key, int row, byte[] payload) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                entity.setSimpleByteArray(payload);
+                dao.insertOrReplace(entity);
+            }
+
+            @Override
+            public boolean get(int key) {
+                SimpleEntity entity = dao.load(key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public int query(int value) {
+                List<SimpleEntity> result = dao.whereSimpleIntEq(value);
+                accessAll(result);
+                return result.size();
+            }
+
+            @Override
+            public void remove(int key) {
+                dao.deleteById(key);
+            }
+        });
+    }
+
+    @Override
+    public long getDatabaseSizeOnDisk() {
+        return sqliteDatabaseSize(DB_NAME);
     }
 
     @Override
@@ -309,99 +602,77 @@ public class RoomPerfTest extends PerfTest {
         log("DB deleted: " + deleted);
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     private void accessAll(SimpleEntity entity) {
-        entity.getId();
-        entity.getSimpleBoolean();
-        entity.getSimpleByte();
-        entity.getSimpleShort();
-        entity.getSimpleInt();
-        entity.getSimpleLong();
-        entity.getSimpleFloat();
-        entity.getSimpleDouble();
-        entity.getSimpleString();
-        entity.getSimpleByteArray();
+        checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     protected void accessAll(List<SimpleEntity> list) {
         for (SimpleEntity entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private static void accessAll(ValueChecksum values, SimpleEntityIndexed entity) {
+        values.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
     protected void accessAllIndexed(List<SimpleEntityIndexed> list) {
         for (SimpleEntityIndexed entity : list) {
-            entity.getId();
-            entity.getSimpleBoolean();
-            entity.getSimpleByte();
-            entity.getSimpleShort();
-            entity.getSimpleInt();
-            entity.getSimpleLong();
-            entity.getSimpleFloat();
-            entity.getSimpleDouble();
-            entity.getSimpleString();
-            entity.getSimpleByteArray();
+            checksum.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                    entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                    entity.getSimpleString(), entity.getSimpleByteArray());
         }
     }
 
-    private void setRandomValues(SimpleEntity entity) {
-        setRandomScalars(entity);
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    private void setValues(SimpleEntity entity, int row) {
+        setScalars(entity, row);
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    protected void setRandomValues(SimpleEntityIndexed entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
-        entity.setSimpleString(randomString());
-        entity.setSimpleByteArray(randomBytes());
+    protected void setValues(SimpleEntityIndexed entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
     }
 
-    private void setRandomScalars(SimpleEntity entity) {
-        entity.setSimpleBoolean(random.nextBoolean());
-        entity.setSimpleByte((byte) random.nextInt());
-        entity.setSimpleShort((short) random.nextInt());
-        entity.setSimpleInt(random.nextInt());
-        entity.setSimpleLong(random.nextLong());
-        entity.setSimpleDouble(random.nextDouble());
-        entity.setSimpleFloat(random.nextFloat());
+    private void setScalars(SimpleEntity entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
     }
 
-    private SimpleEntity createEntity(Long key, boolean scalarsOnly) {
+    private SimpleEntity createEntity(int row, boolean scalarsOnly) {
         SimpleEntity entity = new SimpleEntity();
-        if (key != null) {
-            entity.setId(key);
-        }
+        entity.setId((long) row);
         if (scalarsOnly) {
-            setRandomScalars(entity);
+            setScalars(entity, row);
         } else {
-            setRandomValues(entity);
+            setValues(entity, row);
         }
         return entity;
     }
 
-    public SimpleEntityIndexed createEntityIndexed(Long key) {
+    public SimpleEntityIndexed createEntityIndexed(int row) {
         SimpleEntityIndexed entity = new SimpleEntityIndexed();
-        if (key != null) {
-            entity.setId(key);
-        }
-        setRandomValues(entity);
+        entity.setId((long) row);
+        setValues(entity, row);
         return entity;
     }
 }
@@ -3,6 +3,7 @@ package io.objectbox.performanceapp.room;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
@@ -14,24 +15,42 @@ public interface SimpleEntityDao {
     @Insert
     void insertInTx(List<SimpleEntity> entities);
 
+    @Insert
+    void insert(SimpleEntity entity);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrReplace(SimpleEntity entity);
+
     @Query("SELECT * from simpleentity where id = :id LIMIT 1")
     SimpleEntity load(long id);
 
+    @Query("SELECT * FROM simpleentity WHERE id IN (:ids)")
+    List<SimpleEntity> loadByIds(long[] ids);
+
     @Query("SELECT * FROM simpleentity")
     List<SimpleEntity> loadAll();
 
     @Update
     void updateInTx(List<SimpleEntity> entities);
 
+    @Update
+    void update(SimpleEntity entity);
+
     @Delete
     void deleteInTx(List<SimpleEntity> entities);
 
+    @Query("DELETE FROM simpleentity WHERE id = :id")
+    void deleteById(long id);
+
     @Query("SELECT * from simpleentity where simpleInt = :value")
     List<SimpleEntity> whereSimpleIntEq(int value);
 
     @Query("SELECT * FROM simpleentity WHERE simpleString = :value")
     List<SimpleEntity> whereSimpleStringEq(String value);
 
+    @Query("SELECT * FROM simpleentity WHERE id >= :startId ORDER BY id LIMIT :count")
+    List<SimpleEntity> scan(long startId, int count);
+
     @Query("SELECT COUNT(*) from simpleentity")
     int count();
 
@@ -14,12 +14,21 @@ public interface SimpleEntityIndexedDao {
     @Insert
     void insertInTx(List<SimpleEntityIndexed> entities);
 
+    @Insert
+    void insert(SimpleEntityIndexed entity);
+
+    @Query("SELECT * from simpleentityindexed where id = :id LIMIT 1")
+    SimpleEntityIndexed load(long id);
+
     @Query("SELECT * FROM simpleentityindexed")
     List<SimpleEntityIndexed> loadAll();
 
     @Update
     void updateInTx(List<SimpleEntityIndexed> entities);
 
+    @Update
+    void update(SimpleEntityIndexed entity);
+
     @Delete
     void deleteInTx(List<SimpleEntityIndexed> entities);
 
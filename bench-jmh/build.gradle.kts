@@ -0,0 +1,29 @@
+// JMH benchmarks of ObjectBox on the JVM, mirroring the test types of the app.
+// Run with ./gradlew :bench-jmh:jmh, results are written to build/results/jmh.
+plugins {
+    java
+    // https://github.com/melix/jmh-gradle-plugin/releases
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+val objectboxVersion: String by rootProject.extra
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    // Entities and MyObjectBox are generated in bench-jvm
+    implementation(project(":bench-jvm"))
+    implementation("io.objectbox:objectbox-java:$objectboxVersion")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    // Optionally only run some benchmarks, e.g. -Pjmh.includes=QueryBenchmark
+    if (project.hasProperty("jmh.includes")) {
+        includes.set(listOf(project.property("jmh.includes").toString()))
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.performanceapp.Dataset;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.objectbox.SimpleEntityIndexed;
+
+/**
+ * {@link TestType#CRUD_INDEXED}: each phase of the test is a benchmark that runs once per
+ * iteration on a box prepared outside of the measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class CrudIndexedBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Store extends ObjectBoxState {
+        @Param({"100000"})
+        public int numberEntities;
+
+        Box<SimpleEntityIndexed> box;
+        Dataset dataset;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            openStore();
+            box = store.boxFor(SimpleEntityIndexed.class);
+            dataset = Entities.dataset(numberEntities);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            closeStore();
+        }
+
+        List<SimpleEntityIndexed> newEntities() {
+            return Entities.createEntitiesIndexed(dataset, numberEntities);
+        }
+
+        List<SimpleEntityIndexed> putNewEntities() {
+            box.removeAll();
+            List<SimpleEntityIndexed> entities = newEntities();
+            box.put(entities);
+            return entities;
+        }
+    }
+
+    /** New entities to insert into an empty box. */
+    @State(Scope.Thread)
+    public static class InsertState {
+        List<SimpleEntityIndexed> entities;
+
+        @Setup(Level.Iteration)
+        public void setUp(Store store) {
+            store.box.removeAll();
+            entities = store.newEntities();
+        }
+    }
+
+    /** Entities already in the box, but with changed values. */
+    @State(Scope.Thread)
+    public static class UpdateState {
+        List<SimpleEntityIndexed> entities;
+
+        @Setup(Level.Iteration)
+        public void setUp(Store store) {
+            entities = store.putNewEntities();
+            for (int i = 0; i < entities.size(); i++) {
+                Entities.setValues(store.dataset, entities.get(i), Entities.updateRow(i, entities.size()));
+            }
+        }
+    }
+
+    /** Populated once as load and access do not modify the box. */
+    @State(Scope.Thread)
+    public static class PopulatedState {
+        List<SimpleEntityIndexed> reloaded;
+
+        @Setup(Level.Trial)
+        public void setUp(Store store) {
+            store.putNewEntities();
+            reloaded = store.box.getAll();
+        }
+    }
+
+    /** Entities in the box to delete. */
+    @State(Scope.Thread)
+    public static class DeleteState {
+        List<SimpleEntityIndexed> entities;
+
+        @Setup(Level.Iteration)
+        public void setUp(Store store) {
+            entities = store.putNewEntities();
+        }
+    }
+
+    @Benchmark
+    public void insert(Store store, InsertState state) {
+        store.box.put(state.entities);
+    }
+
+    @Benchmark
+    public void update(Store store, UpdateState state) {
+        store.box.put(state.entities);
+    }
+
+    @Benchmark
+    public List<SimpleEntityIndexed> load(Store store, PopulatedState state) {
+        return store.box.getAll();
+    }
+
+    @Benchmark
+    public void access(PopulatedState state, Blackhole blackhole) {
+        Entities.consumeAllIndexed(state.reloaded, blackhole);
+    }
+
+    @Benchmark
+    public void delete(Store store, DeleteState state) {
+        store.box.remove(state.entities);
+    }
+
+}
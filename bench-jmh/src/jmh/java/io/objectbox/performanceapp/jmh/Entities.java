@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jmh;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.performanceapp.Dataset;
+import io.objectbox.performanceapp.objectbox.SimpleEntity;
+import io.objectbox.performanceapp.objectbox.SimpleEntityIndexed;
+
+/**
+ * Creates entities with the values of the shared {@link Dataset}, so benchmarks put the same values as the tests of
+ * the app and bench-jvm, and consumes all their properties into a {@link Blackhole}, so the JIT can not eliminate
+ * reading them.
+ */
+final class Entities {
+
+    /** Directory to keep dataset files in, set with -Ddataset.dir (default: build/dataset). */
+    private static final File DATASET_DIR = new File(System.getProperty("dataset.dir", "build/dataset"));
+
+    private Entities() {
+    }
+
+    static Dataset dataset(int rows) {
+        return Dataset.getShared(DATASET_DIR, rows);
+    }
+
+    /** Row with the values to update the entity of the given row to, like the tests of the app. */
+    static int updateRow(int row, int count) {
+        return row + 1 < count ? row + 1 : 0;
+    }
+
+    static List<SimpleEntity> createEntities(Dataset dataset, int count, boolean scalarsOnly) {
+        List<SimpleEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimpleEntity entity = new SimpleEntity();
+            setValues(dataset, entity, i, scalarsOnly);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    static void setValues(Dataset dataset, SimpleEntity entity, int row, boolean scalarsOnly) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        if (!scalarsOnly) {
+            entity.setSimpleString(dataset.getString(row));
+            entity.setSimpleByteArray(dataset.getByteArray(row));
+        }
+    }
+
+    static List<SimpleEntityIndexed> createEntitiesIndexed(Dataset dataset, int count) {
+        List<SimpleEntityIndexed> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimpleEntityIndexed entity = new SimpleEntityIndexed();
+            setValues(dataset, entity, i);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    static void setValues(Dataset dataset, SimpleEntityIndexed entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
+    }
+
+    static void consumeAll(List<SimpleEntity> list, Blackhole blackhole) {
+        for (SimpleEntity entity : list) {
+            blackhole.consume(entity.getId());
+            blackhole.consume(entity.getSimpleBoolean());
+            blackhole.consume(entity.getSimpleByte());
+            blackhole.consume(entity.getSimpleShort());
+            blackhole.consume(entity.getSimpleInt());
+            blackhole.consume(entity.getSimpleLong());
+            blackhole.consume(entity.getSimpleFloat());
+            blackhole.consume(entity.getSimpleDouble());
+            blackhole.consume(entity.getSimpleString());
+            blackhole.consume(entity.getSimpleByteArray());
+        }
+    }
+
+    static void consumeAllIndexed(List<SimpleEntityIndexed> list, Blackhole blackhole) {
+        for (SimpleEntityIndexed entity : list) {
+            blackhole.consume(entity.getId());
+            blackhole.consume(entity.getSimpleBoolean());
+            blackhole.consume(entity.getSimpleByte());
+            blackhole.consume(entity.getSimpleShort());
+            blackhole.consume(entity.getSimpleInt());
+            blackhole.consume(entity.getSimpleLong());
+            blackhole.consume(entity.getSimpleFloat());
+            blackhole.consume(entity.getSimpleDouble());
+            blackhole.consume(entity.getSimpleString());
+            blackhole.consume(entity.getSimpleByteArray());
+        }
+    }
+
+}
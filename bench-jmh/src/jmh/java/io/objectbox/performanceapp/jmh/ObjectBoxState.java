@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import io.objectbox.BoxStore;
+import io.objectbox.performanceapp.objectbox.MyObjectBox;
+
+/**
+ * Base class for JMH states that need a fresh ObjectBox store in a temporary directory.
+ */
+public abstract class ObjectBoxState {
+
+    protected BoxStore store;
+    private File directory;
+
+    protected void openStore() throws IOException {
+        directory = Files.createTempDirectory("objectbox-jmh").toFile();
+        // 2 GB for DB to allow putting millions of objects
+        store = MyObjectBox.builder().baseDirectory(directory).maxSizeInKByte(2 * 1024 * 1024).build();
+    }
+
+    protected void closeStore() {
+        store.close();
+        store.deleteAllFiles();
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+}
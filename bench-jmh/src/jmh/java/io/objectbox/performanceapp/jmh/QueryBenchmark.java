@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.performanceapp.Dataset;
+import io.objectbox.performanceapp.RandomValues;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.objectbox.SimpleEntity;
+import io.objectbox.performanceapp.objectbox.SimpleEntityIndexed;
+import io.objectbox.performanceapp.objectbox.SimpleEntityIndexed_;
+import io.objectbox.performanceapp.objectbox.SimpleEntity_;
+import io.objectbox.query.Query;
+
+import static io.objectbox.query.QueryBuilder.StringOrder.CASE_SENSITIVE;
+
+/**
+ * {@link TestType#QUERY_STRING}, {@link TestType#QUERY_STRING_INDEXED}, {@link TestType#QUERY_INTEGER} and
+ * {@link TestType#QUERY_INTEGER_INDEXED}: a single invocation runs one query for a value of a random existing entity.
+ * <p>
+ * Query objects are not thread safe, so run this with a single thread only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class QueryBenchmark extends ObjectBoxState {
+
+    /** The app limits queries on properties without index to 10000 entities to avoid extremely long runs. */
+    @Param({"10000"})
+    public int numberEntities;
+
+    private Query<SimpleEntity> queryString;
+    private Query<SimpleEntity> queryInteger;
+    private Query<SimpleEntityIndexed> queryStringIndexed;
+    private Query<SimpleEntityIndexed> queryIntegerIndexed;
+
+    private String[] stringsToLookup;
+    private int[] valuesToLookup;
+    private String[] stringsToLookupIndexed;
+    private int[] valuesToLookupIndexed;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        openStore();
+        Dataset dataset = Entities.dataset(numberEntities);
+        // Look up the same entities as the tests of the app
+        Random random = new Random(RandomValues.SEED);
+
+        Box<SimpleEntity> box = store.boxFor(SimpleEntity.class);
+        List<SimpleEntity> entities = Entities.createEntities(dataset, numberEntities, false);
+        box.put(entities);
+        stringsToLookup = new String[numberEntities];
+        valuesToLookup = new int[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            String text = "";
+            while (text.length() < 2) {
+                text = entities.get(random.nextInt(numberEntities)).getSimpleString();
+            }
+            stringsToLookup[i] = text;
+            valuesToLookup[i] = entities.get(random.nextInt(numberEntities)).getSimpleInt();
+        }
+
+        Box<SimpleEntityIndexed> boxIndexed = store.boxFor(SimpleEntityIndexed.class);
+        List<SimpleEntityIndexed> entitiesIndexed = Entities.createEntitiesIndexed(dataset, numberEntities);
+        boxIndexed.put(entitiesIndexed);
+        stringsToLookupIndexed = new String[numberEntities];
+        valuesToLookupIndexed = new int[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            String text = "";
+            while (text.length() < 2) {
+                text = entitiesIndexed.get(random.nextInt(numberEntities)).getSimpleString();
+            }
+            stringsToLookupIndexed[i] = text;
+            valuesToLookupIndexed[i] = entitiesIndexed.get(random.nextInt(numberEntities)).getSimpleInt();
+        }
+
+        queryString = box.query(SimpleEntity_.simpleString.equal("", CASE_SENSITIVE).alias("string")).build();
+        queryInteger = box.query(SimpleEntity_.simpleInt.equal(0).alias("int")).build();
+        queryStringIndexed = boxIndexed.query(
+                SimpleEntityIndexed_.simpleString.equal("", CASE_SENSITIVE).alias("string")).build();
+        queryIntegerIndexed = boxIndexed.query(SimpleEntityIndexed_.simpleInt.equal(0).alias("int")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queryString.close();
+        queryInteger.close();
+        queryStringIndexed.close();
+        queryIntegerIndexed.close();
+        closeStore();
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 < numberEntities ? index + 1 : 0;
+        return index;
+    }
+
+    @Benchmark
+    public void queryString(Blackhole blackhole) {
+        queryString.setParameter("string", stringsToLookup[nextIndex()]);
+        Entities.consumeAll(queryString.find(), blackhole);
+    }
+
+    @Benchmark
+    public void queryStringIndexed(Blackhole blackhole) {
+        queryStringIndexed.setParameter("string", stringsToLookupIndexed[nextIndex()]);
+        Entities.consumeAllIndexed(queryStringIndexed.find(), blackhole);
+    }
+
+    @Benchmark
+    public void queryInteger(Blackhole blackhole) {
+        queryInteger.setParameter("int", valuesToLookup[nextIndex()]);
+        Entities.consumeAll(queryInteger.find(), blackhole);
+    }
+
+    @Benchmark
+    public void queryIntegerIndexed(Blackhole blackhole) {
+        queryIntegerIndexed.setParameter("int", valuesToLookupIndexed[nextIndex()]);
+        Entities.consumeAllIndexed(queryIntegerIndexed.find(), blackhole);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.performanceapp.RandomValues;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.objectbox.SimpleEntity;
+
+/**
+ * {@link TestType#QUERY_ID} and {@link TestType#QUERY_ID_RANDOM}: like the app, a single invocation gets all
+ * entities by their IDs with one call, either in order or in random order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class QueryByIdBenchmark extends ObjectBoxState {
+
+    @Param({"100000"})
+    public int numberEntities;
+
+    private Box<SimpleEntity> box;
+    private long[] ids;
+    private long[] randomIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        openStore();
+        box = store.boxFor(SimpleEntity.class);
+        box.put(Entities.createEntities(Entities.dataset(numberEntities), numberEntities, false));
+        Random random = new Random(RandomValues.SEED);
+
+        ids = new long[numberEntities];
+        randomIds = new long[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            ids[i] = 1 + i;
+            randomIds[i] = 1 + random.nextInt(numberEntities);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        closeStore();
+    }
+
+    @Benchmark
+    public void queryId(Blackhole blackhole) {
+        Entities.consumeAll(box.get(ids), blackhole);
+    }
+
+    @Benchmark
+    public void queryIdRandom(Blackhole blackhole) {
+        Entities.consumeAll(box.get(randomIds), blackhole);
+    }
+
+}
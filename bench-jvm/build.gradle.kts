@@ -0,0 +1,57 @@
+// Runs the platform independent tests of the app on a plain JVM, e.g. on a Linux server without a device.
+plugins {
+    application
+    id("io.objectbox") // Apply after the Java plugin
+}
+
+val objectboxVersion: String by rootProject.extra
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+sourceSets {
+    main {
+        java {
+            // Share tests and benchmark code with the app, leave out everything that depends on Android.
+            srcDir("../app/src/main/java")
+            exclude(
+                "io/objectbox/performanceapp/Android*.java",
+                "io/objectbox/performanceapp/MainActivity.java",
+                "io/objectbox/performanceapp/greendao/**",
+                "io/objectbox/performanceapp/realm/**",
+                "io/objectbox/performanceapp/room/**"
+            )
+        }
+    }
+}
+
+application {
+    mainClass.set("io.objectbox.performanceapp.jvm.JvmBenchmark")
+    applicationDefaultJvmArgs = listOf("-Xms1g", "-Xmx4g")
+}
+
+tasks.named<JavaExec>("run") {
+    workingDir = layout.buildDirectory.dir("bench").get().asFile.apply { mkdirs() }
+}
+
+// Compares two sets of result files, see ResultComparator.
+tasks.register<JavaExec>("compareResults") {
+    group = "application"
+    description = "Compares result files of two builds for significant regressions."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("io.objectbox.performanceapp.compare.ResultComparator")
+    workingDir = rootProject.projectDir
+}
+
+dependencies {
+    implementation("androidx.annotation:annotation:1.8.0")
+    implementation("org.greenrobot:essentials:3.1.0")
+    implementation("io.objectbox:objectbox-linux:$objectboxVersion")
+    implementation("org.xerial:sqlite-jdbc:3.46.0.0")
+    // Part of Android, but required on the JVM
+    implementation("org.json:json:20240303")
+
+    testImplementation("junit:junit:4.13.2")
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.compare;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the result files of two builds, e.g. before and after updating a database library:
+ * <pre>
+ * ./gradlew :bench-jvm:compareResults --args="results-before results-after"
+ * </pre>
+ * Arguments are two result files or two directories; for directories, files with the same name are compared.
+ * For each column, prints the medians, a bootstrap confidence interval of the change and the p-value of a
+ * Mann-Whitney U test. Throughput columns (ending with "-per-s" or, like "tuned-entities-per-s-min", containing
+ * "-per-s-") are considered better if higher, all others (times, bytes, counts) if lower. A change is reported as
+ * regression or improvement if it is significant and larger than the minimum change.
+ */
+public class ResultComparator {
+
+    private static final String USAGE = "Usage: <baseline file or dir> <candidate file or dir> [options]\n"
+            + "Options:\n"
+            + "  --alpha <p>            significance level (default: 0.05)\n"
+            + "  --min-change <pct>     ignore changes smaller than this percentage (default: 2)\n"
+            + "  --confidence <pct>     confidence level of intervals (default: 95)\n"
+            + "  --all                  print all columns, not just regressions and improvements\n"
+            + "  --fail-on-regression   exit with code 2 if a regression is found";
+
+    /** Columns that are settings or results of a search, not measurements. */
+    private static final List<String> IGNORED_COLUMNS = Arrays.asList("warm-up-runs", "tuned-chunk-size", "entities",
+            "rate");
+    private static final int RESAMPLES = 2000;
+
+    private double alpha = 0.05;
+    private double minChange = 0.02;
+    private double confidence = 0.95;
+    private boolean printAll;
+    private int regressions;
+    private int improvements;
+
+    public static void main(String[] args) throws IOException {
+        ResultComparator comparator = new ResultComparator();
+        List<String> paths = new ArrayList<>();
+        boolean failOnRegression = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--alpha":
+                        comparator.alpha = Double.parseDouble(args[++i]);
+                        break;
+                    case "--min-change":
+                        comparator.minChange = Double.parseDouble(args[++i]) / 100;
+                        break;
+                    case "--confidence":
+                        comparator.confidence = Double.parseDouble(args[++i]) / 100;
+                        break;
+                    case "--all":
+                        comparator.printAll = true;
+                        break;
+                    case "--fail-on-regression":
+                        failOnRegression = true;
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        }
+                        paths.add(arg);
+                }
+            }
+            if (paths.size() != 2) {
+                throw new IllegalArgumentException("Expected 2 paths, but got " + paths.size());
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() + "\n" + USAGE);
+            System.exit(1);
+        }
+
+        File baseline = new File(paths.get(0));
+        File candidate = new File(paths.get(1));
+        if (baseline.isDirectory() && candidate.isDirectory()) {
+            comparator.compareDirectories(baseline, candidate);
+        } else {
+            comparator.compare(ResultFile.read(baseline), ResultFile.read(candidate));
+        }
+        System.out.println("\n" + comparator.regressions + " regression(s), " + comparator.improvements
+                + " improvement(s)");
+        if (failOnRegression && comparator.regressions > 0) {
+            System.exit(2);
+        }
+    }
+
+    private void compareDirectories(File baselineDir, File candidateDir) throws IOException {
+        String[] names = baselineDir.list();
+        if (names == null) {
+            throw new IOException("Can not list " + baselineDir);
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            if (!isResultFile(name)) {
+                continue;
+            }
+            File candidate = new File(candidateDir, name);
+            if (candidate.isFile()) {
+                compare(ResultFile.read(new File(baselineDir, name)), ResultFile.read(candidate));
+            } else {
+                System.out.println("\n" + name + ": no candidate file");
+            }
+        }
+    }
+
+    private static boolean isResultFile(String name) {
+        return name.endsWith(".tsv") || name.endsWith(".csv") || name.endsWith(".jsonl");
+    }
+
+    private void compare(ResultFile baseline, ResultFile candidate) {
+        System.out.println("\n" + baseline.getFile().getName() + " (baseline: " + baseline.getRuns()
+                + " runs, candidate: " + candidate.getRuns() + " runs)");
+        String ciHeader = Math.round(confidence * 100) + "% CI";
+        System.out.println(String.format(Locale.US, "%-28s %14s %14s %9s %19s %7s  %s",
+                "column", "baseline", "candidate", "change", ciHeader, "p", ""));
+        // Same seed for each file, so repeated comparisons print the same intervals
+        Random random = new Random(42);
+        for (String column : baseline.getColumnNames()) {
+            if (IGNORED_COLUMNS.contains(column)) {
+                continue;
+            }
+            double[] a = baseline.getValues(column);
+            double[] b = candidate.getValues(column);
+            if (b.length == 0) {
+                continue;
+            }
+            double medianA = Statistics.median(a);
+            double medianB = Statistics.median(b);
+            double change = medianA != 0 ? medianB / medianA - 1 : Double.NaN;
+            double[] interval = Statistics.bootstrapMedianChange(a, b, RESAMPLES, confidence, random);
+            double p = Statistics.mannWhitneyP(a, b);
+
+            String verdict = verdict(column, change, p);
+            if (printAll || !verdict.isEmpty()) {
+                System.out.println(String.format(Locale.US, "%-28s %14.0f %14.0f %9s %19s %7.4f  %s",
+                        column, medianA, medianB, formatPercent(change),
+                        "[" + formatPercent(interval[0]) + ", " + formatPercent(interval[1]) + "]", p, verdict));
+            }
+        }
+    }
+
+    /**
+     * Counts and returns "REGRESSION" or "improvement" if the change of the median is significant and not smaller
+     * than the minimum change, otherwise an empty string.
+     */
+    String verdict(String column, double change, double p) {
+        if (p > alpha || Double.isNaN(change) || Math.abs(change) < minChange || IGNORED_COLUMNS.contains(column)) {
+            return "";
+        }
+        if (change > 0 != isHigherBetter(column)) {
+            regressions++;
+            return "REGRESSION";
+        } else {
+            improvements++;
+            return "improvement";
+        }
+    }
+
+    /** Throughput columns, e.g. "insert-ops-per-s", "reader-1-ops-per-s" or "tuned-entities-per-s-max". */
+    static boolean isHigherBetter(String column) {
+        return column.endsWith("-per-s") || column.contains("-per-s-");
+    }
+
+    int getRegressions() {
+        return regressions;
+    }
+
+    int getImprovements() {
+        return improvements;
+    }
+
+    private static String formatPercent(double value) {
+        if (Double.isNaN(value)) {
+            return "n/a";
+        }
+        return String.format(Locale.US, "%+.1f%%", value * 100);
+    }
+
+}
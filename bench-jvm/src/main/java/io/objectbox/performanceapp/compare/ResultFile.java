@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.compare;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numeric columns of a result file written by a {@code ResultSink}: tab- or comma-separated (.tsv, .csv) or
+ * JSON lines (.jsonl). Each run is a row; columns that are not numbers (e.g. "time") are skipped.
+ */
+public class ResultFile {
+
+    private final File file;
+    private final Map<String, List<Double>> columns = new LinkedHashMap<>();
+    private int runs;
+
+    public static ResultFile read(File file) throws IOException {
+        ResultFile resultFile = new ResultFile(file);
+        String name = file.getName();
+        if (name.endsWith(".jsonl")) {
+            resultFile.readJsonLines();
+        } else if (name.endsWith(".csv")) {
+            resultFile.readDelimited(',');
+        } else {
+            resultFile.readDelimited('\t');
+        }
+        return resultFile;
+    }
+
+    private ResultFile(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    /** Column names in the order they first appeared. */
+    public List<String> getColumnNames() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    /** Values of the column, one for each run that has it; empty if unknown. */
+    public double[] getValues(String column) {
+        List<Double> values = columns.get(column);
+        if (values == null) {
+            return new double[0];
+        }
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private void readDelimited(char separator) throws IOException {
+        String[] header = null;
+        try (BufferedReader reader = openReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = split(line, separator);
+                if (isHeader(fields)) {
+                    header = fields;
+                    continue;
+                }
+                if (header == null) {
+                    throw new IOException("No header before first line of values in " + file);
+                }
+                runs++;
+                for (int i = 0; i < fields.length && i < header.length; i++) {
+                    addValue(header[i], fields[i]);
+                }
+            }
+        }
+    }
+
+    /** Like the result sinks: a line without any integer value is a header. */
+    private static boolean isHeader(String[] fields) {
+        for (String field : fields) {
+            try {
+                Long.parseLong(field);
+                return false;
+            } catch (NumberFormatException e) {
+                // Header candidate
+            }
+        }
+        return true;
+    }
+
+    private static String[] split(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (separator == ',' && c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == separator && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        // Older TSV files end each line of values with a separator
+        if (field.length() > 0 || line.isEmpty() || line.charAt(line.length() - 1) != separator) {
+            fields.add(field.toString());
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private void readJsonLines() throws IOException {
+        try (BufferedReader reader = openReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final String jsonLine = line;
+                JSONObject json = new JSONObject(jsonLine);
+                runs++;
+                // JSONObject does not keep the order of keys; restore it to keep phases in order
+                List<String> keys = new ArrayList<>(json.keySet());
+                Collections.sort(keys, (a, b) -> Integer.compare(jsonLine.indexOf(JSONObject.quote(a) + ":"),
+                        jsonLine.indexOf(JSONObject.quote(b) + ":")));
+                for (String key : keys) {
+                    addValue(key, String.valueOf(json.get(key)));
+                }
+            }
+        }
+    }
+
+    private void addValue(String column, String value) {
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        List<Double> values = columns.get(column);
+        if (values == null) {
+            values = new ArrayList<>();
+            columns.put(column, values);
+        }
+        values.add(number);
+    }
+
+    private BufferedReader openReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.compare;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Statistics to compare two samples of benchmark results without assuming a normal distribution.
+ */
+public class Statistics {
+
+    private Statistics() {
+    }
+
+    public static double median(double[] values) {
+        if (values.length == 0) {
+            return Double.NaN;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Bootstrap confidence interval of the relative change of the median from baseline to candidate,
+     * e.g. [-0.12, -0.03] if the candidate is 3 % to 12 % lower.
+     *
+     * @param confidence e.g. 0.95
+     * @return lower and upper bound, or NaNs if the baseline median is 0 in too many resamples
+     */
+    public static double[] bootstrapMedianChange(double[] baseline, double[] candidate, int resamples,
+                                                 double confidence, Random random) {
+        double[] changes = new double[resamples];
+        double[] baselineSample = new double[baseline.length];
+        double[] candidateSample = new double[candidate.length];
+        int count = 0;
+        for (int i = 0; i < resamples; i++) {
+            resample(baseline, baselineSample, random);
+            resample(candidate, candidateSample, random);
+            double baselineMedian = median(baselineSample);
+            if (baselineMedian != 0) {
+                changes[count++] = median(candidateSample) / baselineMedian - 1;
+            }
+        }
+        if (count < resamples / 2) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
+        Arrays.sort(changes, 0, count);
+        double tail = (1 - confidence) / 2;
+        int lower = (int) Math.floor(tail * (count - 1));
+        int upper = (int) Math.ceil((1 - tail) * (count - 1));
+        return new double[]{changes[lower], changes[upper]};
+    }
+
+    private static void resample(double[] values, double[] target, Random random) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = values[random.nextInt(values.length)];
+        }
+    }
+
+    /**
+     * Two-sided p-value of the Mann-Whitney U test (normal approximation with tie and continuity correction).
+     * Note that with very few runs even a large difference can not be significant, e.g. 3 vs. 3 runs can not
+     * go below p = 0.05; use 5 or more runs.
+     */
+    public static double mannWhitneyP(double[] a, double[] b) {
+        int n1 = a.length;
+        int n2 = b.length;
+        int n = n1 + n2;
+        if (n1 == 0 || n2 == 0) {
+            return Double.NaN;
+        }
+        double[] all = new double[n];
+        System.arraycopy(a, 0, all, 0, n1);
+        System.arraycopy(b, 0, all, n1, n2);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(all[x], all[y]));
+
+        // Assign average ranks to ties
+        double[] ranks = new double[n];
+        double tieCorrection = 0;
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && all[order[j + 1]] == all[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                ranks[order[k]] = rank;
+            }
+            int ties = j - i + 1;
+            tieCorrection += (double) ties * ties * ties - ties;
+            i = j + 1;
+        }
+
+        double rankSumA = 0;
+        for (int k = 0; k < n1; k++) {
+            rankSumA += ranks[k];
+        }
+        double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1;
+        }
+        double z = (Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+        if (z <= 0) {
+            return 1;
+        }
+        return Math.min(1, 2 * (1 - normalCdf(z)));
+    }
+
+    /** Standard normal CDF using the Abramowitz and Stegun approximation of erf (error below 1.5e-7). */
+    static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t
+                + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+}
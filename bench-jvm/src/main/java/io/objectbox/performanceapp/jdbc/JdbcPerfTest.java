@@ -0,0 +1,607 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jdbc;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.OperationTrace;
+import io.objectbox.performanceapp.PerfTest;
+import io.objectbox.performanceapp.PerfTestRunner;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.ValueChecksum;
+import io.objectbox.performanceapp.YcsbWorkload;
+
+/**
+ * Runs the workloads of the Room and greenDAO tests against SQLite using JDBC, so SQLite can be compared on a plain
+ * JVM. Like Android, SQLite is used in WAL mode with synchronous=NORMAL unless WAL is turned off.
+ */
+public class JdbcPerfTest extends PerfTest {
+
+    public static final String DB_NAME = "sqlite-jdbc";
+    private static final int BUSY_TIMEOUT_MILLIS = 10000;
+
+    private final boolean writeAheadLog;
+    private boolean versionLoggedOnce;
+    private File dbFile;
+    private Connection connection;
+    private SimpleEntityDao dao;
+    private SimpleEntityDao daoIndexed;
+
+    public JdbcPerfTest() {
+        this(true);
+    }
+
+    /**
+     * @param writeAheadLog if false, uses a rollback journal (journal_mode=TRUNCATE) instead of WAL
+     */
+    public JdbcPerfTest(boolean writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @Override
+    public String name() {
+        return writeAheadLog ? "SQLite-JDBC" : "SQLite-JDBC (no WAL)";
+    }
+
+    @Override
+    public void setUp(PerfTestRunner testRunner) {
+        super.setUp(testRunner);
+        dbFile = new File(testRunner.getPlatform().getDatabaseDirectory(), DB_NAME);
+        if (deleteDbFiles()) {
+            log("DB existed before start - deleted");
+        }
+        try {
+            connection = openConnection();
+            dao = SimpleEntityDao.create(connection, "SimpleEntity", false);
+            daoIndexed = SimpleEntityDao.create(connection, "SimpleEntityIndexed", true);
+
+            if (!versionLoggedOnce) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("select sqlite_version() AS sqlite_version")) {
+                    if (resultSet.next()) {
+                        log("SQLite version " + resultSet.getString(1));
+                    }
+                }
+                versionLoggedOnce = true;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Opens a connection to the database file; connections of concurrent threads wait for locks held by others
+     * instead of failing with SQLITE_BUSY.
+     */
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(writeAheadLog ? "PRAGMA journal_mode=WAL" : "PRAGMA journal_mode=TRUNCATE");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+        }
+        return connection;
+    }
+
+    @Override
+    public void run(TestType type) {
+        switch (type.name) {
+            case TestType.CRUD:
+                runBatchPerfTest(dao, false);
+                break;
+            case TestType.CRUD_SCALARS:
+                runBatchPerfTest(dao, true);
+                break;
+            case TestType.CRUD_INDEXED:
+                runBatchPerfTest(daoIndexed, false);
+                break;
+            case TestType.QUERY_STRING:
+                runQueryByString(dao);
+                break;
+            case TestType.QUERY_STRING_INDEXED:
+                runQueryByString(daoIndexed);
+                break;
+            case TestType.QUERY_INTEGER:
+                runQueryByInteger(dao);
+                break;
+            case TestType.QUERY_INTEGER_INDEXED:
+                runQueryByInteger(daoIndexed);
+                break;
+            case TestType.QUERY_ID:
+                runQueryById(false);
+                break;
+            case TestType.QUERY_ID_RANDOM:
+                runQueryById(true);
+                break;
+            case TestType.QUERY_ID_SINGLE:
+                runQueryByIds(false);
+                break;
+            case TestType.QUERY_ID_BATCH:
+                runQueryByIds(true);
+                break;
+            case TestType.YCSB_A:
+            case TestType.YCSB_B:
+            case TestType.YCSB_C:
+            case TestType.YCSB_D:
+            case TestType.YCSB_E:
+            case TestType.YCSB_F:
+                runYcsb(YcsbWorkload.forType(type));
+                break;
+            case TestType.TRACE_REPLAY:
+                runTraceReplay();
+                break;
+            case TestType.CHUNKED_WRITES:
+                runChunkedWrites(chunkedWrites(false));
+                break;
+            case TestType.BATCH_SIZE_TUNING:
+                tuneBatchSize(chunkedWrites(false), "all properties");
+                break;
+            case TestType.BATCH_SIZE_TUNING_SCALARS:
+                tuneBatchSize(chunkedWrites(true), "scalars");
+                break;
+            case TestType.CONCURRENT_RW:
+                runConcurrent();
+                break;
+        }
+    }
+
+    private void runBatchPerfTest(SimpleEntityDao dao, boolean scalarsOnly) {
+        List<SimpleEntity> list = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            list.add(createEntity(i, scalarsOnly));
+        }
+        startBenchmark("insert");
+        dao.insertInTx(list);
+        stopBenchmark();
+
+        for (int i = 0; i < list.size(); i++) {
+            if (scalarsOnly) {
+                setScalars(list.get(i), updateRow(i));
+            } else {
+                setValues(list.get(i), updateRow(i));
+            }
+        }
+        startBenchmark("update");
+        dao.updateInTx(list);
+        stopBenchmark();
+
+        //noinspection UnusedAssignment
+        list = null;
+
+        startBenchmark("load");
+        List<SimpleEntity> reloaded = dao.loadAll();
+        stopBenchmark();
+
+        assertEntityCount(reloaded.size());
+
+        startBenchmark("access");
+        accessAll(reloaded);
+        stopBenchmark();
+
+        startBenchmark("delete");
+        dao.deleteInTx(reloaded);
+        stopBenchmark();
+    }
+
+    private void runQueryByString(SimpleEntityDao dao) {
+        if (dao == this.dao && numberEntities > 10000) {
+            log("Reduce number of entities to 10000 to avoid extremely long test runs");
+            return;
+        }
+        List<SimpleEntity> entities = prepareAndInsertEntities(dao);
+
+        String[] stringsToLookup = new String[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            String text = "";
+            while (text.length() < 2) {
+                text = entities.get(nextKey()).getSimpleString();
+            }
+            stringsToLookup[i] = text;
+        }
+
+        startBenchmark("query");
+        long entitiesFound = 0;
+        try {
+            dao.beginTransaction();
+            for (int i = 0; i < numberEntities; i++) {
+                long start = startOperation();
+                List<SimpleEntity> result = dao.whereSimpleStringEq(stringsToLookup[i]);
+                accessAll(result);
+                recordOperation(start);
+                entitiesFound += result.size();
+            }
+            dao.commitTransaction();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        stopBenchmark();
+        log("Entities found: " + entitiesFound);
+    }
+
+    private void runQueryByInteger(SimpleEntityDao dao) {
+        if (dao == this.dao && numberEntities > 10000) {
+            log("Reduce number of entities to 10000 to avoid extremely long test runs");
+            return;
+        }
+        List<SimpleEntity> entities = prepareAndInsertEntities(dao);
+
+        final int[] valuesToLookup = new int[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            valuesToLookup[i] = entities.get(nextKey()).getSimpleInt();
+        }
+
+        startBenchmark("query");
+        long entitiesFound = 0;
+        for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
+            List<SimpleEntity> result = dao.whereSimpleIntEq(valuesToLookup[i]);
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
+        }
+        stopBenchmark();
+        log("Entities found: " + entitiesFound);
+        assertGreaterOrEqualToNumberOfEntities(entitiesFound);
+    }
+
+    private void runQueryById(boolean randomIds) {
+        prepareAndInsertEntities(dao);
+
+        long[] idsToLookup = new long[numberEntities];
+        for (int i = 0; i < numberEntities; i++) {
+            idsToLookup[i] = randomIds ? nextKey() : i;
+        }
+
+        startBenchmark("query");
+        for (int i = 0; i < numberEntities; i++) {
+            long start = startOperation();
+            SimpleEntity entity = dao.load(idsToLookup[i]);
+            accessAll(entity);
+            recordOperation(start);
+        }
+        stopBenchmark();
+    }
+
+    /** Looks up each entity once by ID, with a get per ID or batch gets of {@link #ID_BATCH_SIZE} IDs. */
+    private void runQueryByIds(boolean batch) {
+        prepareAndInsertEntities(dao);
+
+        long[] idsToLookup = shuffledIds(0);
+        if (!batch) {
+            startBenchmark("query");
+            for (long id : idsToLookup) {
+                long start = startOperation();
+                accessAll(dao.load(id));
+                recordOperation(start);
+            }
+            stopBenchmark();
+            return;
+        }
+
+        long[][] batches = toIdBatches(idsToLookup);
+        long entitiesFound = 0;
+        startBenchmark("query");
+        for (int i = 0; i < batches.length; i++) {
+            long start = startOperation();
+            List<SimpleEntity> result = dao.loadByIds(batches[i]);
+            accessAll(result);
+            recordOperation(start);
+            entitiesFound += result.size();
+        }
+        stopBenchmark();
+        assertEntityCount(entitiesFound);
+    }
+
+    private ChunkedWrites.Operations chunkedWrites(final boolean scalarsOnly) {
+        final List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        return new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+                entities.clear();
+                for (int i = 0; i < numberEntities; i++) {
+                    entities.add(createEntity(i, scalarsOnly));
+                }
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                dao.insertInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void prepareUpdate() {
+                for (int i = 0; i < entities.size(); i++) {
+                    if (scalarsOnly) {
+                        setScalars(entities.get(i), updateRow(i));
+                    } else {
+                        setValues(entities.get(i), updateRow(i));
+                    }
+                }
+            }
+
+            @Override
+            public void update(int from, int to) {
+                dao.updateInTx(entities.subList(from, to));
+            }
+
+            @Override
+            public void deleteAll() {
+                assertEntityCount(dao.count());
+                dao.deleteInTx(entities);
+            }
+        };
+    }
+
+    private void runYcsb(YcsbWorkload workload) {
+        prepareAndInsertEntities(dao);
+
+        runWorkload(workload, new YcsbWorkload.Operations() {
+            @Override
+            public boolean read(int key) {
+                SimpleEntity entity = dao.load(key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public void update(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.update(entity);
+            }
+
+            @Override
+            public void insert(int key, int row) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                dao.insert(entity);
+            }
+
+            @Override
+            public int scan(int startKey, int count) {
+                List<SimpleEntity> result = dao.scan(startKey, count);
+                accessAll(result);
+                return result.size();
+            }
+        });
+    }
+
+    private void runTraceReplay() {
+        runTrace(new OperationTrace.Operations() {
+            @Override
+            public void put(int key, int row, byte[] payload) {
+                SimpleEntity entity = createEntity(row, false);
+                entity.setId((long) key);
+                entity.setSimpleByteArray(payload);
+                dao.insertOrReplace(entity);
+            }
+
+            @Override
+            public boolean get(int key) {
+                SimpleEntity entity = dao.load(key);
+                if (entity == null) {
+                    return false;
+                }
+                accessAll(entity);
+                return true;
+            }
+
+            @Override
+            public int query(int value) {
+                List<SimpleEntity> result = dao.whereSimpleIntEq(value);
+                accessAll(result);
+                return result.size();
+            }
+
+            @Override
+            public void remove(int key) {
+                dao.deleteById(key);
+            }
+        });
+    }
+
+    private List<SimpleEntity> prepareAndInsertEntities(SimpleEntityDao dao) {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        dao.insertInTx(entities);
+        stopBenchmark();
+
+        assertEntityCount(dao.count());
+        return entities;
+    }
+
+    /** Like Room, uses the indexed table; each thread has its own connection. */
+    private void runConcurrent() {
+        List<SimpleEntity> entities = new ArrayList<>(numberEntities);
+        for (int i = 0; i < numberEntities; i++) {
+            entities.add(createEntity(i, false));
+        }
+
+        startBenchmark("insert");
+        daoIndexed.insertInTx(entities);
+        stopBenchmark();
+        //noinspection UnusedAssignment
+        entities = null;
+
+        runConcurrent(new ConcurrentWorkload.Operations() {
+            @Override
+            public ConcurrentWorkload.Reader openReader(final ValueChecksum values) {
+                final Connection threadConnection = openThreadConnection();
+                final SimpleEntityDao threadDao = createIndexedDao(threadConnection);
+                return new ConcurrentWorkload.Reader() {
+                    @Override
+                    public boolean get(int key) {
+                        SimpleEntity entity = threadDao.load(key);
+                        if (entity == null) {
+                            return false;
+                        }
+                        accessAll(values, entity);
+                        return true;
+                    }
+
+                    @Override
+                    public int query(int value) {
+                        List<SimpleEntity> results = threadDao.whereSimpleIntEq(value);
+                        for (SimpleEntity entity : results) {
+                            accessAll(values, entity);
+                        }
+                        return results.size();
+                    }
+
+                    @Override
+                    public void close() {
+                        closeThreadConnection(threadConnection);
+                    }
+                };
+            }
+
+            @Override
+            public ConcurrentWorkload.Writer openWriter() {
+                final Connection threadConnection = openThreadConnection();
+                final SimpleEntityDao threadDao = createIndexedDao(threadConnection);
+                return new ConcurrentWorkload.Writer() {
+                    @Override
+                    public void insert(int key, int row) {
+                        SimpleEntity entity = createEntity(row, false);
+                        entity.setId((long) key);
+                        threadDao.insert(entity);
+                    }
+
+                    @Override
+                    public void update(int key, int row) {
+                        SimpleEntity entity = createEntity(row, false);
+                        entity.setId((long) key);
+                        threadDao.update(entity);
+                    }
+
+                    @Override
+                    public void close() {
+                        closeThreadConnection(threadConnection);
+                    }
+                };
+            }
+        });
+    }
+
+    private Connection openThreadConnection() {
+        try {
+            return openConnection();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static SimpleEntityDao createIndexedDao(Connection connection) {
+        try {
+            return SimpleEntityDao.create(connection, "SimpleEntityIndexed", true);
+        } catch (SQLException e) {
+            closeThreadConnection(connection);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void closeThreadConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        super.tearDown();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        boolean deleted = deleteDbFiles();
+        log("DB deleted: " + deleted);
+    }
+
+    @Override
+    public long getDatabaseSizeOnDisk() {
+        return sizeOfFiles(dbFile, new File(dbFile.getPath() + "-wal"), new File(dbFile.getPath() + "-shm"));
+    }
+
+    private boolean deleteDbFiles() {
+        boolean deleted = dbFile.delete();
+        new File(dbFile.getPath() + "-wal").delete();
+        new File(dbFile.getPath() + "-shm").delete();
+        return deleted;
+    }
+
+    private void accessAll(SimpleEntity entity) {
+        accessAll(checksum, entity);
+    }
+
+    private static void accessAll(ValueChecksum values, SimpleEntity entity) {
+        values.add(entity.getId(), entity.getSimpleBoolean(), entity.getSimpleByte(), entity.getSimpleShort(),
+                entity.getSimpleInt(), entity.getSimpleLong(), entity.getSimpleFloat(), entity.getSimpleDouble(),
+                entity.getSimpleString(), entity.getSimpleByteArray());
+    }
+
+    protected void accessAll(List<SimpleEntity> list) {
+        for (SimpleEntity entity : list) {
+            accessAll(entity);
+        }
+    }
+
+    private void setValues(SimpleEntity entity, int row) {
+        setScalars(entity, row);
+        entity.setSimpleString(dataset.getString(row));
+        entity.setSimpleByteArray(dataset.getByteArray(row));
+    }
+
+    private void setScalars(SimpleEntity entity, int row) {
+        entity.setSimpleBoolean(dataset.getBoolean(row));
+        entity.setSimpleByte(dataset.getByte(row));
+        entity.setSimpleShort(dataset.getShort(row));
+        entity.setSimpleInt(dataset.getInt(row));
+        entity.setSimpleLong(dataset.getLong(row));
+        entity.setSimpleDouble(dataset.getDouble(row));
+        entity.setSimpleFloat(dataset.getFloat(row));
+    }
+
+    private SimpleEntity createEntity(int row, boolean scalarsOnly) {
+        SimpleEntity entity = new SimpleEntity();
+        entity.setId((long) row);
+        if (scalarsOnly) {
+            setScalars(entity, row);
+        } else {
+            setValues(entity, row);
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand written equivalent of the Room DAOs using plain JDBC. Statements are prepared once and reused, like Room
+ * does with its compiled statements.
+ */
+public class SimpleEntityDao {
+
+    private static final String COLUMNS = "id, simpleBoolean, simpleByte, simpleShort, simpleInt, simpleLong, "
+            + "simpleFloat, simpleDouble, simpleString, simpleByteArray";
+
+    private final Connection connection;
+    private final String table;
+
+    private final PreparedStatement insertStatement;
+    private final PreparedStatement insertOrReplaceStatement;
+    private final PreparedStatement updateStatement;
+    private final PreparedStatement deleteStatement;
+    private final PreparedStatement loadStatement;
+    private final PreparedStatement whereSimpleIntEqStatement;
+    private final PreparedStatement whereSimpleStringEqStatement;
+    private final PreparedStatement scanStatement;
+    /** "WHERE id IN (...)" statements by number of IDs, see {@link #loadByIds(long[])}. */
+    private final Map<Integer, PreparedStatement> loadByIdsStatements = new HashMap<>();
+
+    /**
+     * Creates the table (and indexes for simpleInt and simpleString if indexed) using the same schema as Room.
+     */
+    public static SimpleEntityDao create(Connection connection, String table, boolean indexed) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + table + "` (`id` INTEGER NOT NULL, "
+                    + "`simpleBoolean` INTEGER NOT NULL, `simpleByte` INTEGER NOT NULL, "
+                    + "`simpleShort` INTEGER NOT NULL, `simpleInt` INTEGER NOT NULL, `simpleLong` INTEGER NOT NULL, "
+                    + "`simpleFloat` REAL NOT NULL, `simpleDouble` REAL NOT NULL, `simpleString` TEXT, "
+                    + "`simpleByteArray` BLOB, PRIMARY KEY(`id`))");
+            if (indexed) {
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS `index_" + table + "_simpleInt` ON `"
+                        + table + "` (`simpleInt`)");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS `index_" + table + "_simpleString` ON `"
+                        + table + "` (`simpleString`)");
+            }
+        }
+        return new SimpleEntityDao(connection, table);
+    }
+
+    private SimpleEntityDao(Connection connection, String table) throws SQLException {
+        this.connection = connection;
+        this.table = table;
+        insertStatement = connection.prepareStatement("INSERT INTO " + table + " (" + COLUMNS
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        insertOrReplaceStatement = connection.prepareStatement("INSERT OR REPLACE INTO " + table + " (" + COLUMNS
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        updateStatement = connection.prepareStatement("UPDATE " + table + " SET simpleBoolean = ?, "
+                + "simpleByte = ?, simpleShort = ?, simpleInt = ?, simpleLong = ?, simpleFloat = ?, "
+                + "simpleDouble = ?, simpleString = ?, simpleByteArray = ? WHERE id = ?");
+        deleteStatement = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ?");
+        loadStatement = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + table
+                + " WHERE id = ? LIMIT 1");
+        whereSimpleIntEqStatement = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + table
+                + " WHERE simpleInt = ?");
+        whereSimpleStringEqStatement = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + table
+                + " WHERE simpleString = ?");
+        scanStatement = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + table
+                + " WHERE id >= ? ORDER BY id LIMIT ?");
+    }
+
+    /** Inserts a single entity in its own (implicit) transaction. */
+    public void insert(SimpleEntity entity) {
+        try {
+            insertStatement.setLong(1, entity.getId());
+            bindValues(insertStatement, 2, entity);
+            insertStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Inserts or replaces a single entity in its own (implicit) transaction. */
+    public void insertOrReplace(SimpleEntity entity) {
+        try {
+            insertOrReplaceStatement.setLong(1, entity.getId());
+            bindValues(insertOrReplaceStatement, 2, entity);
+            insertOrReplaceStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Updates a single entity in its own (implicit) transaction. */
+    public void update(SimpleEntity entity) {
+        try {
+            bindValues(updateStatement, 1, entity);
+            updateStatement.setLong(10, entity.getId());
+            updateStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void insertInTx(List<SimpleEntity> entities) {
+        try {
+            beginTransaction();
+            for (SimpleEntity entity : entities) {
+                insertStatement.setLong(1, entity.getId());
+                bindValues(insertStatement, 2, entity);
+                insertStatement.executeUpdate();
+            }
+            commitTransaction();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    public void updateInTx(List<SimpleEntity> entities) {
+        try {
+            beginTransaction();
+            for (SimpleEntity entity : entities) {
+                bindValues(updateStatement, 1, entity);
+                updateStatement.setLong(10, entity.getId());
+                updateStatement.executeUpdate();
+            }
+            commitTransaction();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    public void deleteInTx(List<SimpleEntity> entities) {
+        try {
+            beginTransaction();
+            for (SimpleEntity entity : entities) {
+                deleteStatement.setLong(1, entity.getId());
+                deleteStatement.executeUpdate();
+            }
+            commitTransaction();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    /** Deletes a single entity in its own (implicit) transaction. */
+    public void deleteById(long id) {
+        try {
+            deleteStatement.setLong(1, id);
+            deleteStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public SimpleEntity load(long id) {
+        try {
+            loadStatement.setLong(1, id);
+            try (ResultSet resultSet = loadStatement.executeQuery()) {
+                return resultSet.next() ? readEntity(resultSet) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Entities with the given IDs, using a single "WHERE id IN (...)" query; SQLite allows up to 999 IDs (before
+     * 3.32). A statement is prepared once for each number of IDs.
+     */
+    public List<SimpleEntity> loadByIds(long[] ids) {
+        try {
+            PreparedStatement statement = loadByIdsStatements.get(ids.length);
+            if (statement == null) {
+                StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM " + table + " WHERE id IN (");
+                for (int i = 0; i < ids.length; i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                statement = connection.prepareStatement(sql.append(')').toString());
+                loadByIdsStatements.put(ids.length, statement);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                statement.setLong(i + 1, ids[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return readEntities(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<SimpleEntity> loadAll() {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + COLUMNS + " FROM " + table)) {
+            return readEntities(resultSet);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<SimpleEntity> whereSimpleIntEq(int value) {
+        try {
+            whereSimpleIntEqStatement.setInt(1, value);
+            try (ResultSet resultSet = whereSimpleIntEqStatement.executeQuery()) {
+                return readEntities(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<SimpleEntity> whereSimpleStringEq(String value) {
+        try {
+            whereSimpleStringEqStatement.setString(1, value);
+            try (ResultSet resultSet = whereSimpleStringEqStatement.executeQuery()) {
+                return readEntities(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Up to count entities with an ID of at least startId, ordered by ID. */
+    public List<SimpleEntity> scan(long startId, int count) {
+        try {
+            scanStatement.setLong(1, startId);
+            scanStatement.setInt(2, count);
+            try (ResultSet resultSet = scanStatement.executeQuery()) {
+                return readEntities(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int count() {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void beginTransaction() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    public void commitTransaction() throws SQLException {
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private RuntimeException rollback(SQLException e) {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException rollbackException) {
+            e.addSuppressed(rollbackException);
+        }
+        return new RuntimeException(e);
+    }
+
+    private static void bindValues(PreparedStatement statement, int firstIndex, SimpleEntity entity)
+            throws SQLException {
+        int i = firstIndex;
+        statement.setBoolean(i++, entity.getSimpleBoolean());
+        statement.setByte(i++, entity.getSimpleByte());
+        statement.setShort(i++, entity.getSimpleShort());
+        statement.setInt(i++, entity.getSimpleInt());
+        statement.setLong(i++, entity.getSimpleLong());
+        statement.setFloat(i++, entity.getSimpleFloat());
+        statement.setDouble(i++, entity.getSimpleDouble());
+        statement.setString(i++, entity.getSimpleString());
+        statement.setBytes(i, entity.getSimpleByteArray());
+    }
+
+    private static List<SimpleEntity> readEntities(ResultSet resultSet) throws SQLException {
+        List<SimpleEntity> entities = new ArrayList<>();
+        while (resultSet.next()) {
+            entities.add(readEntity(resultSet));
+        }
+        return entities;
+    }
+
+    private static SimpleEntity readEntity(ResultSet resultSet) throws SQLException {
+        SimpleEntity entity = new SimpleEntity();
+        entity.setId(resultSet.getLong(1));
+        entity.setSimpleBoolean(resultSet.getBoolean(2));
+        entity.setSimpleByte(resultSet.getByte(3));
+        entity.setSimpleShort(resultSet.getShort(4));
+        entity.setSimpleInt(resultSet.getInt(5));
+        entity.setSimpleLong(resultSet.getLong(6));
+        entity.setSimpleFloat(resultSet.getFloat(7));
+        entity.setSimpleDouble(resultSet.getDouble(8));
+        entity.setSimpleString(resultSet.getString(9));
+        entity.setSimpleByteArray(resultSet.getBytes(10));
+        return entity;
+    }
+
+}
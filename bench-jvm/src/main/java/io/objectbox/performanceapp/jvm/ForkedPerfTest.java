@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.performanceapp.Benchmark;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.IsolatedPerfTest;
+import io.objectbox.performanceapp.PerfTestRunner;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.WarmUpController;
+
+/**
+ * Runs the tests of a database in a forked JVM with the same class path and JVM arguments, see
+ * {@link JvmBenchmark} option --isolate. The child runs with --child and writes log output and results (see
+ * {@link StreamResultSink}) to its standard output, which is read through a pipe; its standard error output is logged
+ * as errors.
+ */
+public class ForkedPerfTest extends IsolatedPerfTest {
+
+    private final String database;
+    private final File dbDir;
+    private final boolean verbose;
+
+    public ForkedPerfTest(String database, String name, File dbDir, boolean verbose) {
+        super(name);
+        this.database = database;
+        this.dbDir = dbDir;
+        this.verbose = verbose;
+    }
+
+    @Override
+    public void runIsolated(PerfTestRunner testRunner, TestType type, int runs, int numberEntities,
+                            WarmUpController warmUpController, Benchmark benchmark) {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(JvmBenchmark.class.getName());
+        command.add("--child");
+        addOption(command, "--db", database);
+        addOption(command, "--type", type.nameShort);
+        addOption(command, "--runs", Integer.toString(runs));
+        addOption(command, "--entities", Integer.toString(numberEntities));
+        addOption(command, "--warm-up", Integer.toString(warmUpController.getMaxRuns()));
+        addOption(command, "--warm-up-cv", Double.toString(warmUpController.getMaxVariation() * 100));
+        addOption(command, "--warm-up-window", Integer.toString(warmUpController.getWindow()));
+        addOption(command, "--keys", testRunner.getKeyDistribution().toString());
+        addOption(command, "--rate", Integer.toString(testRunner.getOperationRate()));
+        if (testRunner.getTraceFile() != null) {
+            addOption(command, "--trace", testRunner.getTraceFile().getPath());
+        }
+        addOption(command, "--trace-speed", Double.toString(testRunner.getTraceSpeed()));
+        addOption(command, "--chunk-sizes", ChunkedWrites.format(testRunner.getChunkSizes()));
+        addOption(command, "--max-commit-p99",
+                Double.toString(testRunner.getBatchSizeTuner().getMaxP99Nanos() / 1000000.0));
+        ConcurrentWorkload concurrentWorkload = testRunner.getConcurrentWorkload();
+        addOption(command, "--readers", Integer.toString(concurrentWorkload.getReaders()));
+        addOption(command, "--writers", Integer.toString(concurrentWorkload.getWriters()));
+        addOption(command, "--duration", Double.toString(concurrentWorkload.getDurationMillis() / 1000.0));
+        addOption(command, "--db-dir", dbDir.getPath());
+        addOption(command, "--dataset-dir", testRunner.getPlatform().getDatasetDirectory().getPath());
+        if (verbose) {
+            command.add("--verbose");
+        }
+
+        int exitCode;
+        try {
+            Process process = new ProcessBuilder(command).start();
+            testRunner.log("Forked JVM for " + name());
+            Thread errorReader = new Thread(() -> logErrors(testRunner, process.getErrorStream()), "PerfForkStderr");
+            errorReader.start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    Charset.forName("UTF-8")))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[][] result = StreamResultSink.parse(line);
+                    if (result != null) {
+                        testRunner.commitIsolatedRow(benchmark, name(), result[0], result[1]);
+                    } else {
+                        testRunner.log(line);
+                    }
+                }
+            }
+            exitCode = process.waitFor();
+            errorReader.join();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not run forked JVM", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for forked JVM", e);
+        }
+        if (exitCode != 0) {
+            throw new RuntimeException("Forked JVM for " + name() + " failed with exit code " + exitCode);
+        }
+    }
+
+    /** Passes the standard error output of the forked JVM to {@link PerfTestRunner#logError(String)}. */
+    private static void logErrors(PerfTestRunner testRunner, InputStream errorStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(errorStream,
+                Charset.forName("UTF-8")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                testRunner.logError(line);
+            }
+        } catch (IOException e) {
+            testRunner.logError("Could not read error output of forked JVM: " + e);
+        }
+    }
+
+    private static void addOption(List<String> command, String option, String value) {
+        command.add(option);
+        command.add(value);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import io.objectbox.performanceapp.PhaseProbe;
+
+/**
+ * Measures bytes allocated by the test thread (if supported by the JVM, not for multi-threaded phases) and garbage
+ * collections of all collectors. Unlike on Android, the number of allocated objects is not available.
+ */
+public class JvmAllocationProbe implements PhaseProbe {
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final List<GarbageCollectorMXBean> gcMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private long allocatedBytesStart;
+    private long gcCountStart;
+    private long gcTimeStart;
+    private boolean multiThreaded;
+
+    public JvmAllocationProbe() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadMXBean = (com.sun.management.ThreadMXBean) bean;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threadMXBean = null;
+        }
+    }
+
+    @Override
+    public void start() {
+        multiThreaded = false;
+        gcCountStart = gcCount();
+        gcTimeStart = gcTimeMillis();
+        if (threadMXBean != null) {
+            allocatedBytesStart = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    @Override
+    public void startMultiThreaded() {
+        start();
+        multiThreaded = true;
+    }
+
+    @Override
+    public String stop(int numberEntities, Values values) {
+        String log = "";
+        if (threadMXBean != null && !multiThreaded) {
+            long allocBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+                    - allocatedBytesStart;
+            values.add("alloc-bytes", allocBytes);
+            log += ", alloc: " + PhaseProbe.formatBytes(allocBytes);
+            if (numberEntities > 0) {
+                log += " (" + allocBytes / numberEntities + " B/entity)";
+            }
+        }
+        long gcCount = gcCount() - gcCountStart;
+        long gcTime = gcTimeMillis() - gcTimeStart;
+        values.add("gc-count", gcCount);
+        values.add("gc-ms", gcTime);
+        return log + ", GCs: " + gcCount + " (" + gcTime + " ms)";
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : gcMXBeans) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : gcMXBeans) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import io.objectbox.performanceapp.BatchSizeTuner;
+import io.objectbox.performanceapp.BenchmarkPlan;
+import io.objectbox.performanceapp.ChunkedWrites;
+import io.objectbox.performanceapp.ConcurrentWorkload;
+import io.objectbox.performanceapp.KeyDistribution;
+import io.objectbox.performanceapp.PerfTest;
+import io.objectbox.performanceapp.PerfTestRegistry;
+import io.objectbox.performanceapp.PerfTestVariant;
+import io.objectbox.performanceapp.RateSweep;
+import io.objectbox.performanceapp.ResultFormat;
+import io.objectbox.performanceapp.ScalingSweep;
+import io.objectbox.performanceapp.TestType;
+import io.objectbox.performanceapp.WarmUpController;
+
+/**
+ * Command line entry point to run tests without an Android device, e.g.
+ * <pre>
+ * ./gradlew :bench-jvm:run --args="--type crud --runs 3 --entities 100000 --db objectbox,sqlite"
+ * </pre>
+ */
+public class JvmBenchmark {
+
+    private static final PerfTestRegistry REGISTRY = new PerfTestRegistry();
+
+    private static final String USAGE = "Options:\n"
+            + "  --plan <file>         run a JSON benchmark plan, ignores --type, --runs, --entities and --db\n"
+            + "  --sweep               run --type at increasing entity counts, see --sweep-* options\n"
+            + "  --sweep-start <n>     first entity count of the sweep (default: 1000)\n"
+            + "  --sweep-max <n>       max entity count of the sweep (default: 10000000)\n"
+            + "  --sweep-steps <n>     entity counts per factor of 10 (default: 2)\n"
+            + "  --time-budget <s>     max seconds of a sweep for each database (default: 600)\n"
+            + "  --heap-budget <MB>    stop a sweep if more heap is used (default: 80 % of max heap)\n"
+            + "  --rate-sweep          run --type at increasing --rate until p99 latency or throughput degrade\n"
+            + "  --rate-start <n>      first ops/s of the rate sweep (default: 1000)\n"
+            + "  --rate-max <n>        max ops/s of the rate sweep (default: 1000000)\n"
+            + "  --rate-steps <n>      rates per factor of 10 (default: 3)\n"
+            + "  --max-p99-factor <x>  unsustainable if p99 exceeds x times p99 at the start rate (default: 10)\n"
+            + "  --max-p99 <us>        unsustainable if p99 exceeds this (default: use --max-p99-factor)\n"
+            + "  --type <type>         test type, one of: " + typeNames() + " (default: crud)\n"
+            + "  --runs <n>            number of measured runs (default: 1)\n"
+            + "  --warm-up <n>         max number of warm-up runs, 0 to disable (default: 10)\n"
+            + "  --warm-up-cv <pct>    max coefficient of variation of warm-up runs in percent (default: 5)\n"
+            + "  --warm-up-window <n>  number of warm-up runs the variation is computed over (default: 3)\n"
+            + "  --entities <n>        number of entities (default: 100000)\n"
+            + "  --keys <dist>         entities looked up by query types: uniform, zipfian[:theta],\n"
+            + "                        hotspot[:hot-keys[:hot-ops]], latest[:theta] (default: uniform)\n"
+            + "  --rate <ops/s>        run single operations (e.g. queries) open-loop at this rate, latency is\n"
+            + "                        measured from the intended start (default: 0, closed-loop)\n"
+            + "  --trace <file>        operation trace to replay with --type trace-replay\n"
+            + "  --trace-speed <x>     replay speed, 1 for the original timing, 0 for max speed (default: 1)\n"
+            + "  --chunk-sizes <n,..>  entities per transaction of chunked-writes (default: 1,10,100,1000,10000)\n"
+            + "  --max-commit-p99 <ms> p99 latency limit of writing a chunk for batch-size-tuning (default: 16)\n"
+            + "  --readers <n>         reader threads of concurrent-rw (default: 2)\n"
+            + "  --writers <n>         writer threads of concurrent-rw (default: 1)\n"
+            + "  --duration <s>        how long readers and writers of concurrent-rw run (default: 10)\n"
+            + "  --db <names>          comma separated databases: " + REGISTRY.getIds() + " (default: objectbox)\n"
+            + "  --results-dir <dir>   directory to write result files to (default: .)\n"
+            + "  --format <formats>    comma separated result formats: tsv, csv, jsonl (default: tsv)\n"
+            + "  --db-dir <dir>        directory to create database files in (default: db)\n"
+            + "  --dataset-dir <dir>   directory to keep generated test data in (default: dataset)\n"
+            + "  --isolate             run each database (and plan or sweep step) in a forked JVM\n"
+            + "  --verbose             print debug output";
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        TestType type = TestType.forNameShort("crud");
+        File planFile = null;
+        ScalingSweep sweep = null;
+        RateSweep rateSweep = null;
+        int operationRate = 0;
+        File traceFile = null;
+        double traceSpeed = 1;
+        int[] chunkSizes = ChunkedWrites.DEFAULT_CHUNK_SIZES;
+        BatchSizeTuner batchSizeTuner = new BatchSizeTuner();
+        ConcurrentWorkload concurrentWorkload = new ConcurrentWorkload();
+        int runs = 1;
+        int numberEntities = 100000;
+        String databases = "objectbox";
+        File resultsDir = new File(".");
+        Set<ResultFormat> formats = EnumSet.of(ResultFormat.TSV);
+        File dbDir = new File("db");
+        File datasetDir = new File("dataset");
+        boolean verbose = false;
+        boolean isolate = false;
+        boolean child = false;
+        WarmUpController warmUpController = new WarmUpController();
+        KeyDistribution keyDistribution = KeyDistribution.uniform();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--plan":
+                        planFile = new File(args[++i]);
+                        break;
+                    case "--sweep":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        break;
+                    case "--sweep-start":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        sweep.startEntities(Integer.parseInt(args[++i]));
+                        break;
+                    case "--sweep-max":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        sweep.maxEntities(Integer.parseInt(args[++i]));
+                        break;
+                    case "--sweep-steps":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        sweep.stepsPerDecade(Integer.parseInt(args[++i]));
+                        break;
+                    case "--time-budget":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        sweep.timeBudgetMillis(Long.parseLong(args[++i]) * 1000);
+                        break;
+                    case "--heap-budget":
+                        sweep = sweep != null ? sweep : new ScalingSweep();
+                        sweep.heapBudgetBytes(Long.parseLong(args[++i]) * 1024 * 1024);
+                        break;
+                    case "--rate-sweep":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        break;
+                    case "--rate-start":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        rateSweep.startRate(Integer.parseInt(args[++i]));
+                        break;
+                    case "--rate-max":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        rateSweep.maxRate(Integer.parseInt(args[++i]));
+                        break;
+                    case "--rate-steps":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        rateSweep.stepsPerDecade(Integer.parseInt(args[++i]));
+                        break;
+                    case "--max-p99-factor":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        rateSweep.maxLatencyFactor(Double.parseDouble(args[++i]));
+                        break;
+                    case "--max-p99":
+                        rateSweep = rateSweep != null ? rateSweep : new RateSweep();
+                        rateSweep.maxP99Nanos(Math.round(Double.parseDouble(args[++i]) * 1000));
+                        break;
+                    case "--type":
+                        type = TestType.forNameShort(args[++i]);
+                        break;
+                    case "--runs":
+                        runs = Integer.parseInt(args[++i]);
+                        break;
+                    case "--warm-up":
+                        warmUpController.maxRuns(Integer.parseInt(args[++i]));
+                        break;
+                    case "--warm-up-cv":
+                        warmUpController.maxVariation(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    case "--warm-up-window":
+                        warmUpController.window(Integer.parseInt(args[++i]));
+                        break;
+                    case "--entities":
+                        numberEntities = Integer.parseInt(args[++i]);
+                        break;
+                    case "--keys":
+                        keyDistribution = KeyDistribution.forName(args[++i]);
+                        break;
+                    case "--rate":
+                        operationRate = Integer.parseInt(args[++i]);
+                        if (operationRate < 0) {
+                            throw new IllegalArgumentException("Rate must not be negative");
+                        }
+                        break;
+                    case "--trace":
+                        traceFile = new File(args[++i]);
+                        break;
+                    case "--trace-speed":
+                        traceSpeed = Double.parseDouble(args[++i]);
+                        if (!(traceSpeed >= 0)) {
+                            throw new IllegalArgumentException("Trace speed must not be negative");
+                        }
+                        break;
+                    case "--chunk-sizes":
+                        chunkSizes = ChunkedWrites.parse(args[++i]);
+                        break;
+                    case "--max-commit-p99":
+                        batchSizeTuner.maxP99Nanos(Math.round(Double.parseDouble(args[++i]) * 1000000));
+                        break;
+                    case "--readers":
+                        concurrentWorkload.readers(Integer.parseInt(args[++i]));
+                        break;
+                    case "--writers":
+                        concurrentWorkload.writers(Integer.parseInt(args[++i]));
+                        break;
+                    case "--duration":
+                        concurrentWorkload.durationMillis(Math.round(Double.parseDouble(args[++i]) * 1000));
+                        break;
+                    case "--db":
+                        databases = args[++i];
+                        break;
+                    case "--results-dir":
+                        resultsDir = new File(args[++i]);
+                        break;
+                    case "--format":
+                        formats.clear();
+                        for (String format : args[++i].split(",")) {
+                            formats.add(ResultFormat.forExtension(format.trim()));
+                        }
+                        break;
+                    case "--db-dir":
+                        dbDir = new File(args[++i]);
+                        break;
+                    case "--dataset-dir":
+                        datasetDir = new File(args[++i]);
+                        break;
+                    case "--isolate":
+                        isolate = true;
+                        break;
+                    case "--child":
+                        // Internal: forked by --isolate
+                        child = true;
+                        break;
+                    case "--verbose":
+                        verbose = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() + "\n" + USAGE);
+            System.exit(1);
+        }
+        if (!dbDir.isDirectory() && !dbDir.mkdirs()) {
+            throw new IllegalStateException("Could not create " + dbDir.getAbsolutePath());
+        }
+
+        final CountDownLatch doneLatch = new CountDownLatch(1);
+        JvmPlatform platform = new JvmPlatform(dbDir, datasetDir, verbose);
+        JvmPerfTestRunner runner = new JvmPerfTestRunner(platform, doneLatch::countDown, resultsDir, runs,
+                numberEntities);
+        runner.setResultFormats(formats);
+        runner.setWarmUpController(warmUpController);
+        runner.setKeyDistribution(keyDistribution);
+        runner.setOperationRate(operationRate);
+        if (traceFile != null) {
+            runner.setTraceFile(traceFile);
+        }
+        runner.setTraceSpeed(traceSpeed);
+        runner.setChunkSizes(chunkSizes);
+        runner.setBatchSizeTuner(batchSizeTuner);
+        runner.setConcurrentWorkload(concurrentWorkload);
+        runner.setPipeResults(child);
+        BenchmarkPlan plan = planFile != null ? BenchmarkPlan.read(planFile) : null;
+        final boolean isolateTests = isolate || (plan != null && plan.isIsolate());
+        final File testDbDir = dbDir;
+        final boolean verboseTests = verbose;
+        BenchmarkPlan.TestFactory testFactory = !isolateTests ? REGISTRY : new BenchmarkPlan.TestFactory() {
+            @Override
+            public PerfTest createTest(String database) {
+                String name = REGISTRY.getVariant(database).getName();
+                return new ForkedPerfTest(database, name, testDbDir, verboseTests);
+            }
+
+            @Override
+            public boolean supports(String database, TestType type) {
+                return REGISTRY.supports(database, type);
+            }
+        };
+        if (plan != null) {
+            runner.runPlan(plan, testFactory);
+        } else {
+            List<PerfTest> tests = new ArrayList<>();
+            for (String database : databases.split(",")) {
+                PerfTestVariant variant = REGISTRY.getVariant(database.trim());
+                if (!variant.supports(type)) {
+                    System.err.println("Skipping " + variant.getId() + ", does not support " + type.nameShort);
+                    continue;
+                }
+                tests.add(testFactory.createTest(variant.getId()));
+            }
+            if (rateSweep != null) {
+                runner.runRateSweep(type, tests, rateSweep.runs(runs));
+            } else if (sweep != null) {
+                runner.runSweep(type, tests, sweep.runs(runs));
+            } else {
+                runner.run(type, tests);
+            }
+        }
+        doneLatch.await();
+    }
+
+    private static String typeNames() {
+        StringBuilder names = new StringBuilder();
+        for (TestType type : TestType.ALL) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(type.nameShort);
+        }
+        return names.toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import io.objectbox.performanceapp.Benchmark;
+import io.objectbox.performanceapp.LogPipeline;
+import io.objectbox.performanceapp.PerfTestRunner;
+
+/**
+ * Runs tests on a plain JVM and prints log output to the console.
+ */
+public class JvmPerfTestRunner extends PerfTestRunner {
+
+    private final File resultsDirectory;
+    private boolean pipeResults;
+
+    public JvmPerfTestRunner(JvmPlatform platform, Callback callback, File resultsDirectory, int runs,
+                             int numberEntities) {
+        super(platform, callback, runs, numberEntities);
+        this.resultsDirectory = resultsDirectory;
+    }
+
+    /**
+     * Used by a forked JVM: instead of writing result and log files, results are written to standard output for the
+     * parent process, see {@link ForkedPerfTest}.
+     */
+    public void setPipeResults(boolean pipeResults) {
+        this.pipeResults = pipeResults;
+        setWriteLogFile(!pipeResults);
+    }
+
+    @Override
+    protected void addResultSinks(Benchmark benchmark, String name) throws IOException {
+        if (pipeResults) {
+            // Parent may run plans or sweeps, which include the throughput
+            benchmark.enableThroughput().addSink(new StreamResultSink(System.out));
+        } else {
+            super.addResultSinks(benchmark, name);
+        }
+    }
+
+    @Override
+    protected void writeLog(List<LogPipeline.Event> events) {
+        for (LogPipeline.Event event : events) {
+            if (event.error) {
+                System.err.println(event.text);
+            } else {
+                System.out.println(event.text);
+            }
+        }
+    }
+
+    @Override
+    protected void printDeviceInfo() {
+        log("Host: " + getPlatform().deviceName());
+        log("Java " + System.getProperty("java.version") + " (" + System.getProperty("java.vm.name") + ")");
+        log("Max heap: " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+    }
+
+    @Override
+    protected File getResultsDirectory() {
+        return resultsDirectory;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.performanceapp.PhaseProbe;
+import io.objectbox.performanceapp.Platform;
+
+public class JvmPlatform implements Platform {
+
+    private final File databaseDirectory;
+    private final File datasetDirectory;
+    private final boolean verbose;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public JvmPlatform(File databaseDirectory, File datasetDirectory, boolean verbose) {
+        this.databaseDirectory = databaseDirectory;
+        this.datasetDirectory = datasetDirectory;
+        this.verbose = verbose;
+    }
+
+    @Override
+    public String deviceName() {
+        return System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + " (" + Runtime.getRuntime().availableProcessors() + " CPUs)";
+    }
+
+    @Override
+    public long currentThreadTimeMillis() {
+        return threadMXBean.getCurrentThreadCpuTime() / 1000000;
+    }
+
+    @Override
+    public File getDatabaseDirectory() {
+        return databaseDirectory;
+    }
+
+    @Override
+    public File getDatasetDirectory() {
+        return datasetDirectory;
+    }
+
+    @Override
+    public long nativeHeapAllocatedBytes() {
+        // Not available for the process; non-heap memory of the JVM does not include native libraries
+        return -1;
+    }
+
+    @Override
+    public List<PhaseProbe> createPhaseProbes() {
+        List<PhaseProbe> probes = new ArrayList<>();
+        probes.add(new JvmAllocationProbe());
+        return probes;
+    }
+
+    @Override
+    public void logDebug(String tag, String message) {
+        if (verbose) {
+            System.out.println(tag + ": " + message);
+        }
+    }
+
+    @Override
+    public void logError(String tag, String message, Throwable throwable) {
+        System.err.println(tag + ": " + message);
+        throwable.printStackTrace();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.jvm;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import io.objectbox.performanceapp.ResultSink;
+
+/**
+ * Passes results of a forked JVM to the parent process: writes each run as a line starting with {@link #PREFIX} to
+ * standard output, which also carries log output. See {@link ForkedPerfTest}.
+ */
+public class StreamResultSink implements ResultSink {
+
+    public static final String PREFIX = "@result ";
+
+    private final PrintStream out;
+
+    public StreamResultSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(String[] keys, String[] values) {
+        JSONObject json = new JSONObject();
+        json.put("keys", new JSONArray(Arrays.asList(keys)));
+        json.put("values", new JSONArray(Arrays.asList(values)));
+        out.println(PREFIX + json);
+        out.flush();
+    }
+
+    /**
+     * Parses a line written by {@link #write(String[], String[])}.
+     *
+     * @return keys and values, or null if the line is not a result
+     */
+    public static String[][] parse(String line) {
+        if (!line.startsWith(PREFIX)) {
+            return null;
+        }
+        JSONObject json = new JSONObject(line.substring(PREFIX.length()));
+        return new String[][]{toStrings(json.getJSONArray("keys")), toStrings(json.getJSONArray("values"))};
+    }
+
+    private static String[] toStrings(JSONArray array) {
+        String[] strings = new String[array.length()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = array.getString(i);
+        }
+        return strings;
+    }
+
+    @Override
+    public void close() {
+        out.flush();
+    }
+}
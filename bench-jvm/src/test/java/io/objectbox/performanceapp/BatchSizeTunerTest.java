@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSizeTunerTest {
+
+    /** Throughput peaks at chunk size 1000; p99 grows by 10 us per entity in a chunk. */
+    private static BatchSizeTuner.Result measure(int chunkSize) {
+        double distance = Math.abs(Math.log(chunkSize / 1000.0));
+        return new BatchSizeTuner.Result(chunkSize, Math.round(100000 / (1 + distance)), chunkSize * 10000L);
+    }
+
+    @Test
+    public void findsPeak() {
+        BatchSizeTuner.Result best = new BatchSizeTuner().trials(1).refineSteps(20)
+                .tune(100000, BatchSizeTunerTest::measure);
+        assertTrue("chunk size " + best.chunkSize, best.chunkSize >= 900 && best.chunkSize <= 1100);
+    }
+
+    @Test
+    public void respectsP99Limit() {
+        // 5 ms allows up to 500 entities per chunk
+        BatchSizeTuner tuner = new BatchSizeTuner().maxP99Nanos(5000000).trials(1);
+        BatchSizeTuner.Result best = tuner.tune(100000, BatchSizeTunerTest::measure);
+        assertTrue("chunk size " + best.chunkSize, best.chunkSize <= 500 && best.chunkSize >= 400);
+
+        assertNull(new BatchSizeTuner().maxP99Nanos(1).tune(100000, BatchSizeTunerTest::measure));
+    }
+
+    @Test
+    public void outlierTrialDoesNotWin() {
+        // The first trial of chunk size 64 is far faster than the others
+        final Map<Integer, Integer> runs = new HashMap<>();
+        BatchSizeTuner.Result best = new BatchSizeTuner().trials(3).tune(100000, chunkSize -> {
+            Integer count = runs.get(chunkSize);
+            runs.put(chunkSize, count == null ? 1 : count + 1);
+            if (chunkSize == 64 && count == null) {
+                return new BatchSizeTuner.Result(chunkSize, 10000000, chunkSize * 10000L);
+            }
+            return measure(chunkSize);
+        });
+        assertTrue("chunk size " + best.chunkSize, best.chunkSize >= 500 && best.chunkSize <= 2000);
+        for (int count : runs.values()) {
+            assertEquals(3, count);
+        }
+    }
+
+    @Test
+    public void medianAndSpread() {
+        final long[] throughputs = {300, 100, 200};
+        final int[] run = {0};
+        BatchSizeTuner.Result best = new BatchSizeTuner().maxChunkSize(1).trials(3).tune(10,
+                chunkSize -> new BatchSizeTuner.Result(chunkSize, throughputs[run[0]++], 1000));
+        assertEquals(200, best.entitiesPerSecond);
+        assertEquals(100, best.minEntitiesPerSecond);
+        assertEquals(300, best.maxEntitiesPerSecond);
+    }
+
+    @Test
+    public void trialsAreNotPaced() {
+        final List<String> phases = new ArrayList<>();
+        PhaseRunner runner = new PhaseRunner() {
+            @Override
+            public void startPhase(String name, boolean multiThreaded) {
+                phases.add(name);
+            }
+
+            @Override
+            public void stopPhase() {
+                phases.add("stop");
+            }
+
+            @Override
+            public long startOperation() {
+                throw new AssertionError("Trials must not wait for a pacer");
+            }
+
+            @Override
+            public void recordOperation(long startNanos) {
+                throw new AssertionError("Trial latencies must not be recorded in the phase");
+            }
+
+            @Override
+            public void log(String text) {
+            }
+        };
+        final int[] written = new int[1];
+        ChunkedWrites.Operations operations = new ChunkedWrites.Operations() {
+            @Override
+            public void prepareInsert() {
+            }
+
+            @Override
+            public void insert(int from, int to) {
+                written[0] += to - from;
+            }
+
+            @Override
+            public void prepareUpdate() {
+            }
+
+            @Override
+            public void update(int from, int to) {
+                written[0] += to - from;
+            }
+
+            @Override
+            public void deleteAll() {
+            }
+        };
+        BatchSizeTuner.Result best = new BatchSizeTuner().maxChunkSize(8).trials(1).tune(operations, runner, 100);
+        assertTrue(best.chunkSize >= 1 && best.chunkSize <= 8);
+        assertEquals(Arrays.asList("tuning", "stop"), phases);
+        assertEquals(0, written[0] % 200);
+    }
+
+    @Test
+    public void median() {
+        assertEquals(2, BatchSizeTuner.median(new long[]{1, 2, 3}));
+        assertEquals(2, BatchSizeTuner.median(new long[]{1, 2, 3, 4}));
+        assertEquals(5, BatchSizeTuner.median(new long[]{5}));
+    }
+}
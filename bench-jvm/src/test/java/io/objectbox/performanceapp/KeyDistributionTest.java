@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeyDistributionTest {
+
+    private static final int DRAWS = 200000;
+    private static final String[] SPECS = {
+            "uniform", "zipfian:0.99", "zipfian:0.5", "hotspot:0.2:0.8", "hotspot:0.01:0.99", "latest:0.99"
+    };
+
+    @Test
+    public void keysInRange() {
+        for (String spec : SPECS) {
+            KeyDistribution distribution = KeyDistribution.forName(spec);
+            Random random = new Random(RandomValues.SEED);
+            for (int count : new int[]{1, 2, 3, 10, 1000, 100000}) {
+                for (int i = 0; i < 10000; i++) {
+                    int key = distribution.nextKey(random, count);
+                    if (key < 0 || key >= count) {
+                        fail(spec + " returned key " + key + " for count " + count);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keysInRange_growingCount() {
+        // YCSB inserts grow the count, Zipfian then only adds the new keys to its constants
+        for (String spec : new String[]{"zipfian:0.99", "latest:0.99"}) {
+            KeyDistribution distribution = KeyDistribution.forName(spec);
+            Random random = new Random(RandomValues.SEED);
+            for (int count = 1; count <= 5000; count++) {
+                int key = distribution.nextKey(random, count);
+                if (key < 0 || key >= count) {
+                    fail(spec + " returned key " + key + " for count " + count);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void forName_toString_roundTrip() {
+        for (String spec : SPECS) {
+            assertEquals(spec, KeyDistribution.forName(spec).toString());
+        }
+        assertEquals("zipfian:0.99", KeyDistribution.forName("zipfian").toString());
+        assertEquals("latest:0.99", KeyDistribution.forName("latest").toString());
+        assertEquals("hotspot:0.2:0.8", KeyDistribution.forName("hotspot").toString());
+        assertEquals("hotspot:0.3:0.8", KeyDistribution.forName("hotspot:0.3").toString());
+        assertEquals("zipfian:0.1234", KeyDistribution.zipfian(0.12344).toString());
+        assertTrue(KeyDistribution.forName(" uniform ").isUniform());
+    }
+
+    @Test
+    public void copy_drawsSameKeys() {
+        for (String spec : SPECS) {
+            KeyDistribution distribution = KeyDistribution.forName(spec);
+            // Copy after the count is set and while it grows, copies must not depend on the original's state
+            distribution.nextKey(new Random(1), 500);
+            KeyDistribution copy = distribution.copy();
+            assertNotSame(distribution, copy);
+            assertEquals(spec, copy.toString());
+            assertEquals(distribution.isUniform(), copy.isUniform());
+            Random random = new Random(RandomValues.SEED);
+            Random randomOfCopy = new Random(RandomValues.SEED);
+            for (int count = 1000; count < 1100; count++) {
+                assertEquals(spec, distribution.nextKey(random, count), copy.nextKey(randomOfCopy, count));
+            }
+            KeyDistribution fresh = KeyDistribution.forName(spec);
+            Random randomOfFresh = new Random(RandomValues.SEED);
+            copy = distribution.copy();
+            randomOfCopy = new Random(RandomValues.SEED);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(spec, fresh.nextKey(randomOfFresh, 5000), copy.nextKey(randomOfCopy, 5000));
+            }
+        }
+    }
+
+    @Test
+    public void forName_invalid() {
+        String[] invalid = {"", "normal", "uniform:1", "zipfian:0", "zipfian:1", "zipfian:x", "zipfian:0.5:1",
+                "hotspot:1.5", "hotspot:0.2:0.8:1", "latest:-1"};
+        for (String spec : invalid) {
+            try {
+                KeyDistribution.forName(spec);
+                fail("No exception for " + spec);
+            } catch (IllegalArgumentException expected) {
+                // OK
+            }
+        }
+    }
+
+    @Test
+    public void uniform_isNotSkewed() {
+        assertEquals(0.01, topShare(KeyDistribution.uniform(), 10000, 0.01), 0.01);
+    }
+
+    @Test
+    public void zipfian_isSkewed() {
+        // With theta 0.99, the 100 most popular of 10000 keys get about half of all draws
+        assertTrue(topShare(KeyDistribution.zipfian(0.99), 10000, 0.01) > 0.3);
+        // Less skew with a smaller theta
+        double lowTheta = topShare(KeyDistribution.zipfian(0.5), 10000, 0.01);
+        assertTrue(lowTheta > 0.02);
+        assertTrue(lowTheta < topShare(KeyDistribution.zipfian(0.99), 10000, 0.01));
+    }
+
+    @Test
+    public void zipfian_scattersPopularKeys() {
+        int[] histogram = histogram(KeyDistribution.zipfian(0.99), 10000);
+        // Without scattering, the most popular keys would be the first ones
+        int firstKeysDraws = 0;
+        for (int i = 0; i < 100; i++) {
+            firstKeysDraws += histogram[i];
+        }
+        assertTrue(firstKeysDraws < DRAWS * 0.1);
+    }
+
+    @Test
+    public void latest_favorsLastKeys() {
+        int count = 10000;
+        int[] histogram = histogram(KeyDistribution.latest(0.99), count);
+        int lastKeysDraws = 0;
+        for (int i = count - 100; i < count; i++) {
+            lastKeysDraws += histogram[i];
+        }
+        assertTrue(lastKeysDraws > DRAWS * 0.3);
+        for (int i = 0; i < count - 1; i++) {
+            assertTrue(histogram[count - 1] >= histogram[i]);
+        }
+    }
+
+    @Test
+    public void hotspot_hotSetGetsHotOperations() {
+        int count = 10000;
+        int[] histogram = histogram(KeyDistribution.hotspot(0.2, 0.8), count);
+        int hotDraws = 0;
+        for (int i = 0; i < count / 5; i++) {
+            hotDraws += histogram[i];
+        }
+        assertEquals(0.8, hotDraws / (double) DRAWS, 0.01);
+    }
+
+    private static int[] histogram(KeyDistribution distribution, int count) {
+        Random random = new Random(RandomValues.SEED);
+        int[] histogram = new int[count];
+        for (int i = 0; i < DRAWS; i++) {
+            histogram[distribution.nextKey(random, count)]++;
+        }
+        return histogram;
+    }
+
+    /** Share of draws that went to the given fraction of most popular keys. */
+    private static double topShare(KeyDistribution distribution, int count, double topFraction) {
+        int[] histogram = histogram(distribution, count);
+        Arrays.sort(histogram);
+        int topKeys = (int) (count * topFraction);
+        long topDraws = 0;
+        for (int i = count - topKeys; i < count; i++) {
+            topDraws += histogram[i];
+        }
+        return topDraws / (double) DRAWS;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationTraceTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OperationTrace.Writer writer = new OperationTrace.Writer(bytes)) {
+            writer.put(1, 100);
+            writer.put(-1, 0);
+            writer.put(Long.MAX_VALUE, Integer.MAX_VALUE);
+            writer.put(Long.MIN_VALUE, 1 << 20);
+            writer.get(-1);
+            writer.query(1);
+            writer.get(42);
+            writer.remove(Long.MIN_VALUE);
+            writer.put(1, 127);
+            writer.put(-64, 128);
+        }
+        OperationTrace trace = read(bytes.toByteArray());
+
+        assertEquals(10, trace.size());
+        assertOperations(trace, OperationTrace.Operation.PUT, OperationTrace.Operation.PUT,
+                OperationTrace.Operation.PUT, OperationTrace.Operation.PUT, OperationTrace.Operation.GET,
+                OperationTrace.Operation.QUERY, OperationTrace.Operation.GET, OperationTrace.Operation.REMOVE,
+                OperationTrace.Operation.PUT, OperationTrace.Operation.PUT);
+        // Keys in the order IDs first appear: 1, -1, MAX, MIN, 42, -64
+        int[] expectedKeys = {0, 1, 2, 3, 1, 0, 4, 3, 0, 5};
+        int[] expectedPayloadSizes = {100, 0, Integer.MAX_VALUE, 1 << 20, 0, 0, 0, 0, 127, 128};
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals("key of " + i, expectedKeys[i], trace.getKey(i));
+            assertEquals("payload size of " + i, expectedPayloadSizes[i], trace.getPayloadSize(i));
+        }
+        assertEquals(6, trace.getKeyCount());
+        assertEquals(Integer.MAX_VALUE, trace.getMaxPayloadSize());
+    }
+
+    @Test
+    public void timesIncrease() throws IOException, InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OperationTrace.Writer writer = new OperationTrace.Writer(bytes)) {
+            writer.put(1, 10);
+            Thread.sleep(20);
+            writer.get(1);
+            writer.remove(1);
+        }
+        OperationTrace trace = read(bytes.toByteArray());
+
+        assertEquals(0, trace.getTimeNanos(0));
+        assertTrue("slept time is recorded", trace.getTimeNanos(1) >= 20000000);
+        assertTrue(trace.getTimeNanos(2) >= trace.getTimeNanos(1));
+        assertEquals(trace.getTimeNanos(2), trace.getDurationNanos());
+    }
+
+    @Test
+    public void emptyTrace() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new OperationTrace.Writer(bytes).close();
+        OperationTrace trace = read(bytes.toByteArray());
+
+        assertEquals(0, trace.size());
+        assertEquals(0, trace.getKeyCount());
+        assertEquals(0, trace.getDurationNanos());
+    }
+
+    @Test
+    public void invalidTraces() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OperationTrace.Writer writer = new OperationTrace.Writer(bytes)) {
+            writer.put(-1000000, 1000000);
+        }
+        byte[] valid = bytes.toByteArray();
+
+        assertInvalid("not an operation trace", new byte[]{1, 2, 3, 4, 5});
+        byte[] wrongVersion = valid.clone();
+        wrongVersion[4] = 99;
+        assertInvalid("unsupported version", wrongVersion);
+        byte[] invalidOperation = valid.clone();
+        invalidOperation[5] = 99;
+        assertInvalid("invalid operation", invalidOperation);
+        assertInvalid("truncated", Arrays.copyOf(valid, valid.length - 1));
+    }
+
+    private static OperationTrace read(byte[] bytes) throws IOException {
+        return OperationTrace.read("test", new ByteArrayInputStream(bytes));
+    }
+
+    private static void assertOperations(OperationTrace trace, OperationTrace.Operation... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("operation " + i, expected[i], trace.getOperation(i));
+        }
+    }
+
+    private static void assertInvalid(String expectedMessage, byte[] bytes) {
+        try {
+            read(bytes);
+            fail("Expected IOException for " + expectedMessage);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+}
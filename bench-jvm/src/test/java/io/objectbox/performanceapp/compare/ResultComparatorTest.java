@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.compare;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultComparatorTest {
+
+    @Test
+    public void timeColumns_lowerIsBetter() {
+        ResultComparator comparator = new ResultComparator();
+        assertEquals("REGRESSION", comparator.verdict("insert", 0.1, 0.01));
+        assertEquals("improvement", comparator.verdict("insert-p99", -0.1, 0.01));
+        assertEquals(1, comparator.getRegressions());
+        assertEquals(1, comparator.getImprovements());
+    }
+
+    @Test
+    public void throughputColumns_higherIsBetter() {
+        String[] columns = {"insert-ops-per-s", "insert-100-entities-per-s", "reader-1-ops-per-s",
+                "tuned-entities-per-s", "tuned-entities-per-s-min", "tuned-entities-per-s-max"};
+        for (String column : columns) {
+            assertTrue(column, ResultComparator.isHigherBetter(column));
+            ResultComparator comparator = new ResultComparator();
+            assertEquals(column, "improvement", comparator.verdict(column, 0.2, 0.01));
+            assertEquals(column, "REGRESSION", comparator.verdict(column, -0.2, 0.01));
+        }
+        assertFalse(ResultComparator.isHigherBetter("insert"));
+        assertFalse(ResultComparator.isHigherBetter("insert-alloc-bytes"));
+    }
+
+    @Test
+    public void noVerdict() {
+        ResultComparator comparator = new ResultComparator();
+        // Not significant, too small, baseline of 0
+        assertEquals("", comparator.verdict("insert", 0.5, 0.2));
+        assertEquals("", comparator.verdict("insert", 0.01, 0.001));
+        assertEquals("", comparator.verdict("insert", Double.NaN, 0.001));
+        // Settings and search results
+        for (String column : new String[]{"warm-up-runs", "tuned-chunk-size", "entities", "rate"}) {
+            assertEquals(column, "", comparator.verdict(column, 0.5, 0.001));
+        }
+        assertEquals(0, comparator.getRegressions() + comparator.getImprovements());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 ObjectBox Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.objectbox.performanceapp.compare;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StatisticsTest {
+
+    @Test
+    public void median() {
+        assertEquals(3, Statistics.median(new double[]{5, 1, 3}), 0);
+        assertEquals(2.5, Statistics.median(new double[]{4, 1, 3, 2}), 0);
+        assertTrue(Double.isNaN(Statistics.median(new double[0])));
+    }
+
+    @Test
+    public void mannWhitneyP_identicalSamples() {
+        double[] sample = {10, 11, 12, 13, 14};
+        assertEquals(1, Statistics.mannWhitneyP(sample, sample.clone()), 0);
+    }
+
+    @Test
+    public void mannWhitneyP_allValuesEqual() {
+        // All ranks tie, so there is no variance
+        assertEquals(1, Statistics.mannWhitneyP(new double[]{7, 7, 7}, new double[]{7, 7, 7}), 0);
+    }
+
+    @Test
+    public void mannWhitneyP_separatedSamples() {
+        double[] low = {1, 2, 3, 4, 5};
+        double[] high = {6, 7, 8, 9, 10};
+        // U = 0: z = (12.5 - 0.5) / sqrt(25 * 11 / 12)
+        double p = Statistics.mannWhitneyP(low, high);
+        assertEquals(0.0121858, p, 1e-6);
+        assertTrue(p < 0.05);
+        // Two-sided
+        assertEquals(p, Statistics.mannWhitneyP(high, low), 1e-12);
+    }
+
+    @Test
+    public void mannWhitneyP_ties() {
+        // Ranks of a: 1, 2.5, 2.5, 5.5, 5.5, so U = 2; ties of 2, 4 and 2 values: sum(t^3 - t) = 72
+        // variance = 25 / 12 * (11 - 72 / 90) = 21.25, z = (10.5 - 0.5) / sqrt(21.25)
+        double p = Statistics.mannWhitneyP(new double[]{1, 2, 2, 3, 3}, new double[]{3, 3, 4, 4, 5});
+        assertEquals(0.0300596, p, 1e-6);
+    }
+
+    @Test
+    public void mannWhitneyP_threeVsThreeNeverSignificant() {
+        assertTrue(Statistics.mannWhitneyP(new double[]{1, 2, 3}, new double[]{4, 5, 6}) > 0.05);
+    }
+
+    @Test
+    public void mannWhitneyP_emptySample() {
+        assertTrue(Double.isNaN(Statistics.mannWhitneyP(new double[0], new double[]{1})));
+    }
+
+    @Test
+    public void normalCdf() {
+        assertEquals(0.5, Statistics.normalCdf(0), 1e-7);
+        assertEquals(0.9750021, Statistics.normalCdf(1.96), 1e-6);
+        assertEquals(0.0249979, Statistics.normalCdf(-1.96), 1e-6);
+    }
+
+    @Test
+    public void bootstrapMedianChange_constantSamples() {
+        double[] change = Statistics.bootstrapMedianChange(new double[]{100, 100, 100}, new double[]{90, 90, 90},
+                1000, 0.95, new Random(1));
+        assertEquals(-0.1, change[0], 1e-12);
+        assertEquals(-0.1, change[1], 1e-12);
+    }
+
+    @Test
+    public void bootstrapMedianChange_identicalSamplesContainZero() {
+        double[] sample = {98, 99, 100, 101, 102, 103};
+        double[] change = Statistics.bootstrapMedianChange(sample, sample.clone(), 2000, 0.95, new Random(1));
+        assertTrue(change[0] <= 0);
+        assertTrue(change[1] >= 0);
+    }
+
+    @Test
+    public void bootstrapMedianChange_shiftedSamples() {
+        double[] baseline = {100, 101, 102, 103, 104};
+        double[] candidate = {110, 111, 112, 113, 114};
+        double[] change = Statistics.bootstrapMedianChange(baseline, candidate, 2000, 0.95, new Random(1));
+        // Medians of resamples stay within the samples: 110 / 104 - 1 to 114 / 100 - 1
+        assertTrue(change[0] >= 110.0 / 104 - 1);
+        assertTrue(change[1] <= 114.0 / 100 - 1);
+        assertTrue(change[0] <= change[1]);
+    }
+
+    @Test
+    public void bootstrapMedianChange_zeroBaseline() {
+        double[] change = Statistics.bootstrapMedianChange(new double[]{0, 0, 0}, new double[]{1, 2, 3},
+                100, 0.95, new Random(1));
+        assertTrue(Double.isNaN(change[0]));
+        assertTrue(Double.isNaN(change[1]));
+    }
+}